@@ -33,4 +33,9 @@ public class StandardCharsets {
    * Sixteen-bit UCS Transformation Format, little-endian byte order
    */
   public static final Charset UTF_16LE = Charset.forName("UTF-16LE");
+
+  /**
+   * Seven-bit ASCII
+   */
+  public static final Charset US_ASCII = Charset.forName("US-ASCII");
 }
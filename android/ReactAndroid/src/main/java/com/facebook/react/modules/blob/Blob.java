@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2015-present, Facebook, Inc.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.facebook.react.modules.blob;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import okio.Buffer;
+import okio.BufferedSink;
+
+/**
+ * A stored blob, made of ranges of one or more {@link BlobData}. Slicing a blob or creating one
+ * from parts of others only creates new ranges over the same data, nothing is copied.
+ */
+class Blob {
+
+  private static class Segment {
+    final BlobData data;
+    final long offset;
+    final long size;
+
+    Segment(BlobData data, long offset, long size) {
+      this.data = data;
+      this.offset = offset;
+      this.size = size;
+    }
+  }
+
+  private final List<Segment> mSegments;
+  private final long mSize;
+
+  private Blob(List<Segment> segments) {
+    mSegments = segments;
+    long size = 0;
+    for (Segment segment : segments) {
+      size += segment.size;
+    }
+    mSize = size;
+  }
+
+  /**
+   * Creates a blob that takes over the reference to data.
+   */
+  static Blob of(BlobData data) {
+    return new Blob(Collections.singletonList(new Segment(data, 0, data.size())));
+  }
+
+  /**
+   * Creates a blob that is made of the given parts, one after another.
+   */
+  static Blob concat(List<Blob> parts) {
+    List<Segment> segments = new ArrayList<>();
+    for (Blob part : parts) {
+      for (Segment segment : part.mSegments) {
+        segment.data.retain();
+        segments.add(segment);
+      }
+    }
+    return new Blob(segments);
+  }
+
+  long size() {
+    return mSize;
+  }
+
+  /**
+   * Returns a blob of byteCount bytes starting at offset, which shares the data of this blob.
+   */
+  Blob slice(long offset, long byteCount) {
+    List<Segment> segments = new ArrayList<>();
+    for (Segment segment : mSegments) {
+      if (byteCount <= 0) {
+        break;
+      }
+      if (offset >= segment.size) {
+        offset -= segment.size;
+        continue;
+      }
+      long size = Math.min(segment.size - offset, byteCount);
+      segment.data.retain();
+      segments.add(new Segment(segment.data, segment.offset + offset, size));
+      byteCount -= size;
+      offset = 0;
+    }
+    return new Blob(segments);
+  }
+
+  void writeTo(BufferedSink sink, long offset, long byteCount) throws IOException {
+    for (Segment segment : mSegments) {
+      if (byteCount <= 0) {
+        break;
+      }
+      if (offset >= segment.size) {
+        offset -= segment.size;
+        continue;
+      }
+      long size = Math.min(segment.size - offset, byteCount);
+      segment.data.writeTo(sink, segment.offset + offset, size);
+      byteCount -= size;
+      offset = 0;
+    }
+  }
+
+  byte[] getBytes(long offset, long byteCount) throws IOException {
+    if (mSegments.size() == 1 && offset == 0 && byteCount == mSize) {
+      byte[] bytes = mSegments.get(0).data.getBytesIfInMemory();
+      if (bytes != null && mSegments.get(0).offset == 0 && bytes.length == byteCount) {
+        return bytes;
+      }
+    }
+    Buffer buffer = new Buffer();
+    writeTo(buffer, offset, byteCount);
+    return buffer.readByteArray();
+  }
+
+  void release() {
+    for (Segment segment : mSegments) {
+      segment.data.release();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2015-present, Facebook, Inc.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.facebook.react.modules.blob;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Bytes that blobs are made of, held either in memory or in a file. The same data can be shared
+ * by several blobs, e.g. a blob and the blobs created from parts of it, so it is reference
+ * counted and a file is only deleted once no blob uses it anymore.
+ */
+abstract class BlobData {
+
+  private int mRefCount = 1;
+
+  abstract long size();
+
+  abstract void writeTo(BufferedSink sink, long offset, long byteCount) throws IOException;
+
+  /**
+   * Returns the bytes if they are held in memory, without copying them.
+   */
+  abstract byte[] getBytesIfInMemory();
+
+  protected void onReleased() {
+  }
+
+  synchronized void retain() {
+    mRefCount++;
+  }
+
+  void release() {
+    boolean isReleased;
+    synchronized (this) {
+      isReleased = --mRefCount == 0;
+    }
+    if (isReleased) {
+      onReleased();
+    }
+  }
+
+  static class InMemory extends BlobData {
+    private final byte[] mBytes;
+
+    InMemory(byte[] bytes) {
+      mBytes = bytes;
+    }
+
+    @Override
+    long size() {
+      return mBytes.length;
+    }
+
+    @Override
+    void writeTo(BufferedSink sink, long offset, long byteCount) throws IOException {
+      sink.write(mBytes, (int) offset, (int) byteCount);
+    }
+
+    @Override
+    byte[] getBytesIfInMemory() {
+      return mBytes;
+    }
+  }
+
+  static class OnDisk extends BlobData {
+    private final File mFile;
+    private final long mSize;
+
+    OnDisk(File file, long size) {
+      mFile = file;
+      mSize = size;
+    }
+
+    File getFile() {
+      return mFile;
+    }
+
+    @Override
+    long size() {
+      return mSize;
+    }
+
+    @Override
+    void writeTo(BufferedSink sink, long offset, long byteCount) throws IOException {
+      FileInputStream inputStream = new FileInputStream(mFile);
+      try {
+        inputStream.getChannel().position(offset);
+        Source source = Okio.source(inputStream);
+        sink.write(source, byteCount);
+      } finally {
+        inputStream.close();
+      }
+    }
+
+    @Override
+    byte[] getBytesIfInMemory() {
+      return null;
+    }
+
+    @Override
+    protected void onReleased() {
+      mFile.delete();
+    }
+  }
+}
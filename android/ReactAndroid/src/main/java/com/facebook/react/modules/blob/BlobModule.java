@@ -15,6 +15,7 @@ import android.provider.MediaStore;
 import android.support.annotation.Nullable;
 import android.webkit.MimeTypeMap;
 
+import com.facebook.common.logging.FLog;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
@@ -23,34 +24,45 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.common.MapBuilder;
+import com.facebook.react.common.ReactConstants;
 import com.facebook.react.module.annotations.ReactModule;
 import com.facebook.react.modules.network.NetworkingModule;
 import com.facebook.react.modules.websocket.WebSocketModule;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import okhttp3.MediaType;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
 import okio.ByteString;
+import okio.Okio;
+import okio.Source;
 
 @ReactModule(name = BlobModule.NAME)
 public class BlobModule extends ReactContextBaseJavaModule {
 
   protected static final String NAME = "BlobModule";
 
-  private final Map<String, byte[]> mBlobs = new HashMap<>();
+  // Blobs larger than this are kept in files instead of memory
+  static final int MAX_IN_MEMORY_SIZE = 1024 * 1024;
+  private static final int BUFFER_SIZE = 8192;
+  private static final String BLOBS_DIRECTORY_NAME = "ReactNativeBlobs";
+
+  private final Map<String, Blob> mBlobs = new HashMap<>();
+  private @Nullable File mBlobsDirectory;
 
   private final WebSocketModule.ContentHandler mWebSocketContentHandler =
     new WebSocketModule.ContentHandler() {
@@ -86,12 +98,22 @@ public class BlobModule extends ReactContextBaseJavaModule {
 
       @Override
       public WritableMap fetch(Uri uri) throws IOException {
-        byte[] data = getBytesFromUri(uri);
+        InputStream is = getReactApplicationContext().getContentResolver().openInputStream(uri);
+        if (is == null) {
+          throw new FileNotFoundException("File not found for " + uri);
+        }
+        String blobId = UUID.randomUUID().toString();
+        long size;
+        try {
+          size = store(Okio.source(is), blobId);
+        } finally {
+          is.close();
+        }
 
         WritableMap blob = Arguments.createMap();
-        blob.putString("blobId", store(data));
+        blob.putString("blobId", blobId);
         blob.putInt("offset", 0);
-        blob.putInt("size", data.length);
+        blob.putInt("size", (int) size);
         blob.putString("type", getMimeTypeFromUri(uri));
 
         // Needed for files
@@ -111,21 +133,7 @@ public class BlobModule extends ReactContextBaseJavaModule {
 
       @Override
       public RequestBody toRequestBody(ReadableMap data, String contentType) {
-        String type = contentType;
-        if (data.hasKey("type") && !data.getString("type").isEmpty()) {
-          type = data.getString("type");
-        }
-        if (type == null) {
-          type = "application/octet-stream";
-        }
-        ReadableMap blob = data.getMap("blob");
-        String blobId = blob.getString("blobId");
-        byte[] bytes = resolve(
-          blobId,
-          blob.getInt("offset"),
-          blob.getInt("size"));
-
-        return RequestBody.create(MediaType.parse(type), bytes);
+        return createRequestBody(data, contentType);
       }
     };
 
@@ -138,11 +146,12 @@ public class BlobModule extends ReactContextBaseJavaModule {
 
       @Override
       public WritableMap toResponseData(ResponseBody body) throws IOException {
-        byte[] data = body.bytes();
+        String blobId = UUID.randomUUID().toString();
+        long size = store(body.source(), blobId);
         WritableMap blob = Arguments.createMap();
-        blob.putString("blobId", store(data));
+        blob.putString("blobId", blobId);
         blob.putInt("offset", 0);
-        blob.putInt("size", data.length);
+        blob.putInt("size", (int) size);
         return blob;
       }
     };
@@ -178,61 +187,189 @@ public class BlobModule extends ReactContextBaseJavaModule {
   }
 
   public void store(byte[] data, String blobId) {
-    mBlobs.put(blobId, data);
+    if (data.length > MAX_IN_MEMORY_SIZE) {
+      try {
+        store(Okio.source(new ByteArrayInputStream(data)), blobId);
+        return;
+      } catch (IOException e) {
+        FLog.w(ReactConstants.TAG, "Could not move blob to disk, keeping it in memory", e);
+      }
+    }
+    put(blobId, Blob.of(new BlobData.InMemory(data)));
   }
 
-  public void remove(String blobId) {
-    mBlobs.remove(blobId);
+  /**
+   * Stores everything read from source without holding all of it in memory if it's large.
+   * Returns the size of the stored blob.
+   */
+  public long store(Source source, String blobId) throws IOException {
+    Buffer buffer = new Buffer();
+    while (buffer.size() <= MAX_IN_MEMORY_SIZE) {
+      if (source.read(buffer, BUFFER_SIZE) == -1) {
+        long size = buffer.size();
+        put(blobId, Blob.of(new BlobData.InMemory(buffer.readByteArray())));
+        return size;
+      }
+    }
+
+    File file = createBlobFile();
+    long size = 0;
+    BufferedSink sink = Okio.buffer(Okio.sink(file));
+    try {
+      size += sink.writeAll(buffer);
+      size += sink.writeAll(source);
+    } catch (IOException e) {
+      sink.close();
+      file.delete();
+      throw e;
+    }
+    sink.close();
+    put(blobId, Blob.of(new BlobData.OnDisk(file, size)));
+    return size;
   }
 
-  public @Nullable byte[] resolve(Uri uri) {
-    String blobId = uri.getLastPathSegment();
-    int offset = 0;
-    int size = -1;
-    String offsetParam = uri.getQueryParameter("offset");
-    if (offsetParam != null) {
-      offset = Integer.parseInt(offsetParam, 10);
+  public void remove(String blobId) {
+    Blob blob;
+    synchronized (mBlobs) {
+      blob = mBlobs.remove(blobId);
     }
-    String sizeParam = uri.getQueryParameter("size");
-    if (sizeParam != null) {
-      size = Integer.parseInt(sizeParam, 10);
+    if (blob != null) {
+      blob.release();
     }
-    return resolve(blobId, offset, size);
+  }
+
+  public @Nullable byte[] resolve(Uri uri) {
+    return resolve(uri.getLastPathSegment(), getOffsetFromUri(uri), getSizeFromUri(uri));
   }
 
   public @Nullable byte[] resolve(String blobId, int offset, int size) {
-    byte[] data = mBlobs.get(blobId);
-    if (data == null) {
+    Blob blob = get(blobId);
+    if (blob == null) {
       return null;
     }
     if (size == -1) {
-      size = data.length - offset;
+      size = (int) blob.size() - offset;
     }
-    if (offset > 0 || size != data.length) {
-      data = Arrays.copyOfRange(data, offset, offset + size);
+    try {
+      return blob.getBytes(offset, size);
+    } catch (IOException e) {
+      FLog.e(ReactConstants.TAG, "Could not read blob " + blobId, e);
+      return null;
     }
-    return data;
   }
 
   public @Nullable byte[] resolve(ReadableMap blob) {
     return resolve(blob.getString("blobId"), blob.getInt("offset"), blob.getInt("size"));
   }
 
-  private byte[] getBytesFromUri(Uri contentUri) throws IOException {
-    InputStream is = getReactApplicationContext().getContentResolver().openInputStream(contentUri);
+  public boolean writeTo(Uri uri, BufferedSink sink) throws IOException {
+    return writeTo(uri.getLastPathSegment(), getOffsetFromUri(uri), getSizeFromUri(uri), sink);
+  }
+
+  /**
+   * Writes a range of a blob to sink, reading it from wherever it is stored. Returns false if
+   * there is no such blob.
+   */
+  public boolean writeTo(String blobId, int offset, int size, BufferedSink sink) throws IOException {
+    Blob blob = get(blobId);
+    if (blob == null) {
+      return false;
+    }
+    if (size == -1) {
+      size = (int) blob.size() - offset;
+    }
+    blob.writeTo(sink, offset, size);
+    return true;
+  }
+
+  /**
+   * Returns a body that streams a range of a blob from wherever it is stored. The body keeps the
+   * data it reads from until it is closed, so the blob may be released while it is being sent.
+   */
+  RequestBody createRequestBody(ReadableMap data, @Nullable String contentType) {
+    String type = contentType;
+    if (data.hasKey("type") && !data.getString("type").isEmpty()) {
+      type = data.getString("type");
+    }
+    if (type == null) {
+      type = "application/octet-stream";
+    }
+    ReadableMap blob = data.getMap("blob");
+    Blob storedBlob = get(blob.getString("blobId"));
+    MediaType mediaType = MediaType.parse(type);
+    if (storedBlob == null) {
+      return RequestBody.create(mediaType, new byte[0]);
+    }
+    return new BlobRequestBody(mediaType, storedBlob.slice(blob.getInt("offset"), blob.getInt("size")));
+  }
+
+  boolean contains(String blobId) {
+    return get(blobId) != null;
+  }
+
+  private static int getOffsetFromUri(Uri uri) {
+    String offsetParam = uri.getQueryParameter("offset");
+    return offsetParam != null ? Integer.parseInt(offsetParam, 10) : 0;
+  }
+
+  private static int getSizeFromUri(Uri uri) {
+    String sizeParam = uri.getQueryParameter("size");
+    return sizeParam != null ? Integer.parseInt(sizeParam, 10) : -1;
+  }
+
+  private @Nullable Blob get(String blobId) {
+    synchronized (mBlobs) {
+      return mBlobs.get(blobId);
+    }
+  }
+
+  private void put(String blobId, Blob blob) {
+    Blob previousBlob;
+    synchronized (mBlobs) {
+      previousBlob = mBlobs.put(blobId, blob);
+    }
+    if (previousBlob != null) {
+      previousBlob.release();
+    }
+  }
 
-    if (is == null) {
-      throw new FileNotFoundException("File not found for " + contentUri);
+  private File createBlobFile() throws IOException {
+    synchronized (mBlobs) {
+      if (mBlobsDirectory == null) {
+        // Every instance gets its own directory, so that it can delete all of it once destroyed
+        mBlobsDirectory = new File(
+          new File(getReactApplicationContext().getCacheDir(), BLOBS_DIRECTORY_NAME),
+          UUID.randomUUID().toString());
+      }
+      if (!mBlobsDirectory.isDirectory() && !mBlobsDirectory.mkdirs()) {
+        throw new IOException("Could not create blob directory " + mBlobsDirectory);
+      }
+      return new File(mBlobsDirectory, UUID.randomUUID().toString());
     }
+  }
 
-    ByteArrayOutputStream byteBuffer = new ByteArrayOutputStream();
-    int bufferSize = 1024;
-    byte[] buffer = new byte[bufferSize];
-    int len;
-    while ((len = is.read(buffer)) != -1) {
-      byteBuffer.write(buffer, 0, len);
+  @Override
+  public void onCatalystInstanceDestroy() {
+    List<Blob> blobs;
+    File blobsDirectory;
+    synchronized (mBlobs) {
+      blobs = new ArrayList<>(mBlobs.values());
+      mBlobs.clear();
+      blobsDirectory = mBlobsDirectory;
+      mBlobsDirectory = null;
+    }
+    for (Blob blob : blobs) {
+      blob.release();
+    }
+    if (blobsDirectory != null) {
+      File[] files = blobsDirectory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          file.delete();
+        }
+      }
+      blobsDirectory.delete();
     }
-    return byteBuffer.toByteArray();
   }
 
   private String getNameFromUri(Uri contentUri) {
@@ -303,10 +440,18 @@ public class BlobModule extends ReactContextBaseJavaModule {
 
   @ReactMethod
   public void sendOverSocket(ReadableMap blob, int id) {
-    byte[] data = resolve(blob.getString("blobId"), blob.getInt("offset"), blob.getInt("size"));
+    // Messages have to be sent whole, but they can be read straight into the message
+    Buffer buffer = new Buffer();
+    boolean isResolved;
+    try {
+      isResolved = writeTo(blob.getString("blobId"), blob.getInt("offset"), blob.getInt("size"), buffer);
+    } catch (IOException e) {
+      FLog.e(ReactConstants.TAG, "Could not read blob " + blob.getString("blobId"), e);
+      isResolved = false;
+    }
 
-    if (data != null) {
-      getWebSocketModule().sendBinary(ByteString.of(data), id);
+    if (isResolved) {
+      getWebSocketModule().sendBinary(buffer.readByteString(), id);
     } else {
       getWebSocketModule().sendBinary((ByteString) null, id);
     }
@@ -314,34 +459,80 @@ public class BlobModule extends ReactContextBaseJavaModule {
 
   @ReactMethod
   public void createFromParts(ReadableArray parts, String blobId) {
-    int totalBlobSize = 0;
-    ArrayList<byte[]> partList = new ArrayList<>(parts.size());
-    for (int i = 0; i < parts.size(); i++) {
-      ReadableMap part = parts.getMap(i);
-      switch (part.getString("type")) {
-        case "blob":
-          ReadableMap blob = part.getMap("data");
-          totalBlobSize += blob.getInt("size");
-          partList.add(i, resolve(blob));
-          break;
-        case "string":
-          byte[] bytes = part.getString("data").getBytes(Charset.forName("UTF-8"));
-          totalBlobSize += bytes.length;
-          partList.add(i, bytes);
-          break;
-        default:
-          throw new IllegalArgumentException("Invalid type for blob: " + part.getString("type"));
+    // The new blob is made of ranges of the parts, their data isn't copied
+    ArrayList<Blob> partList = new ArrayList<>(parts.size());
+    try {
+      for (int i = 0; i < parts.size(); i++) {
+        ReadableMap part = parts.getMap(i);
+        switch (part.getString("type")) {
+          case "blob":
+            ReadableMap blob = part.getMap("data");
+            Blob storedBlob = get(blob.getString("blobId"));
+            if (storedBlob == null) {
+              throw new IllegalArgumentException("Invalid blob: " + blob.getString("blobId"));
+            }
+            partList.add(storedBlob.slice(blob.getInt("offset"), blob.getInt("size")));
+            break;
+          case "string":
+            byte[] bytes = part.getString("data").getBytes(Charset.forName("UTF-8"));
+            partList.add(Blob.of(new BlobData.InMemory(bytes)));
+            break;
+          default:
+            throw new IllegalArgumentException("Invalid type for blob: " + part.getString("type"));
+        }
+      }
+      put(blobId, Blob.concat(partList));
+    } finally {
+      for (Blob part : partList) {
+        part.release();
       }
     }
-    ByteBuffer buffer = ByteBuffer.allocate(totalBlobSize);
-    for (byte[] bytes : partList) {
-      buffer.put(bytes);
-    }
-    store(buffer.array(), blobId);
   }
 
   @ReactMethod
   public void release(String blobId) {
     remove(blobId);
   }
+
+  private static class BlobRequestBody extends RequestBody implements Closeable {
+    private final MediaType mMediaType;
+    private final Blob mBlob;
+    private boolean mIsClosed;
+
+    BlobRequestBody(MediaType mediaType, Blob blob) {
+      mMediaType = mediaType;
+      mBlob = blob;
+    }
+
+    @Override
+    public MediaType contentType() {
+      return mMediaType;
+    }
+
+    @Override
+    public long contentLength() {
+      return mBlob.size();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      synchronized (this) {
+        if (mIsClosed) {
+          throw new IOException("Blob request body is closed");
+        }
+      }
+      mBlob.writeTo(sink, 0, mBlob.size());
+    }
+
+    @Override
+    public void close() {
+      synchronized (this) {
+        if (mIsClosed) {
+          return;
+        }
+        mIsClosed = true;
+      }
+      mBlob.release();
+    }
+  }
 }
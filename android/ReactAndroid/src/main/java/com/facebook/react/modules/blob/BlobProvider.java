@@ -18,7 +18,8 @@ import com.facebook.react.ReactNativeHost;
 import com.facebook.react.bridge.ReactContext;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.OutputStream;
+import okio.BufferedSink;
+import okio.Okio;
 
 public final class BlobProvider extends ContentProvider {
 
@@ -71,8 +72,7 @@ public final class BlobProvider extends ContentProvider {
       throw new RuntimeException("No blob module associated with BlobProvider");
     }
 
-    byte[] data = blobModule.resolve(uri);
-    if (data == null) {
+    if (!blobModule.contains(uri.getLastPathSegment())) {
       throw new FileNotFoundException("Cannot open " + uri.toString() + ", blob not found.");
     }
 
@@ -85,13 +85,30 @@ public final class BlobProvider extends ContentProvider {
     ParcelFileDescriptor readSide = pipe[0];
     ParcelFileDescriptor writeSide = pipe[1];
 
-    OutputStream outputStream = new ParcelFileDescriptor.AutoCloseOutputStream(writeSide);
-    try {
-      outputStream.write(data);
-      outputStream.close();
-    } catch (IOException exception) {
-      return null;
-    }
+    // The blob is streamed into the pipe on another thread, as writing blocks once the pipe is full
+    final BlobModule finalBlobModule = blobModule;
+    final Uri finalUri = uri;
+    final BufferedSink sink =
+        Okio.buffer(Okio.sink(new ParcelFileDescriptor.AutoCloseOutputStream(writeSide)));
+    new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  finalBlobModule.writeTo(finalUri, sink);
+                } catch (IOException exception) {
+                  // The reading side sees the pipe being closed early
+                } finally {
+                  try {
+                    sink.close();
+                  } catch (IOException exception) {
+                    // Nothing left to do
+                  }
+                }
+              }
+            },
+            "BlobProvider")
+        .start();
 
     return readSide;
   }
@@ -8,6 +8,7 @@ package com.facebook.react.modules.network;
 
 import android.net.Uri;
 import android.util.Base64;
+import com.facebook.common.logging.FLog;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.GuardedAsyncTask;
 import com.facebook.react.bridge.ReactApplicationContext;
@@ -16,10 +17,12 @@ import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.common.ReactConstants;
 import com.facebook.react.common.StandardCharsets;
 import com.facebook.react.common.network.OkHttpCallUtil;
 import com.facebook.react.module.annotations.ReactModule;
 import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
@@ -42,6 +45,7 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.Buffer;
 import okio.ByteString;
 
 /**
@@ -78,7 +82,8 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
         boolean supports(ReadableMap map);
 
         /**
-     * Returns the {@link RequestBody} for the JS body payload.
+     * Returns the {@link RequestBody} for the JS body payload. If it implements {@link Closeable}
+     * it is closed once the request has finished, failed or was aborted.
      */
         RequestBody toRequestBody(ReadableMap map, String contentType);
     }
@@ -99,6 +104,21 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
         WritableMap toResponseData(ResponseBody body) throws IOException;
     }
 
+    /**
+   * Receives, once a request with incremental updates is done, how its incremental data and
+   * progress updates were sent to JS.
+   */
+    public interface ResponseEventStatsListener {
+
+        /**
+     * @param eventCount the number of events that were sent
+     * @param byteCount the number of response bytes that the events covered
+     * @param totalQueueDelayNs the time updates waited to be sent, summed over all events
+     * @param maxQueueDelayNs the longest time an update waited to be sent
+     */
+        void onResponseEventStats(int requestId, int eventCount, long byteCount, long totalQueueDelayNs, long maxQueueDelayNs);
+    }
+
     public static final String NAME = "Networking";
 
     public static String CONTENT_ENCODING_HEADER_NAME = "content-encoding";
@@ -120,6 +140,12 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
 
     // 8K
     public static int MAX_CHUNK_SIZE_BETWEEN_FLUSHES = 8 * 1024;
+    // The read buffer grows up to this size while the response keeps filling it
+    private static final int MAX_READ_BUFFER_SIZE = 256 * 1024;
+    // A multiple of three, so that every chunk but the last is encoded without padding
+    private static final int BASE64_CHUNK_SIZE = 3 * 8 * 1024;
+    // Content-Length is only trusted up to this many encoded bytes, larger bodies go to a Buffer
+    private static final int MAX_PRESIZED_BASE64_SIZE = 64 * 1024 * 1024;
 
     public final OkHttpClient mClient;
 
@@ -140,6 +166,9 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
 
     public boolean mShuttingDown;
 
+    @Nullable
+    private volatile ResponseEventStatsListener mResponseEventStatsListener;
+
     /* package */
     NetworkingModule(ReactApplicationContext reactContext, @Nullable String defaultUserAgent, OkHttpClient client, @Nullable List<NetworkInterceptorCreator> networkInterceptorCreators) {
         super(reactContext);
@@ -233,6 +262,10 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
         mResponseHandlers.remove(handler);
     }
 
+    public void setResponseEventStatsListener(@Nullable ResponseEventStatsListener listener) {
+        mResponseEventStatsListener = listener;
+    }
+
     @ReactMethod
     public /**
    * @param timeout value of 0 results in no timeout
@@ -269,6 +302,10 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
             clientBuilder.cookieJar(CookieJar.NO_COOKIES);
         }
         // response and counts bytes received.
+        // Incremental text is sent at most once per frame, progress alone as often as before.
+        final ResponseEventCoalescer eventCoalescer = useIncrementalUpdates
+            ? new ResponseEventCoalescer(eventEmitter, requestId, responseType.equals("text"), responseType.equals("text") ? 0 : CHUNK_TIMEOUT_NS, mResponseEventStatsListener)
+            : null;
         if (useIncrementalUpdates) {
             clientBuilder.addNetworkInterceptor(new Interceptor() {
 
@@ -277,20 +314,16 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
                     Response originalResponse = chain.proceed(chain.request());
                     ProgressResponseBody responseBody = new ProgressResponseBody(originalResponse.body(), new ProgressListener() {
 
-                        public long last = System.nanoTime();
-
                         @Override
                         public void onProgress(long bytesWritten, long contentLength, boolean done) {
-                            long now = System.nanoTime();
-                            if (!done && !shouldDispatch(now, last)) {
-                                return;
-                            }
                             if (responseType.equals("text")) {
                                 // JS below, so no need to do anything here.
                                 return;
                             }
-                            ResponseUtil.onDataReceivedProgress(eventEmitter, requestId, bytesWritten, contentLength);
-                            last = now;
+                            eventCoalescer.onProgress(bytesWritten, contentLength);
+                            if (done) {
+                                eventCoalescer.finish();
+                            }
                         }
                     });
                     return originalResponse.newBuilder().body(responseBody).build();
@@ -375,22 +408,29 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
             // Nothing in data payload, at least nothing we could understand anyway.
             requestBody = RequestBodyUtil.getEmptyBody(method);
         }
+        final RequestBody finalRequestBody = requestBody;
         requestBuilder.method(method, wrapRequestBodyWithProgressEmitter(requestBody, eventEmitter, requestId));
         addRequest(requestId);
         client.newCall(requestBuilder.build()).enqueue(new Callback() {
 
             @Override
             public void onFailure(Call call, IOException e) {
+                closeRequestBody(finalRequestBody);
                 if (mShuttingDown) {
                     return;
                 }
                 removeRequest(requestId);
+                if (eventCoalescer != null) {
+                    eventCoalescer.finish();
+                }
                 String errorMessage = e.getMessage() != null ? e.getMessage() : "Error while executing request: " + e.getClass().getSimpleName();
                 ResponseUtil.onRequestError(eventEmitter, requestId, errorMessage, e);
             }
 
             @Override
             public void onResponse(Call call, Response response) throws IOException {
+                // The request body has been sent completely, including for redirects, by now
+                closeRequestBody(finalRequestBody);
                 if (mShuttingDown) {
                     return;
                 }
@@ -410,7 +450,7 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
                     }
                     // periodically send response data updates to JS.
                     if (useIncrementalUpdates && responseType.equals("text")) {
-                        readWithProgress(eventEmitter, requestId, responseBody);
+                        readWithProgress(eventCoalescer, responseBody);
                         ResponseUtil.onRequestSuccess(eventEmitter, requestId);
                         return;
                     }
@@ -431,11 +471,14 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
                             }
                         }
                     } else if (responseType.equals("base64")) {
-                        responseString = Base64.encodeToString(responseBody.bytes(), Base64.NO_WRAP);
+                        responseString = readAsBase64(responseBody);
                     }
                     ResponseUtil.onDataReceived(eventEmitter, requestId, responseString);
                     ResponseUtil.onRequestSuccess(eventEmitter, requestId);
                 } catch (IOException e) {
+                    if (eventCoalescer != null) {
+                        eventCoalescer.finish();
+                    }
                     ResponseUtil.onRequestError(eventEmitter, requestId, e.getMessage(), e);
                 }
             }
@@ -461,16 +504,17 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
         });
     }
 
-    private void readWithProgress(RCTDeviceEventEmitter eventEmitter, int requestId, ResponseBody responseBody) throws IOException {
-        long totalBytesRead = -1;
-        long contentLength = -1;
-        try {
-            ProgressResponseBody progressResponseBody = (ProgressResponseBody) responseBody;
-            totalBytesRead = progressResponseBody.totalBytesRead();
-            contentLength = progressResponseBody.contentLength();
-        } catch (ClassCastException e) {
-        // Ignore
-        }
+    /**
+     * Decodes the body as it arrives and hands it to the coalescer, which sends it to JS at most
+     * once per frame. Reads that fill the whole buffer mean that more data is already waiting, so
+     * the buffer then doubles to decode more of it per read.
+     */
+    /* package */ static void readWithProgress(ResponseEventCoalescer eventCoalescer, ResponseBody responseBody) throws IOException {
+        ProgressResponseBody progressResponseBody = responseBody instanceof ProgressResponseBody
+            ? (ProgressResponseBody) responseBody
+            : null;
+        long contentLength = responseBody.contentLength();
+        long totalBytesRead = 0;
         Charset charset = responseBody.contentType() == null ? StandardCharsets.UTF_8 : responseBody.contentType().charset(StandardCharsets.UTF_8);
         ProgressiveStringDecoder streamDecoder = new ProgressiveStringDecoder(charset);
         InputStream inputStream = responseBody.byteStream();
@@ -478,10 +522,80 @@ public class NetworkingModule extends ReactContextBaseJavaModule {
             byte[] buffer = new byte[MAX_CHUNK_SIZE_BETWEEN_FLUSHES];
             int read;
             while ((read = inputStream.read(buffer)) != -1) {
-                ResponseUtil.onIncrementalDataReceived(eventEmitter, requestId, streamDecoder.decodeNext(buffer, read), totalBytesRead, contentLength);
+                totalBytesRead += read;
+                long progress = progressResponseBody != null ? progressResponseBody.totalBytesRead() : totalBytesRead;
+                eventCoalescer.onData(streamDecoder.decodeNext(buffer, read), read, progress, contentLength);
+                if (read == buffer.length && buffer.length < MAX_READ_BUFFER_SIZE) {
+                    buffer = new byte[buffer.length * 2];
+                }
             }
         } finally {
             inputStream.close();
+            eventCoalescer.finish();
+        }
+    }
+
+    /**
+     * Encodes the body chunk by chunk, so that the body itself is never held in memory. Base64 is
+     * ASCII, so the encoding is collected as bytes rather than 2-byte chars: in one presized array
+     * when the Content-Length is known, otherwise in a {@link Buffer}, which grows without copying.
+     */
+    /* package */ static String readAsBase64(ResponseBody responseBody) throws IOException {
+        long contentLength = responseBody.contentLength();
+        long encodedSize = (contentLength + 2) / 3 * 4;
+        byte[] encoded = contentLength > 0 && encodedSize <= MAX_PRESIZED_BASE64_SIZE
+            ? new byte[(int) encodedSize]
+            : null;
+        int encodedLength = 0;
+        Buffer buffer = null;
+        InputStream inputStream = responseBody.byteStream();
+        try {
+            byte[] chunk = new byte[BASE64_CHUNK_SIZE];
+            int length;
+            do {
+                // Only the last chunk may be shorter, otherwise padding would end up in the middle
+                length = 0;
+                int read;
+                while (length < chunk.length
+                    && (read = inputStream.read(chunk, length, chunk.length - length)) != -1) {
+                    length += read;
+                }
+                if (length == 0) {
+                    break;
+                }
+                byte[] encodedChunk = Base64.encode(chunk, 0, length, Base64.NO_WRAP);
+                if (encoded != null && encodedLength + encodedChunk.length <= encoded.length) {
+                    System.arraycopy(encodedChunk, 0, encoded, encodedLength, encodedChunk.length);
+                    encodedLength += encodedChunk.length;
+                } else {
+                    if (buffer == null) {
+                        // Content-Length is unknown or too small
+                        buffer = new Buffer();
+                        if (encoded != null) {
+                            buffer.write(encoded, 0, encodedLength);
+                            encoded = null;
+                        }
+                    }
+                    buffer.write(encodedChunk);
+                }
+            } while (length == chunk.length);
+        } finally {
+            inputStream.close();
+        }
+        if (buffer != null) {
+            return buffer.readString(StandardCharsets.US_ASCII);
+        }
+        return encoded != null ? new String(encoded, 0, encodedLength, StandardCharsets.US_ASCII) : "";
+    }
+
+    private static void closeRequestBody(RequestBody requestBody) {
+        if (!(requestBody instanceof Closeable)) {
+            return;
+        }
+        try {
+            ((Closeable) requestBody).close();
+        } catch (IOException e) {
+            FLog.e(ReactConstants.TAG, "Failed to close request body", e);
         }
     }
 
@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2015-present, Facebook, Inc.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.network;
+
+import javax.annotation.Nullable;
+
+import com.facebook.react.modules.core.ChoreographerCompat;
+import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
+import com.facebook.react.modules.core.ReactChoreographer;
+
+/**
+ * Merges the incremental data and download progress of a request into at most one event per
+ * interval, which is never shorter than a frame. Updates that arrive before the interval is over
+ * are sent on a later frame, so they are not held back when the response stalls. Also counts how
+ * many events were sent, how many bytes they covered and how long updates waited to be sent.
+ */
+/* package */ class ResponseEventCoalescer {
+
+  /* package */ static final long FRAME_INTERVAL_NS = 1000000000L / 60;
+
+  private final RCTDeviceEventEmitter mEventEmitter;
+  private final int mRequestId;
+  private final boolean mHasData;
+  private final long mMinIntervalNs;
+  private final @Nullable NetworkingModule.ResponseEventStatsListener mStatsListener;
+
+  private final ChoreographerCompat.FrameCallback mFrameCallback =
+      new ChoreographerCompat.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+          onFrame(System.nanoTime());
+        }
+      };
+
+  private final StringBuilder mPendingData = new StringBuilder();
+  private boolean mHasPendingUpdate;
+  private long mPendingSinceNs;
+  private long mProgress;
+  private long mTotal;
+  private boolean mHasEmitted;
+  private long mLastEmitNs;
+  private boolean mIsFrameCallbackPosted;
+  private boolean mIsFinished;
+
+  private int mEventCount;
+  private long mByteCount;
+  private long mTotalQueueDelayNs;
+  private long mMaxQueueDelayNs;
+
+  /**
+   * @param hasData whether incremental data is sent, otherwise only the download progress is
+   * @param minIntervalNs the shortest time between two events, at least a frame is used
+   */
+  /* package */ ResponseEventCoalescer(
+      RCTDeviceEventEmitter eventEmitter,
+      int requestId,
+      boolean hasData,
+      long minIntervalNs,
+      @Nullable NetworkingModule.ResponseEventStatsListener statsListener) {
+    mEventEmitter = eventEmitter;
+    mRequestId = requestId;
+    mHasData = hasData;
+    mMinIntervalNs = Math.max(minIntervalNs, FRAME_INTERVAL_NS);
+    mStatsListener = statsListener;
+  }
+
+  /* package */ void onData(String data, int byteCount, long progress, long total) {
+    onData(data, byteCount, progress, total, System.nanoTime());
+  }
+
+  /* package */ void onData(
+      String data,
+      int byteCount,
+      long progress,
+      long total,
+      long now) {
+    boolean shouldPostFrameCallback;
+    synchronized (this) {
+      if (mIsFinished) {
+        return;
+      }
+      mPendingData.append(data);
+      mByteCount += byteCount;
+      shouldPostFrameCallback = update(progress, total, now);
+    }
+    if (shouldPostFrameCallback) {
+      postFrameCallback();
+    }
+  }
+
+  /* package */ void onProgress(long progress, long total) {
+    onProgress(progress, total, System.nanoTime());
+  }
+
+  /* package */ void onProgress(long progress, long total, long now) {
+    boolean shouldPostFrameCallback;
+    synchronized (this) {
+      if (mIsFinished) {
+        return;
+      }
+      if (!mHasData) {
+        mByteCount = progress;
+      }
+      shouldPostFrameCallback = update(progress, total, now);
+    }
+    if (shouldPostFrameCallback) {
+      postFrameCallback();
+    }
+  }
+
+  /**
+   * Sends what is still pending right away. No events are sent after this.
+   */
+  /* package */ void finish() {
+    finish(System.nanoTime());
+  }
+
+  /* package */ void finish(long now) {
+    boolean shouldRemoveFrameCallback;
+    synchronized (this) {
+      if (mIsFinished) {
+        return;
+      }
+      mIsFinished = true;
+      shouldRemoveFrameCallback = mIsFrameCallbackPosted;
+      mIsFrameCallbackPosted = false;
+      if (mHasPendingUpdate) {
+        emit(now);
+      }
+    }
+    // A frame callback that runs anyway finds the coalescer finished and does nothing
+    if (shouldRemoveFrameCallback) {
+      ReactChoreographer.getInstance()
+          .removeFrameCallback(ReactChoreographer.CallbackType.TIMERS_EVENTS, mFrameCallback);
+    }
+    if (mStatsListener != null) {
+      mStatsListener.onResponseEventStats(
+          mRequestId,
+          getEventCount(),
+          getByteCount(),
+          getTotalQueueDelayNs(),
+          getMaxQueueDelayNs());
+    }
+  }
+
+  /* package */ synchronized int getEventCount() {
+    return mEventCount;
+  }
+
+  /* package */ synchronized long getByteCount() {
+    return mByteCount;
+  }
+
+  /* package */ synchronized long getTotalQueueDelayNs() {
+    return mTotalQueueDelayNs;
+  }
+
+  /* package */ synchronized long getMaxQueueDelayNs() {
+    return mMaxQueueDelayNs;
+  }
+
+  /* package */ void onFrame(long now) {
+    synchronized (this) {
+      mIsFrameCallbackPosted = false;
+      if (mIsFinished || !mHasPendingUpdate) {
+        return;
+      }
+      if (isIntervalOver(now)) {
+        emit(now);
+        return;
+      }
+      mIsFrameCallbackPosted = true;
+    }
+    postFrameCallback();
+  }
+
+  /**
+   * Returns whether a frame callback has to be posted. That happens outside of the lock: the
+   * choreographer calls the frame callback with its own lock held, so taking the choreographer
+   * lock while holding this one could deadlock.
+   */
+  private boolean update(long progress, long total, long now) {
+    mProgress = progress;
+    mTotal = total;
+    if (!mHasPendingUpdate) {
+      mHasPendingUpdate = true;
+      mPendingSinceNs = now;
+    }
+    if (isIntervalOver(now)) {
+      emit(now);
+      return false;
+    }
+    if (mIsFrameCallbackPosted) {
+      return false;
+    }
+    mIsFrameCallbackPosted = true;
+    return true;
+  }
+
+  private boolean isIntervalOver(long now) {
+    return !mHasEmitted || now - mLastEmitNs >= mMinIntervalNs;
+  }
+
+  // Never called with the lock held
+  private void postFrameCallback() {
+    ReactChoreographer.getInstance()
+        .postFrameCallback(ReactChoreographer.CallbackType.TIMERS_EVENTS, mFrameCallback);
+  }
+
+  // Called with the lock held, so that events of a request are sent in order from any thread
+  private void emit(long now) {
+    if (mHasData) {
+      ResponseUtil.onIncrementalDataReceived(
+          mEventEmitter,
+          mRequestId,
+          mPendingData.toString(),
+          mProgress,
+          mTotal);
+      mPendingData.setLength(0);
+    } else {
+      ResponseUtil.onDataReceivedProgress(mEventEmitter, mRequestId, mProgress, mTotal);
+    }
+    long queueDelayNs = now - mPendingSinceNs;
+    mTotalQueueDelayNs += queueDelayNs;
+    mMaxQueueDelayNs = Math.max(mMaxQueueDelayNs, queueDelayNs);
+    mEventCount++;
+    mHasPendingUpdate = false;
+    mHasEmitted = true;
+    mLastEmitNs = now;
+  }
+}
@@ -11,6 +11,7 @@ import javax.annotation.Nullable;
 
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
 import android.content.ContentValues;
 import android.database.Cursor;
@@ -55,6 +56,17 @@ public class AsyncLocalStorageUtil {
     return selectionArgs;
   }
 
+  /**
+   * Same as {@link #buildKeySelectionArgs(ReadableArray, int, int)} for keys held in a {@link List}.
+   */
+  /* package */ static String[] buildKeySelectionArgs(List<String> keys, int start, int count) {
+    String[] selectionArgs = new String[count];
+    for (int keyIndex = 0; keyIndex < count; keyIndex++) {
+      selectionArgs[keyIndex] = keys.get(start + keyIndex);
+    }
+    return selectionArgs;
+  }
+
   /**
    * Returns the value of the given key, or null if not found.
    */
@@ -106,19 +118,23 @@ public class AsyncLocalStorageUtil {
    */
   /* package */ static boolean mergeImpl(SQLiteDatabase db, String key, String value)
       throws JSONException {
-    String oldValue = getItemImpl(db, key);
-    String newValue;
+    String newValue = mergeValues(getItemImpl(db, key), value);
+    return setItemImpl(db, key, newValue);
+  }
 
+  /**
+   * Returns the result of merging value into oldValue, or value if there's no oldValue.
+   */
+  /* package */ static String mergeValues(@Nullable String oldValue, String value)
+      throws JSONException {
     if (oldValue == null) {
-      newValue = value;
-    } else {
-      JSONObject oldJSON = new JSONObject(oldValue);
-      JSONObject newJSON = new JSONObject(value);
-      deepMergeInto(oldJSON, newJSON);
-      newValue = oldJSON.toString();
+      return value;
     }
 
-    return setItemImpl(db, key, newValue);
+    JSONObject oldJSON = new JSONObject(oldValue);
+    JSONObject newJSON = new JSONObject(value);
+    deepMergeInto(oldJSON, newJSON);
+    return oldJSON.toString();
   }
 
   /**
@@ -6,16 +6,28 @@
  */
 package com.facebook.react.modules.storage;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteStatement;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
 import com.facebook.common.logging.FLog;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.GuardedAsyncTask;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
@@ -31,7 +43,7 @@ import static com.facebook.react.modules.storage.ReactDatabaseSupplier.TABLE_CAT
 import static com.facebook.react.modules.storage.ReactDatabaseSupplier.VALUE_COLUMN;
 
 @ReactModule(name = AsyncStorageModule.NAME)
-public class AsyncStorageModule extends ReactContextBaseJavaModule implements ModuleDataCleaner.Cleanable {
+public class AsyncStorageModule extends ReactContextBaseJavaModule implements ModuleDataCleaner.Cleanable, LifecycleEventListener {
 
     public static final String NAME = "AsyncSQLiteDBStorage";
 
@@ -43,6 +55,41 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
 
     public boolean mShuttingDown = false;
 
+    private static final String INSERT_OR_REPLACE_SQL = "INSERT OR REPLACE INTO " + TABLE_CATALYST + " VALUES (?, ?);";
+
+    // Stored in mReadCache for keys known not to exist in the database, compared by identity
+    private static final String ABSENT_VALUE = new String();
+
+    // Optional in-memory cache of (key, value) pairs, see setReadCacheMaxSize
+    @Nullable
+    private volatile LruCache<String, String> mReadCache;
+
+    // Values staged by multiSet/multiMerge but not written yet, see setWriteBehindDelayMs
+    private final Map<String, String> mPendingWrites = new LinkedHashMap<>();
+
+    private volatile long mWriteBehindDelayMs = 0;
+
+    // How long onHostPause waits for staged values to be written on the executor
+    private static final long FLUSH_ON_PAUSE_TIMEOUT_MS = 100;
+
+    private boolean mFlushScheduled = false;
+
+    private final Handler mFlushHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mScheduleFlushRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    flushPendingWrites();
+                }
+            });
+        }
+    };
+
     // Adapted from https://android.googlesource.com/platform/frameworks/base.git/+/1488a3a19d4681a41fb45570c15e14d99db1cb66/core/java/android/os/AsyncTask.java#237
     private class SerialExecutor implements Executor {
 
@@ -101,15 +148,97 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
     public void initialize() {
         super.initialize();
         mShuttingDown = false;
+        getReactApplicationContext().addLifecycleEventListener(this);
     }
 
     @Override
     public void onCatalystInstanceDestroy() {
+        getReactApplicationContext().removeLifecycleEventListener(this);
+        flushPendingWrites();
         mShuttingDown = true;
     }
 
+    @Override
+    public void onHostResume() {
+    }
+
+    @Override
+    public void onHostPause() {
+        // Staged writes must not be lost if the process is killed in the background. They are
+        // written on the executor, waiting only briefly so that a large batch can't stall the UI.
+        synchronized (mPendingWrites) {
+            if (mPendingWrites.isEmpty()) {
+                return;
+            }
+        }
+        final CountDownLatch flushed = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    flushPendingWrites();
+                } finally {
+                    flushed.countDown();
+                }
+            }
+        });
+        try {
+            flushed.await(FLUSH_ON_PAUSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void onHostDestroy() {
+        flushPendingWrites();
+    }
+
+    /**
+   * Keeps up to maxSize characters of keys and values in memory, so that repeated reads don't go
+   * to SQLite. Pass 0 to disable the cache, which is the default. Apps using
+   * {@link com.facebook.react.shell.MainReactPackage} opt in through
+   * {@link com.facebook.react.shell.MainPackageConfig.Builder#setAsyncStorageReadCacheMaxSize}.
+   */
+    public void setReadCacheMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            mReadCache = null;
+            return;
+        }
+        mReadCache = new LruCache<String, String>(maxSize) {
+
+            @Override
+            protected int sizeOf(String key, String value) {
+                return key.length() + value.length();
+            }
+        };
+    }
+
+    /**
+   * Coalesces multiSet and multiMerge calls made within delayMs of each other into a single
+   * transaction. Their callbacks are invoked as soon as the values are staged in memory. Staged
+   * values are written once the delay elapses, before any other kind of operation runs, when the
+   * host is paused, and synchronously when it's destroyed. Pass 0 to write through, which is the
+   * default. Apps using {@link com.facebook.react.shell.MainReactPackage} opt in through
+   * {@link com.facebook.react.shell.MainPackageConfig.Builder#setAsyncStorageWriteBehindDelayMs}.
+   */
+    public void setWriteBehindDelayMs(long delayMs) {
+        mWriteBehindDelayMs = Math.max(delayMs, 0);
+        if (mWriteBehindDelayMs == 0) {
+            mScheduleFlushRunnable.run();
+        }
+    }
+
     @Override
     public void clearSensitiveData() {
+        synchronized (mPendingWrites) {
+            mPendingWrites.clear();
+        }
+        LruCache<String, String> readCache = mReadCache;
+        if (readCache != null) {
+            readCache.evictAll();
+        }
         // Clear local storage. If fails, crash, since the app is potentially in a bad state and could
         // cause a privacy violation. We're still not recovering from this well, but at least the error
         // will be reported to the server.
@@ -134,6 +263,10 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
                     callback.invoke(AsyncStorageErrorUtil.getDBError(null), null);
                     return;
                 }
+                if (isMemoryLayerEnabled()) {
+                    multiGetThroughMemory(keys, callback);
+                    return;
+                }
                 String[] columns = { KEY_COLUMN, VALUE_COLUMN };
                 HashSet<String> keysRemaining = new HashSet<>();
                 WritableArray data = Arguments.createArray();
@@ -196,8 +329,12 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
                     callback.invoke(AsyncStorageErrorUtil.getDBError(null));
                     return;
                 }
-                String sql = "INSERT OR REPLACE INTO " + TABLE_CATALYST + " VALUES (?, ?);";
-                SQLiteStatement statement = mReactDatabaseSupplier.get().compileStatement(sql);
+                if (mWriteBehindDelayMs > 0) {
+                    stageMultiSet(keyValueArray, callback);
+                    return;
+                }
+                flushPendingWrites();
+                SQLiteStatement statement = mReactDatabaseSupplier.get().compileStatement(INSERT_OR_REPLACE_SQL);
                 WritableMap error = null;
                 try {
                     mReactDatabaseSupplier.get().beginTransaction();
@@ -233,6 +370,13 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
                         }
                     }
                 }
+                if (error != null) {
+                    invalidateCachedValues(keyValueArray, true);
+                } else {
+                    for (int idx = 0; idx < keyValueArray.size(); idx++) {
+                        cacheValue(keyValueArray.getArray(idx).getString(0), keyValueArray.getArray(idx).getString(1));
+                    }
+                }
                 if (error != null) {
                     callback.invoke(error);
                 } else {
@@ -259,6 +403,7 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
                     callback.invoke(AsyncStorageErrorUtil.getDBError(null));
                     return;
                 }
+                flushPendingWrites();
                 WritableMap error = null;
                 try {
                     mReactDatabaseSupplier.get().beginTransaction();
@@ -280,6 +425,13 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
                         }
                     }
                 }
+                if (error != null) {
+                    invalidateCachedValues(keys, false);
+                } else {
+                    for (int idx = 0; idx < keys.size(); idx++) {
+                        cacheValue(keys.getString(idx), ABSENT_VALUE);
+                    }
+                }
                 if (error != null) {
                     callback.invoke(error);
                 } else {
@@ -303,6 +455,11 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
                     callback.invoke(AsyncStorageErrorUtil.getDBError(null));
                     return;
                 }
+                if (mWriteBehindDelayMs > 0) {
+                    stageMultiMerge(keyValueArray, callback);
+                    return;
+                }
+                flushPendingWrites();
                 WritableMap error = null;
                 try {
                     mReactDatabaseSupplier.get().beginTransaction();
@@ -338,6 +495,8 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
                         }
                     }
                 }
+                // merged values are only known to SQLite, read them again when needed
+                invalidateCachedValues(keyValueArray, true);
                 if (error != null) {
                     callback.invoke(error);
                 } else {
@@ -360,12 +519,18 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
                     callback.invoke(AsyncStorageErrorUtil.getDBError(null));
                     return;
                 }
+                flushPendingWrites();
                 try {
                     mReactDatabaseSupplier.clear();
                     callback.invoke();
                 } catch (Exception e) {
                     FLog.w(ReactConstants.TAG, e.getMessage(), e);
                     callback.invoke(AsyncStorageErrorUtil.getError(null, e.getMessage()));
+                } finally {
+                    LruCache<String, String> readCache = mReadCache;
+                    if (readCache != null) {
+                        readCache.evictAll();
+                    }
                 }
             }
         }.executeOnExecutor(executor);
@@ -384,6 +549,7 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
                     callback.invoke(AsyncStorageErrorUtil.getDBError(null), null);
                     return;
                 }
+                flushPendingWrites();
                 WritableArray data = Arguments.createArray();
                 String[] columns = { KEY_COLUMN };
                 Cursor cursor = mReactDatabaseSupplier.get().query(TABLE_CATALYST, columns, null, null, null, null, null);
@@ -405,6 +571,216 @@ public class AsyncStorageModule extends ReactContextBaseJavaModule implements Mo
         }.executeOnExecutor(executor);
     }
 
+    private boolean isMemoryLayerEnabled() {
+        if (mReadCache != null || mWriteBehindDelayMs > 0) {
+            return true;
+        }
+        synchronized (mPendingWrites) {
+            return !mPendingWrites.isEmpty();
+        }
+    }
+
+    /**
+   * Same as multiGet, but looks at staged writes and the read cache before going to SQLite.
+   * Results are returned in the order of keys.
+   */
+    private void multiGetThroughMemory(ReadableArray keys, Callback callback) {
+        Map<String, String> values = new LinkedHashMap<>();
+        List<String> missingKeys = new ArrayList<>();
+        for (int idx = 0; idx < keys.size(); idx++) {
+            String key = keys.getString(idx);
+            String value = getStagedOrCachedValue(key);
+            if (value == null) {
+                missingKeys.add(key);
+            }
+            values.put(key, value);
+        }
+        String[] columns = { KEY_COLUMN, VALUE_COLUMN };
+        for (int keyStart = 0; keyStart < missingKeys.size(); keyStart += MAX_SQL_KEYS) {
+            int keyCount = Math.min(missingKeys.size() - keyStart, MAX_SQL_KEYS);
+            Cursor cursor = mReactDatabaseSupplier.get().query(TABLE_CATALYST, columns, AsyncLocalStorageUtil.buildKeySelection(keyCount), AsyncLocalStorageUtil.buildKeySelectionArgs(missingKeys, keyStart, keyCount), null, null, null);
+            try {
+                for (int idx = keyStart; idx < keyStart + keyCount; idx++) {
+                    values.put(missingKeys.get(idx), ABSENT_VALUE);
+                }
+                while (cursor.moveToNext()) {
+                    values.put(cursor.getString(0), cursor.getString(1));
+                }
+            } catch (Exception e) {
+                FLog.w(ReactConstants.TAG, e.getMessage(), e);
+                callback.invoke(AsyncStorageErrorUtil.getError(null, e.getMessage()), null);
+                return;
+            } finally {
+                cursor.close();
+            }
+        }
+        WritableArray data = Arguments.createArray();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getValue();
+            cacheValue(entry.getKey(), value);
+            WritableArray row = Arguments.createArray();
+            row.pushString(entry.getKey());
+            if (value == ABSENT_VALUE) {
+                row.pushNull();
+            } else {
+                row.pushString(value);
+            }
+            data.pushArray(row);
+        }
+        callback.invoke(null, data);
+    }
+
+    /**
+   * Returns the staged or cached value of key, ABSENT_VALUE if it's known not to exist and null
+   * if it has to be read from the database.
+   */
+    @Nullable
+    private String getStagedOrCachedValue(@Nullable String key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (mPendingWrites) {
+            String pendingValue = mPendingWrites.get(key);
+            if (pendingValue != null) {
+                return pendingValue;
+            }
+        }
+        LruCache<String, String> readCache = mReadCache;
+        return readCache != null ? readCache.get(key) : null;
+    }
+
+    private void stageMultiSet(ReadableArray keyValueArray, Callback callback) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int idx = 0; idx < keyValueArray.size(); idx++) {
+            ReadableArray keyValue = keyValueArray.getArray(idx);
+            if (keyValue.size() != 2 || keyValue.getString(1) == null) {
+                callback.invoke(AsyncStorageErrorUtil.getInvalidValueError(null));
+                return;
+            }
+            if (keyValue.getString(0) == null) {
+                callback.invoke(AsyncStorageErrorUtil.getInvalidKeyError(null));
+                return;
+            }
+            values.put(keyValue.getString(0), keyValue.getString(1));
+        }
+        stageValues(values);
+        callback.invoke();
+    }
+
+    private void stageMultiMerge(ReadableArray keyValueArray, Callback callback) {
+        Map<String, String> values = new LinkedHashMap<>();
+        try {
+            for (int idx = 0; idx < keyValueArray.size(); idx++) {
+                ReadableArray keyValue = keyValueArray.getArray(idx);
+                if (keyValue.size() != 2 || keyValue.getString(1) == null) {
+                    callback.invoke(AsyncStorageErrorUtil.getInvalidValueError(null));
+                    return;
+                }
+                if (keyValue.getString(0) == null) {
+                    callback.invoke(AsyncStorageErrorUtil.getInvalidKeyError(null));
+                    return;
+                }
+                String key = keyValue.getString(0);
+                String oldValue = values.get(key);
+                if (oldValue == null) {
+                    oldValue = getStagedOrCachedValue(key);
+                }
+                if (oldValue == null) {
+                    oldValue = AsyncLocalStorageUtil.getItemImpl(mReactDatabaseSupplier.get(), key);
+                } else if (oldValue == ABSENT_VALUE) {
+                    oldValue = null;
+                }
+                values.put(key, AsyncLocalStorageUtil.mergeValues(oldValue, keyValue.getString(1)));
+            }
+        } catch (Exception e) {
+            FLog.w(ReactConstants.TAG, e.getMessage(), e);
+            callback.invoke(AsyncStorageErrorUtil.getError(null, e.getMessage()));
+            return;
+        }
+        stageValues(values);
+        callback.invoke();
+    }
+
+    private void stageValues(Map<String, String> values) {
+        synchronized (mPendingWrites) {
+            mPendingWrites.putAll(values);
+            if (!mFlushScheduled) {
+                mFlushScheduled = true;
+                mFlushHandler.postDelayed(mScheduleFlushRunnable, mWriteBehindDelayMs);
+            }
+        }
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            cacheValue(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+   * Writes all staged values in a single transaction. Safe to call from any thread, the lock on
+   * mPendingWrites is held while writing so that staged values land before later operations.
+   */
+    private void flushPendingWrites() {
+        synchronized (mPendingWrites) {
+            if (mFlushScheduled) {
+                mFlushScheduled = false;
+                mFlushHandler.removeCallbacks(mScheduleFlushRunnable);
+            }
+            if (mPendingWrites.isEmpty() || !mReactDatabaseSupplier.ensureDatabase()) {
+                return;
+            }
+            SQLiteDatabase db = mReactDatabaseSupplier.get();
+            SQLiteStatement statement = null;
+            try {
+                statement = db.compileStatement(INSERT_OR_REPLACE_SQL);
+                db.beginTransaction();
+                try {
+                    for (Map.Entry<String, String> entry : mPendingWrites.entrySet()) {
+                        statement.clearBindings();
+                        statement.bindString(1, entry.getKey());
+                        statement.bindString(2, entry.getValue());
+                        statement.execute();
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            } catch (Exception e) {
+                // The staged values are lost, make sure reads don't keep returning them
+                FLog.w(ReactConstants.TAG, e.getMessage(), e);
+                LruCache<String, String> readCache = mReadCache;
+                if (readCache != null) {
+                    for (String key : mPendingWrites.keySet()) {
+                        readCache.remove(key);
+                    }
+                }
+            } finally {
+                if (statement != null) {
+                    statement.close();
+                }
+                mPendingWrites.clear();
+            }
+        }
+    }
+
+    private void cacheValue(@Nullable String key, String value) {
+        LruCache<String, String> readCache = mReadCache;
+        if (readCache != null && key != null) {
+            readCache.put(key, value);
+        }
+    }
+
+    private void invalidateCachedValues(ReadableArray keysOrPairs, boolean arePairs) {
+        LruCache<String, String> readCache = mReadCache;
+        if (readCache == null) {
+            return;
+        }
+        for (int idx = 0; idx < keysOrPairs.size(); idx++) {
+            String key = arePairs ? keysOrPairs.getArray(idx).getString(0) : keysOrPairs.getString(idx);
+            if (key != null) {
+                readCache.remove(key);
+            }
+        }
+    }
+
     /**
    * Verify the database is open for reads and writes.
    */
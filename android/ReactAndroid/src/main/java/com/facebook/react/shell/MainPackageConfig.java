@@ -15,24 +15,54 @@ import com.facebook.imagepipeline.core.ImagePipelineConfig;
 public class MainPackageConfig {
 
   private ImagePipelineConfig mFrescoConfig;
+  private int mAsyncStorageReadCacheMaxSize;
+  private long mAsyncStorageWriteBehindDelayMs;
 
   private MainPackageConfig(Builder builder) {
     mFrescoConfig = builder.mFrescoConfig;
+    mAsyncStorageReadCacheMaxSize = builder.mAsyncStorageReadCacheMaxSize;
+    mAsyncStorageWriteBehindDelayMs = builder.mAsyncStorageWriteBehindDelayMs;
   }
 
   public ImagePipelineConfig getFrescoConfig() {
     return mFrescoConfig;
   }
 
+  public int getAsyncStorageReadCacheMaxSize() {
+    return mAsyncStorageReadCacheMaxSize;
+  }
+
+  public long getAsyncStorageWriteBehindDelayMs() {
+    return mAsyncStorageWriteBehindDelayMs;
+  }
+
   public static class Builder {
 
     private ImagePipelineConfig mFrescoConfig;
+    private int mAsyncStorageReadCacheMaxSize;
+    private long mAsyncStorageWriteBehindDelayMs;
 
     public Builder setFrescoConfig(ImagePipelineConfig frescoConfig) {
       mFrescoConfig = frescoConfig;
       return this;
     }
 
+    /**
+     * See {@link com.facebook.react.modules.storage.AsyncStorageModule#setReadCacheMaxSize}
+     */
+    public Builder setAsyncStorageReadCacheMaxSize(int maxSize) {
+      mAsyncStorageReadCacheMaxSize = maxSize;
+      return this;
+    }
+
+    /**
+     * See {@link com.facebook.react.modules.storage.AsyncStorageModule#setWriteBehindDelayMs}
+     */
+    public Builder setAsyncStorageWriteBehindDelayMs(long delayMs) {
+      mAsyncStorageWriteBehindDelayMs = delayMs;
+      return this;
+    }
+
     public MainPackageConfig build() {
       return new MainPackageConfig(this);
     }
@@ -155,7 +155,12 @@ public class MainReactPackage extends LazyReactPackage {
             new Provider<NativeModule>() {
               @Override
               public NativeModule get() {
-                return new AsyncStorageModule(context);
+                AsyncStorageModule asyncStorageModule = new AsyncStorageModule(context);
+                if (mConfig != null) {
+                  asyncStorageModule.setReadCacheMaxSize(mConfig.getAsyncStorageReadCacheMaxSize());
+                  asyncStorageModule.setWriteBehindDelayMs(mConfig.getAsyncStorageWriteBehindDelayMs());
+                }
+                return asyncStorageModule;
               }
             }),
         ModuleSpec.nativeModuleSpec(
@@ -9,6 +9,8 @@ package com.facebook.react.uimanager;
 import android.annotation.TargetApi;
 import android.content.res.Resources;
 import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
 import com.facebook.common.logging.FLog;
 import android.util.SparseArray;
 import android.util.SparseBooleanArray;
@@ -25,9 +27,11 @@ import com.facebook.react.animation.AnimationListener;
 import com.facebook.react.animation.AnimationRegistry;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.JSApplicationIllegalArgumentException;
+import com.facebook.react.bridge.JavaOnlyMap;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
 import com.facebook.react.bridge.SoftAssertions;
 import com.facebook.react.bridge.UiThreadUtil;
 import com.facebook.react.touch.JSResponderHandler;
@@ -36,6 +40,8 @@ import com.facebook.react.uimanager.layoutanimation.LayoutAnimationController;
 import com.facebook.react.uimanager.layoutanimation.LayoutAnimationListener;
 import com.facebook.systrace.Systrace;
 import com.facebook.systrace.SystraceMessage;
+import java.util.HashSet;
+import java.util.Set;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
@@ -86,6 +92,13 @@ public class NativeViewHierarchyManager {
 
     public PopupMenu mPopupMenu;
 
+    private final RecycledViewPool mRecycledViewPool = new RecycledViewPool();
+
+    // Props that were set on views that can be recycled, so that they can be reset before reuse
+    private final SparseArray<Set<String>> mTagsToRecyclablePropNames = new SparseArray<>();
+
+    private final SparseArray<ThemedReactContext> mRootTagsToContexts = new SparseArray<>();
+
     public NativeViewHierarchyManager(ViewManagerRegistry viewManagers) {
         this(viewManagers, new RootViewManager());
     }
@@ -141,6 +154,7 @@ public class NativeViewHierarchyManager {
                     View viewToUpdate = resolveView(tag);
                     if (props != null) {
                         viewManager.updateProperties(viewToUpdate, props);
+                        trackRecyclablePropNames(tag, viewManager, props);
                     }
                 } catch (IllegalViewOperationException e) {
                     FLog.e(TAG, "Unable to update properties for view tag " + tag, e);
@@ -238,7 +252,10 @@ public class NativeViewHierarchyManager {
         SystraceMessage.beginSection(Systrace.TRACE_TAG_REACT_VIEW, "NativeViewHierarchyManager_createView").arg("tag", tag).arg("className", className).flush();
         try {
             ViewManager viewManager = mViewManagers.get(className);
-            View view = viewManager.createView(themedContext, mJSResponderHandler);
+            View view = mRecycledViewPool.acquire(viewManager, themedContext);
+            if (view == null) {
+                view = viewManager.createView(themedContext, mJSResponderHandler);
+            }
             mTagsToViews.put(tag, view);
             mTagsToViewManagers.put(tag, viewManager);
             // Use android View id field to store React tag. This is possible since we don't inflate
@@ -247,6 +264,7 @@ public class NativeViewHierarchyManager {
             view.setId(tag);
             if (initialProps != null) {
                 viewManager.updateProperties(view, initialProps);
+                trackRecyclablePropNames(tag, viewManager, initialProps);
             }
         } finally {
             Systrace.endSection(Systrace.TRACE_TAG_REACT_VIEW);
@@ -425,6 +443,7 @@ public class NativeViewHierarchyManager {
         mTagsToViews.put(tag, view);
         mTagsToViewManagers.put(tag, mRootViewManager);
         mRootTags.put(tag, true);
+        mRootTagsToContexts.put(tag, themedContext);
         view.setId(tag);
     }
 
@@ -433,6 +452,12 @@ public class NativeViewHierarchyManager {
    */
     protected synchronized void dropView(View view) {
         UiThreadUtil.assertOnUiThread();
+        ViewManager viewManager = mTagsToViewManagers.get(view.getId());
+        dropViewAndChildren(view);
+        recycleView(view, viewManager);
+    }
+
+    private void dropViewAndChildren(View view) {
         if (!mRootTags.get(view.getId())) {
             // For non-root views we notify viewmanager with {@link ViewManager#onDropInstance}
             resolveViewManager(view.getId()).onDropViewInstance(view);
@@ -441,18 +466,117 @@ public class NativeViewHierarchyManager {
         if (view instanceof ViewGroup && viewManager instanceof ViewGroupManager) {
             ViewGroup viewGroup = (ViewGroup) view;
             ViewGroupManager viewGroupManager = (ViewGroupManager) viewManager;
-            for (int i = viewGroupManager.getChildCount(viewGroup) - 1; i >= 0; i--) {
+            int childCount = viewGroupManager.getChildCount(viewGroup);
+            View[] droppedChildren = new View[childCount];
+            ViewManager[] droppedChildViewManagers = new ViewManager[childCount];
+            for (int i = childCount - 1; i >= 0; i--) {
                 View child = viewGroupManager.getChildAt(viewGroup, i);
                 if (mTagsToViews.get(child.getId()) != null) {
-                    dropView(child);
+                    droppedChildren[i] = child;
+                    droppedChildViewManagers[i] = mTagsToViewManagers.get(child.getId());
+                    dropViewAndChildren(child);
                 }
             }
             viewGroupManager.removeAllViews(viewGroup);
+            // Children can only be reused once they are removed from this view
+            for (int i = 0; i < childCount; i++) {
+                if (droppedChildren[i] != null) {
+                    recycleView(droppedChildren[i], droppedChildViewManagers[i]);
+                }
+            }
         }
         mTagsToViews.remove(view.getId());
         mTagsToViewManagers.remove(view.getId());
     }
 
+    private void trackRecyclablePropNames(int tag, ViewManager viewManager, ReactStylesDiffMap props) {
+        if (viewManager.getMaxRecycledViews() == 0) {
+            return;
+        }
+        Set<String> propNames = mTagsToRecyclablePropNames.get(tag);
+        if (propNames == null) {
+            propNames = new HashSet<>();
+            mTagsToRecyclablePropNames.put(tag, propNames);
+        }
+        ReadableMapKeySetIterator iterator = props.mBackingMap.keySetIterator();
+        while (iterator.hasNextKey()) {
+            propNames.add(iterator.nextKey());
+        }
+    }
+
+    /**
+   * Keeps a dropped view to reuse it, if its view manager recycles views and there is space left.
+   * All props that were set on the view are reset to null first, like props that JS removes.
+   */
+    private void recycleView(View view, @Nullable ViewManager viewManager) {
+        Set<String> propNames = mTagsToRecyclablePropNames.get(view.getId());
+        mTagsToRecyclablePropNames.remove(view.getId());
+        if (viewManager == null || viewManager.getMaxRecycledViews() == 0 || view.getParent() != null || !mRecycledViewPool.hasSpace(viewManager)) {
+            return;
+        }
+        view.clearAnimation();
+        if (propNames != null) {
+            JavaOnlyMap nullProps = new JavaOnlyMap();
+            for (String propName : propNames) {
+                nullProps.putNull(propName);
+            }
+            try {
+                viewManager.updateProperties(view, new ReactStylesDiffMap(nullProps));
+            } catch (RuntimeException e) {
+                FLog.w(TAG, "Unable to reset properties of view tag " + view.getId() + ", not recycling it", e);
+                return;
+            }
+        }
+        if (viewManager.prepareToRecycleView(view)) {
+            view.setId(View.NO_ID);
+            mRecycledViewPool.release(viewManager, view);
+        }
+    }
+
+    /**
+   * Creates views of the given class for the root view during idle time of the UI thread, one
+   * view per idle pass, and keeps them to be used for the next views of that class. Only creates
+   * as many views as the view manager recycles.
+   */
+    public synchronized void prewarmViews(final int rootViewTag, final String className, final int count) {
+        UiThreadUtil.assertOnUiThread();
+        final ViewManager viewManager = mViewManagers.get(className);
+        if (viewManager.getMaxRecycledViews() == 0) {
+            return;
+        }
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+
+            private int mCreatedCount = 0;
+
+            @Override
+            public boolean queueIdle() {
+                synchronized (NativeViewHierarchyManager.this) {
+                    ThemedReactContext themedContext = mRootTagsToContexts.get(rootViewTag);
+                    if (themedContext == null || mCreatedCount >= count || !mRecycledViewPool.hasSpace(viewManager)) {
+                        return false;
+                    }
+                    Systrace.beginSection(Systrace.TRACE_TAG_REACT_VIEW, "NativeViewHierarchyManager_prewarmView");
+                    try {
+                        mRecycledViewPool.release(viewManager, viewManager.createView(themedContext, mJSResponderHandler));
+                    } finally {
+                        Systrace.endSection(Systrace.TRACE_TAG_REACT_VIEW);
+                    }
+                    mCreatedCount++;
+                    return mCreatedCount < count;
+                }
+            }
+        });
+    }
+
+    /**
+   * Drops recycled views according to a level passed to
+   * {@link android.content.ComponentCallbacks2#onTrimMemory}.
+   */
+    public synchronized void trimRecycledViews(int level) {
+        UiThreadUtil.assertOnUiThread();
+        mRecycledViewPool.trim(level);
+    }
+
     public synchronized void removeRootView(int rootViewTag) {
         UiThreadUtil.assertOnUiThread();
         if (!mRootTags.get(rootViewTag)) {
@@ -461,6 +585,12 @@ public class NativeViewHierarchyManager {
         View rootView = mTagsToViews.get(rootViewTag);
         dropView(rootView);
         mRootTags.delete(rootViewTag);
+        // Recycled views keep the context of the root view alive
+        ThemedReactContext themedContext = mRootTagsToContexts.get(rootViewTag);
+        if (themedContext != null) {
+            mRecycledViewPool.clear(themedContext);
+            mRootTagsToContexts.remove(rootViewTag);
+        }
     }
 
     /**
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2015-present, Facebook, Inc.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.view.View;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Dropped views that {@link NativeViewHierarchyManager} keeps to reuse them for new views of the
+ * same {@link ViewManager}, instead of creating them again. A view manager opts in by returning
+ * how many of its views may be kept from {@link ViewManager#getMaxRecycledViews}. All pooled views
+ * together are also kept within a share of the heap.
+ *
+ * Views are only reused for the context they were created with, since a view keeps the theme of
+ * its root view.
+ *
+ * Not thread safe, only used from the UI thread.
+ */
+/* package */ class RecycledViewPool {
+
+  // Rough size of a view with its drawables and listeners, only used to cap the pool
+  private static final long ESTIMATED_VIEW_SIZE_BYTES = 2 * 1024;
+
+  private final Map<ViewManager, ArrayList<View>> mViewsByManager = new HashMap<>();
+  private final int mMaxTotalViews;
+  private int mTotalViews = 0;
+
+  /* package */ RecycledViewPool() {
+    this((int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 64 / ESTIMATED_VIEW_SIZE_BYTES));
+  }
+
+  /* package */ RecycledViewPool(int maxTotalViews) {
+    mMaxTotalViews = maxTotalViews;
+  }
+
+  /**
+   * Returns a pooled view of the view manager that was created with the given context, or null if
+   * there is none.
+   */
+  /* package */ @Nullable View acquire(ViewManager viewManager, Context context) {
+    ArrayList<View> views = mViewsByManager.get(viewManager);
+    if (views == null) {
+      return null;
+    }
+    // Most recently dropped views first, they are the most likely to belong to the context
+    for (int i = views.size() - 1; i >= 0; i--) {
+      if (views.get(i).getContext() == context) {
+        mTotalViews--;
+        return views.remove(i);
+      }
+    }
+    return null;
+  }
+
+  /* package */ boolean hasSpace(ViewManager viewManager) {
+    ArrayList<View> views = mViewsByManager.get(viewManager);
+    int count = views == null ? 0 : views.size();
+    return count < viewManager.getMaxRecycledViews() && mTotalViews < mMaxTotalViews;
+  }
+
+  /**
+   * Adds a view that is reset and not attached to a parent. Callers check {@link #hasSpace} first.
+   */
+  /* package */ void release(ViewManager viewManager, View view) {
+    ArrayList<View> views = mViewsByManager.get(viewManager);
+    if (views == null) {
+      views = new ArrayList<>();
+      mViewsByManager.put(viewManager, views);
+    }
+    views.add(view);
+    mTotalViews++;
+  }
+
+  /**
+   * Drops the views created with the given context, e.g. when its root view is removed.
+   */
+  /* package */ void clear(Context context) {
+    for (ArrayList<View> views : mViewsByManager.values()) {
+      Iterator<View> iterator = views.iterator();
+      while (iterator.hasNext()) {
+        if (iterator.next().getContext() == context) {
+          iterator.remove();
+          mTotalViews--;
+        }
+      }
+    }
+  }
+
+  /**
+   * Gives memory back according to a level passed to {@link ComponentCallbacks2#onTrimMemory}.
+   * Half of the views are dropped while the app runs low on memory, all of them once it's hidden
+   * or the system is critically low.
+   */
+  /* package */ void trim(int level) {
+    if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+      mViewsByManager.clear();
+      mTotalViews = 0;
+    } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+      for (ArrayList<View> views : mViewsByManager.values()) {
+        // The oldest views go first
+        int dropCount = (views.size() + 1) / 2;
+        views.subList(0, dropCount).clear();
+        mTotalViews -= dropCount;
+      }
+    }
+  }
+
+  /* package */ int size() {
+    return mTotalViews;
+  }
+}
@@ -746,6 +746,20 @@ public class UIManagerModule extends ReactContextBaseJavaModule implements
     mUIImplementation.prependUIBlock(block);
   }
 
+  /**
+   * Creates count views of the given class for a root view while the UI thread is idle, so that
+   * they don't have to be created once JS renders them, e.g. after startup. Only has an effect for
+   * view managers that recycle views, see {@link ViewManager#getMaxRecycledViews}.
+   */
+  public void prewarmViews(final int rootViewTag, final String className, final int count) {
+    addUIBlock(new UIBlock() {
+      @Override
+      public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+        nativeViewHierarchyManager.prewarmViews(rootViewTag, className, count);
+      }
+    });
+  }
+
   public void addUIManagerListener(UIManagerModuleListener listener) {
     mListeners.add(listener);
   }
@@ -789,7 +803,10 @@ public class UIManagerModule extends ReactContextBaseJavaModule implements
     mUIImplementation.dispatchViewUpdates(-1);
   }
 
-  /** Listener that drops the CSSNode pool on low memory when the app is backgrounded. */
+  /**
+   * Listener that drops the CSSNode pool on low memory when the app is backgrounded, and recycled
+   * views as memory gets low.
+   */
   private class MemoryTrimCallback implements ComponentCallbacks2 {
 
     @Override
@@ -797,6 +814,9 @@ public class UIManagerModule extends ReactContextBaseJavaModule implements
       if (level >= TRIM_MEMORY_MODERATE) {
         YogaNodePool.get().clear();
       }
+      // Called on the UI thread
+      mUIImplementation.getUIViewOperationQueue().getNativeViewHierarchyManager()
+          .trimRecycledViews(level);
     }
 
     @Override
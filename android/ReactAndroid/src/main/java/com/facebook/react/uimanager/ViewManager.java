@@ -91,6 +91,26 @@ public abstract class ViewManager<T extends View, C extends ReactShadowNode>
   public void onDropViewInstance(T view) {
   }
 
+  /**
+   * Subclasses can return how many dropped views may be kept to be reused for new views, 0 (the
+   * default) disables recycling. Before a dropped view is kept, every prop it had is reset as if
+   * JS had removed it, so the defaults of the {@link ReactProp} setters apply, and then
+   * {@link #prepareToRecycleView} is called. Recycled views have been passed to
+   * {@link #onDropViewInstance} before, which must leave them usable.
+   */
+  public int getMaxRecycledViews() {
+    return 0;
+  }
+
+  /**
+   * Called after the props of a dropped view were reset, before the view is kept to be reused.
+   * Subclasses that enable recycling should reset here any state that isn't set through props,
+   * e.g. state set from {@link #updateExtraData}. Returns false if the view can't be reused.
+   */
+  public boolean prepareToRecycleView(T view) {
+    return true;
+  }
+
   /**
    * Subclasses can override this method to install custom event emitters on the given View. You
    * might want to override this method if your view needs to emit events besides basic touch events
@@ -7,7 +7,6 @@
 
 package com.facebook.react.uimanager.events;
 
-import android.util.LongSparseArray;
 import com.facebook.infer.annotation.Assertions;
 import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.ReactApplicationContext;
@@ -21,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
@@ -55,6 +55,12 @@ import javax.annotation.Nullable;
  * VIEW_TAG_MASK =       0x00000000ffffffff
  * EVENT_TYPE_ID_MASK =  0x0000ffff00000000
  * COALESCING_KEY_MASK = 0xffff000000000000
+ *
+ * == Threading ==
+ *
+ * Events can be dispatched from any thread. They are staged in a lock-free queue, so producers on
+ * different threads never wait for each other or for the frame callback, which is the only
+ * consumer of the queue.
  */
 public class EventDispatcher implements LifecycleEventListener {
 
@@ -82,13 +88,12 @@ public class EventDispatcher implements LifecycleEventListener {
     }
   };
 
-  private final Object mEventsStagingLock = new Object();
   private final Object mEventsToDispatchLock = new Object();
   private final ReactApplicationContext mReactContext;
-  private final LongSparseArray<Integer> mEventCookieToLastEventIdx = new LongSparseArray<>();
+  private final LongIntMap mEventCookieToLastEventIdx = new LongIntMap(16);
   private final Map<String, Short> mEventNameToEventId = MapBuilder.newHashMap();
   private final DispatchEventsRunnable mDispatchEventsRunnable = new DispatchEventsRunnable();
-  private final ArrayList<Event> mEventStaging = new ArrayList<>();
+  private final ConcurrentLinkedQueue<Event> mEventStaging = new ConcurrentLinkedQueue<>();
   private final ArrayList<EventDispatcherListener> mListeners = new ArrayList<>();
   private final ScheduleDispatchFrameCallback mCurrentFrameCallback =
     new ScheduleDispatchFrameCallback();
@@ -96,6 +101,12 @@ public class EventDispatcher implements LifecycleEventListener {
 
   private Event[] mEventsToDispatch = new Event[16];
   private int mEventsToDispatchSize = 0;
+  // Events are mostly staged in timestamp order, in which case they don't need to be sorted
+  private boolean mEventsToDispatchNeedSort = false;
+  private long mLastEventToDispatchTimestampMs = Long.MIN_VALUE;
+  private int mEventsCoalescedSinceDispatch = 0;
+  private volatile int mLastCoalescedEventCount = 0;
+  private volatile int mLastDispatchedEventCount = 0;
   private volatile ReactEventEmitter mReactEventEmitter;
   private short mNextEventTypeId = 0;
   private volatile boolean mHasDispatchScheduled = false;
@@ -116,13 +127,11 @@ public class EventDispatcher implements LifecycleEventListener {
       listener.onEventDispatch(event);
     }
     
-    synchronized (mEventsStagingLock) {
-      mEventStaging.add(event);
-      Systrace.startAsyncFlow(
-          Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
-          event.getEventName(),
-          event.getUniqueID());
-    }
+    Systrace.startAsyncFlow(
+        Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
+        event.getEventName(),
+        event.getUniqueID());
+    mEventStaging.offer(event);
     if (mReactEventEmitter != null) {
       // If the host activity is paused, the frame callback may not be currently
       // posted. Ensure that it is so that this event gets delivered promptly.
@@ -149,6 +158,21 @@ public class EventDispatcher implements LifecycleEventListener {
     mListeners.remove(listener);
   }
 
+  /**
+   * Returns how many events were coalesced into others among the events of the last dispatch to
+   * JS, which covers one frame unless JS is behind.
+   */
+  public int getLastCoalescedEventCount() {
+    return mLastCoalescedEventCount;
+  }
+
+  /**
+   * Returns how many events were sent to JS in the last dispatch.
+   */
+  public int getLastDispatchedEventCount() {
+    return mLastDispatchedEventCount;
+  }
+
   @Override
   public void onHostResume() {
     mCurrentFrameCallback.maybePostFromNonUI();
@@ -185,50 +209,50 @@ public class EventDispatcher implements LifecycleEventListener {
    * frame and another from this frame during the next.
    */
   private void moveStagedEventsToDispatchQueue() {
-    synchronized (mEventsStagingLock) {
-      synchronized (mEventsToDispatchLock) {
-        for (int i = 0; i < mEventStaging.size(); i++) {
-          Event event = mEventStaging.get(i);
-
-          if (!event.canCoalesce()) {
-            addEventToEventsToDispatch(event);
-            continue;
-          }
-
-          long eventCookie = getEventCookie(
-              event.getViewTag(),
-              event.getEventName(),
-              event.getCoalescingKey());
-
-          Event eventToAdd = null;
-          Event eventToDispose = null;
-          Integer lastEventIdx = mEventCookieToLastEventIdx.get(eventCookie);
+    synchronized (mEventsToDispatchLock) {
+      // Only the events staged so far, producers that keep staging events must not keep the UI
+      // thread here. Later events are moved on the next frame.
+      int eventsToMove = mEventStaging.size();
+      Event event;
+      while (eventsToMove-- > 0 && (event = mEventStaging.poll()) != null) {
+        if (!event.canCoalesce()) {
+          addEventToEventsToDispatch(event);
+          continue;
+        }
 
-          if (lastEventIdx == null) {
-            eventToAdd = event;
+        long eventCookie = getEventCookie(
+            event.getViewTag(),
+            event.getEventName(),
+            event.getCoalescingKey());
+
+        Event eventToAdd = null;
+        Event eventToDispose = null;
+        int lastEventIdx = mEventCookieToLastEventIdx.get(eventCookie);
+
+        if (lastEventIdx == LongIntMap.NO_VALUE) {
+          eventToAdd = event;
+          mEventCookieToLastEventIdx.put(eventCookie, mEventsToDispatchSize);
+        } else {
+          Event lastEvent = mEventsToDispatch[lastEventIdx];
+          Event coalescedEvent = event.coalesce(lastEvent);
+          if (coalescedEvent != lastEvent) {
+            eventToAdd = coalescedEvent;
             mEventCookieToLastEventIdx.put(eventCookie, mEventsToDispatchSize);
+            eventToDispose = lastEvent;
+            mEventsToDispatch[lastEventIdx] = null;
           } else {
-            Event lastEvent = mEventsToDispatch[lastEventIdx];
-            Event coalescedEvent = event.coalesce(lastEvent);
-            if (coalescedEvent != lastEvent) {
-              eventToAdd = coalescedEvent;
-              mEventCookieToLastEventIdx.put(eventCookie, mEventsToDispatchSize);
-              eventToDispose = lastEvent;
-              mEventsToDispatch[lastEventIdx] = null;
-            } else {
-              eventToDispose = event;
-            }
+            eventToDispose = event;
           }
+          mEventsCoalescedSinceDispatch++;
+        }
 
-          if (eventToAdd != null) {
-            addEventToEventsToDispatch(eventToAdd);
-          }
-          if (eventToDispose != null) {
-            eventToDispose.dispose();
-          }
+        if (eventToAdd != null) {
+          addEventToEventsToDispatch(eventToAdd);
+        }
+        if (eventToDispose != null) {
+          eventToDispose.dispose();
         }
       }
-      mEventStaging.clear();
     }
   }
 
@@ -338,10 +362,12 @@ public class EventDispatcher implements LifecycleEventListener {
         Assertions.assertNotNull(mReactEventEmitter);
         synchronized (mEventsToDispatchLock) {
           // We avoid allocating an array and iterator, and "sorting" if we don't need to.
-          // This occurs when the size of mEventsToDispatch is zero or one.
-          if (mEventsToDispatchSize > 1) {
+          // This occurs when the events were added in timestamp order, or when there are zero or
+          // one. Slots of coalesced events are null and skipped below, so they don't count.
+          if (mEventsToDispatchNeedSort && mEventsToDispatchSize > 1) {
             Arrays.sort(mEventsToDispatch, 0, mEventsToDispatchSize, EVENT_COMPARATOR);
           }
+          int dispatchedEventCount = 0;
           for (int eventIdx = 0; eventIdx < mEventsToDispatchSize; eventIdx++) {
             Event event = mEventsToDispatch[eventIdx];
             // Event can be null if it has been coalesced into another event.
@@ -354,7 +380,18 @@ public class EventDispatcher implements LifecycleEventListener {
                 event.getUniqueID());
             event.dispatch(mReactEventEmitter);
             event.dispose();
+            dispatchedEventCount++;
           }
+          mLastDispatchedEventCount = dispatchedEventCount;
+          mLastCoalescedEventCount = mEventsCoalescedSinceDispatch;
+          Systrace.traceCounter(
+              Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
+              "EventsDispatched",
+              dispatchedEventCount);
+          Systrace.traceCounter(
+              Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
+              "EventsCoalesced",
+              mEventsCoalescedSinceDispatch);
           clearEventsToDispatch();
           mEventCookieToLastEventIdx.clear();
         }
@@ -369,10 +406,19 @@ public class EventDispatcher implements LifecycleEventListener {
       mEventsToDispatch = Arrays.copyOf(mEventsToDispatch, 2 * mEventsToDispatch.length);
     }
     mEventsToDispatch[mEventsToDispatchSize++] = event;
+    long timestampMs = event.getTimestampMs();
+    if (timestampMs < mLastEventToDispatchTimestampMs) {
+      mEventsToDispatchNeedSort = true;
+    } else {
+      mLastEventToDispatchTimestampMs = timestampMs;
+    }
   }
 
   private void clearEventsToDispatch() {
     Arrays.fill(mEventsToDispatch, 0, mEventsToDispatchSize, null);
     mEventsToDispatchSize = 0;
+    mEventsToDispatchNeedSort = false;
+    mLastEventToDispatchTimestampMs = Long.MIN_VALUE;
+    mEventsCoalescedSinceDispatch = 0;
   }
 }
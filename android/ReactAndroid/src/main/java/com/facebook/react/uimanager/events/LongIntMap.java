@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2015-present, Facebook, Inc.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager.events;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from long keys to non-negative int values, without the autoboxing of a
+ * LongSparseArray<Integer> and with constant time lookups. Uses open addressing with linear
+ * probing. Not thread safe.
+ */
+/* package */ class LongIntMap {
+
+  /* package */ static final int NO_VALUE = -1;
+
+  private long[] mKeys;
+  // NO_VALUE marks empty slots, so keys don't need a reserved value
+  private int[] mValues;
+  private int mSize;
+
+  /* package */ LongIntMap(int initialCapacity) {
+    int capacity = Integer.highestOneBit(Math.max(initialCapacity, 2) * 2 - 1);
+    mKeys = new long[capacity];
+    mValues = new int[capacity];
+    Arrays.fill(mValues, NO_VALUE);
+  }
+
+  /**
+   * Returns the value of the key, or {@link #NO_VALUE} if there is none.
+   */
+  /* package */ int get(long key) {
+    int mask = mKeys.length - 1;
+    for (int i = hash(key) & mask; mValues[i] != NO_VALUE; i = (i + 1) & mask) {
+      if (mKeys[i] == key) {
+        return mValues[i];
+      }
+    }
+    return NO_VALUE;
+  }
+
+  /* package */ void put(long key, int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Values can't be negative: " + value);
+    }
+    int mask = mKeys.length - 1;
+    int i = hash(key) & mask;
+    while (mValues[i] != NO_VALUE) {
+      if (mKeys[i] == key) {
+        mValues[i] = value;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    mKeys[i] = key;
+    mValues[i] = value;
+    mSize++;
+    // Keep the load factor at most 1/2, so probe sequences stay short
+    if (mSize * 2 > mKeys.length) {
+      resize(mKeys.length * 2);
+    }
+  }
+
+  /* package */ int size() {
+    return mSize;
+  }
+
+  /* package */ void clear() {
+    if (mSize > 0) {
+      Arrays.fill(mValues, NO_VALUE);
+      mSize = 0;
+    }
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = mKeys;
+    int[] oldValues = mValues;
+    mKeys = new long[capacity];
+    mValues = new int[capacity];
+    Arrays.fill(mValues, NO_VALUE);
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldValues[j] == NO_VALUE) {
+        continue;
+      }
+      int i = hash(oldKeys[j]) & mask;
+      while (mValues[i] != NO_VALUE) {
+        i = (i + 1) & mask;
+      }
+      mKeys[i] = oldKeys[j];
+      mValues[i] = oldValues[j];
+    }
+  }
+
+  private static int hash(long key) {
+    // Event cookies differ mostly in their low bits, spread them over the whole hash
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
@@ -50,6 +50,9 @@ public class ReactViewManager extends ViewGroupManager<ReactViewGroup> {
   };
   private static final int CMD_HOTSPOT_UPDATE = 1;
   private static final int CMD_SET_PRESSED = 2;
+  // Plain views are the most common ones in lists and screens, and they are fully described by
+  // their props, except for what focus and commands changed.
+  private static final int MAX_RECYCLED_VIEWS = 64;
 
   @ReactProp(name = "accessible")
   public void setAccessible(ReactViewGroup view, boolean accessible) {
@@ -213,6 +216,19 @@ public class ReactViewManager extends ViewGroupManager<ReactViewGroup> {
     return new ReactViewGroup(context);
   }
 
+  @Override
+  public int getMaxRecycledViews() {
+    return MAX_RECYCLED_VIEWS;
+  }
+
+  @Override
+  public boolean prepareToRecycleView(ReactViewGroup view) {
+    view.setFocusableInTouchMode(false);
+    view.clearFocus();
+    view.setPressed(false);
+    return true;
+  }
+
   @Override
   public Map<String, Integer> getCommandsMap() {
     return MapBuilder.of("hotspotUpdate", CMD_HOTSPOT_UPDATE, "setPressed", CMD_SET_PRESSED);
@@ -29,15 +29,27 @@ import org.powermock.modules.junit4.rule.PowerMockRule;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Random;
 import java.util.UUID;
 
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @PrepareForTest({Arguments.class})
 @RunWith(RobolectricTestRunner.class)
@@ -146,6 +158,112 @@ public class BlobModuleTest {
     assertArrayEquals(result, buffer.array());
   }
 
+  @Test
+  public void testCreateFromPartsOfSlice() {
+    String id = UUID.randomUUID().toString();
+
+    JavaOnlyMap blobData = new JavaOnlyMap();
+    blobData.putString("blobId", mBlobId);
+    blobData.putInt("offset", 30);
+    blobData.putInt("size", 50);
+    JavaOnlyMap blob = new JavaOnlyMap();
+    blob.putMap("data", blobData);
+    blob.putString("type", "blob");
+
+    JavaOnlyArray parts = new JavaOnlyArray();
+    parts.pushMap(blob);
+    parts.pushMap(blob);
+
+    mBlobModule.createFromParts(parts, id);
+    // The new blob doesn't depend on the blob it was created from being kept
+    mBlobModule.remove(mBlobId);
+
+    ByteBuffer buffer = ByteBuffer.allocate(100);
+    buffer.put(mBytes, 30, 50);
+    buffer.put(mBytes, 30, 50);
+
+    assertArrayEquals(buffer.array(), mBlobModule.resolve(id, 0, 100));
+    assertArrayEquals(
+        Arrays.copyOfRange(buffer.array(), 40, 70), mBlobModule.resolve(id, 40, 30));
+  }
+
+  @Test
+  public void testLargeBlob() {
+    byte[] bytes = new byte[BlobModule.MAX_IN_MEMORY_SIZE * 2 + 100];
+    new Random().nextBytes(bytes);
+    String id = mBlobModule.store(bytes);
+
+    assertArrayEquals(bytes, mBlobModule.resolve(id, 0, bytes.length));
+    int offset = BlobModule.MAX_IN_MEMORY_SIZE - 10;
+    assertArrayEquals(
+        Arrays.copyOfRange(bytes, offset, offset + 20), mBlobModule.resolve(id, offset, 20));
+
+    mBlobModule.remove(id);
+
+    assertNull(mBlobModule.resolve(id, 0, bytes.length));
+  }
+
+  @Test
+  public void testStoreFromSource() throws Exception {
+    byte[] bytes = new byte[BlobModule.MAX_IN_MEMORY_SIZE + 1];
+    new Random().nextBytes(bytes);
+    String id = UUID.randomUUID().toString();
+
+    long size = mBlobModule.store(new Buffer().write(bytes), id);
+
+    assertEquals(bytes.length, size);
+    assertArrayEquals(bytes, mBlobModule.resolve(id, 0, bytes.length));
+
+    Buffer sink = new Buffer();
+    assertTrue(mBlobModule.writeTo(id, 1, 10, sink));
+    assertArrayEquals(Arrays.copyOfRange(bytes, 1, 11), sink.readByteArray());
+    assertFalse(mBlobModule.writeTo(UUID.randomUUID().toString(), 0, 10, sink));
+  }
+
+  @Test
+  public void testRequestBodyOutlivesReleasedBlob() throws Exception {
+    final byte[] bytes = new byte[BlobModule.MAX_IN_MEMORY_SIZE * 2];
+    new Random().nextBytes(bytes);
+    final String id = mBlobModule.store(bytes);
+
+    JavaOnlyMap blobData = new JavaOnlyMap();
+    blobData.putString("blobId", id);
+    blobData.putInt("offset", 10);
+    blobData.putInt("size", bytes.length - 20);
+    JavaOnlyMap data = new JavaOnlyMap();
+    data.putMap("blob", blobData);
+
+    RequestBody body = mBlobModule.createRequestBody(data, null);
+    assertEquals(bytes.length - 20, body.contentLength());
+
+    // JS releases the blob while the body is being sent
+    final Buffer buffer = new Buffer();
+    BufferedSink sink = Okio.buffer(new ForwardingSink(buffer) {
+      @Override
+      public void write(Buffer source, long byteCount) throws IOException {
+        mBlobModule.release(id);
+        super.write(source, byteCount);
+      }
+    });
+    body.writeTo(sink);
+    sink.flush();
+
+    assertNull(mBlobModule.resolve(id, 0, bytes.length));
+    assertArrayEquals(Arrays.copyOfRange(bytes, 10, bytes.length - 10), buffer.readByteArray());
+
+    // Can be sent again, e.g. after a redirect, until it is closed
+    body.writeTo(buffer);
+    assertEquals(bytes.length - 20, buffer.size());
+
+    ((Closeable) body).close();
+    try {
+      body.writeTo(new Buffer());
+      fail();
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
   @Test
   public void testRelease() {
     assertNotNull(mBlobModule.resolve(mBlobId, 0, mBytes.length));
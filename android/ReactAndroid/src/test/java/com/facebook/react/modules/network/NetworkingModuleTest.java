@@ -7,9 +7,12 @@
 
 package com.facebook.react.modules.network;
 
+import android.util.Base64;
+
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.JavaOnlyArray;
@@ -28,6 +31,7 @@ import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import okio.Buffer;
 import org.junit.Rule;
 import org.junit.Test;
@@ -72,6 +76,27 @@ public class NetworkingModuleTest {
   @Rule
   public PowerMockRule rule = new PowerMockRule();
 
+  @Test
+  public void testReadAsBase64() throws Exception {
+    byte[] bytes = new byte[100 * 1024 + 1];
+    new Random().nextBytes(bytes);
+    String expected = Base64.encodeToString(bytes, Base64.NO_WRAP);
+
+    ResponseBody knownLength = ResponseBody.create(MediaType.parse("application/octet-stream"), bytes);
+    assertThat(NetworkingModule.readAsBase64(knownLength)).isEqualTo(expected);
+
+    ResponseBody unknownLength =
+      ResponseBody.create(MediaType.parse("application/octet-stream"), -1, new Buffer().write(bytes));
+    assertThat(NetworkingModule.readAsBase64(unknownLength)).isEqualTo(expected);
+
+    ResponseBody wrongLength =
+      ResponseBody.create(MediaType.parse("application/octet-stream"), 1000, new Buffer().write(bytes));
+    assertThat(NetworkingModule.readAsBase64(wrongLength)).isEqualTo(expected);
+
+    ResponseBody empty = ResponseBody.create(MediaType.parse("application/octet-stream"), new byte[0]);
+    assertThat(NetworkingModule.readAsBase64(empty)).isEqualTo("");
+  }
+
   @Test
   public void testGetWithoutHeaders() throws Exception {
     OkHttpClient httpClient = mock(OkHttpClient.class);
@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2015-present, Facebook, Inc.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.network;
+
+import java.util.List;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.modules.core.ChoreographerCompat;
+import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
+import com.facebook.react.modules.core.ReactChoreographer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ResponseEventCoalescer}.
+ */
+@PrepareForTest({Arguments.class, ReactChoreographer.class})
+@RunWith(RobolectricTestRunner.class)
+@PowerMockIgnore({"org.mockito.*", "org.robolectric.*", "android.*"})
+public class ResponseEventCoalescerTest {
+
+  private static final long MS = 1000 * 1000;
+
+  @Rule
+  public PowerMockRule rule = new PowerMockRule();
+
+  private RCTDeviceEventEmitter mEmitter;
+  private ReactChoreographer mReactChoreographerMock;
+
+  @Before
+  public void setUp() {
+    PowerMockito.mockStatic(Arguments.class);
+    Mockito.when(Arguments.createArray()).thenAnswer(
+        new Answer<WritableArray>() {
+          @Override
+          public WritableArray answer(InvocationOnMock invocation) throws Throwable {
+            return new JavaOnlyArray();
+          }
+        });
+
+    mReactChoreographerMock = mock(ReactChoreographer.class);
+    PowerMockito.mockStatic(ReactChoreographer.class);
+    when(ReactChoreographer.getInstance()).thenReturn(mReactChoreographerMock);
+
+    mEmitter = mock(RCTDeviceEventEmitter.class);
+  }
+
+  @Test
+  public void testMergesDataWithinAFrame() {
+    ResponseEventCoalescer coalescer =
+      new ResponseEventCoalescer(mEmitter, 1, /* hasData */ true, 0, null);
+
+    coalescer.onData("a", 1, 1, 10, 0);
+    coalescer.onData("b", 1, 2, 10, 1 * MS);
+    coalescer.onData("c", 1, 3, 10, 2 * MS);
+    verify(mReactChoreographerMock, times(1)).postFrameCallback(
+      eq(ReactChoreographer.CallbackType.TIMERS_EVENTS),
+      any(ChoreographerCompat.FrameCallback.class));
+
+    coalescer.onFrame(ResponseEventCoalescer.FRAME_INTERVAL_NS);
+
+    List<JavaOnlyArray> events = getEvents("didReceiveNetworkIncrementalData", 2);
+    assertThat(events.get(0).getString(1)).isEqualTo("a");
+    assertThat(events.get(1).getString(1)).isEqualTo("bc");
+    assertThat(events.get(1).getInt(2)).isEqualTo(3);
+    assertThat(coalescer.getEventCount()).isEqualTo(2);
+    assertThat(coalescer.getByteCount()).isEqualTo(3);
+    assertThat(coalescer.getMaxQueueDelayNs())
+      .isEqualTo(ResponseEventCoalescer.FRAME_INTERVAL_NS - 1 * MS);
+  }
+
+  @Test
+  public void testFinishSendsPendingData() {
+    NetworkingModule.ResponseEventStatsListener listener =
+      mock(NetworkingModule.ResponseEventStatsListener.class);
+    ResponseEventCoalescer coalescer =
+      new ResponseEventCoalescer(mEmitter, 1, /* hasData */ true, 0, listener);
+
+    coalescer.onData("a", 1, 1, 2, 0);
+    coalescer.onData("b", 1, 2, 2, 1 * MS);
+    coalescer.finish(3 * MS);
+    coalescer.onData("c", 1, 3, 2, 4 * MS);
+
+    verify(mReactChoreographerMock).removeFrameCallback(
+      eq(ReactChoreographer.CallbackType.TIMERS_EVENTS),
+      any(ChoreographerCompat.FrameCallback.class));
+    List<JavaOnlyArray> events = getEvents("didReceiveNetworkIncrementalData", 2);
+    assertThat(events.get(1).getString(1)).isEqualTo("b");
+    verify(listener).onResponseEventStats(1, 2, 2, 2 * MS, 2 * MS);
+  }
+
+  @Test
+  public void testProgressWaitsForMinInterval() {
+    ResponseEventCoalescer coalescer =
+      new ResponseEventCoalescer(mEmitter, 1, /* hasData */ false, 100 * MS, null);
+
+    coalescer.onProgress(10, 100, 0);
+    coalescer.onProgress(20, 100, 20 * MS);
+    coalescer.onFrame(50 * MS);
+    getEvents("didReceiveNetworkDataProgress", 1);
+    verify(mReactChoreographerMock, times(2)).postFrameCallback(
+      eq(ReactChoreographer.CallbackType.TIMERS_EVENTS),
+      any(ChoreographerCompat.FrameCallback.class));
+
+    coalescer.onFrame(100 * MS);
+    List<JavaOnlyArray> events = getEvents("didReceiveNetworkDataProgress", 2);
+    assertThat(events.get(1).getInt(1)).isEqualTo(20);
+    assertThat(coalescer.getByteCount()).isEqualTo(20);
+  }
+
+  @Test
+  public void testFinishWithoutPendingUpdates() {
+    ResponseEventCoalescer coalescer =
+      new ResponseEventCoalescer(mEmitter, 1, /* hasData */ true, 0, null);
+
+    coalescer.onData("a", 1, 1, 1, 0);
+    coalescer.finish(1 * MS);
+
+    getEvents("didReceiveNetworkIncrementalData", 1);
+    verify(mReactChoreographerMock, never()).postFrameCallback(
+      any(ReactChoreographer.CallbackType.class),
+      any(ChoreographerCompat.FrameCallback.class));
+  }
+
+  @Test
+  public void testUsesChoreographerWithoutHoldingLock() {
+    final ResponseEventCoalescer coalescer =
+      new ResponseEventCoalescer(mEmitter, 1, /* hasData */ true, 0, null);
+    final boolean[] heldLock = new boolean[1];
+    Answer<Void> lockCheck = new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        heldLock[0] |= Thread.holdsLock(coalescer);
+        return null;
+      }
+    };
+    doAnswer(lockCheck).when(mReactChoreographerMock).postFrameCallback(
+      any(ReactChoreographer.CallbackType.class),
+      any(ChoreographerCompat.FrameCallback.class));
+    doAnswer(lockCheck).when(mReactChoreographerMock).removeFrameCallback(
+      any(ReactChoreographer.CallbackType.class),
+      any(ChoreographerCompat.FrameCallback.class));
+
+    coalescer.onData("a", 1, 1, 3, 0);
+    coalescer.onData("b", 1, 2, 3, 1 * MS);
+    coalescer.onFrame(2 * MS);
+    coalescer.finish(3 * MS);
+
+    verify(mReactChoreographerMock, times(2)).postFrameCallback(
+      eq(ReactChoreographer.CallbackType.TIMERS_EVENTS),
+      any(ChoreographerCompat.FrameCallback.class));
+    verify(mReactChoreographerMock).removeFrameCallback(
+      eq(ReactChoreographer.CallbackType.TIMERS_EVENTS),
+      any(ChoreographerCompat.FrameCallback.class));
+    assertThat(heldLock[0]).isFalse();
+  }
+
+  private List<JavaOnlyArray> getEvents(String eventName, int count) {
+    ArgumentCaptor<JavaOnlyArray> captor = ArgumentCaptor.forClass(JavaOnlyArray.class);
+    verify(mEmitter, times(count)).emit(eq(eventName), captor.capture());
+    return captor.getAllValues();
+  }
+}
@@ -256,6 +256,64 @@ public class AsyncStorageModuleTest {
     verify(getAllCallback2, Mockito.times(1)).invoke(null, mEmptyArray);
   }
 
+  @Test
+  public void testWriteBehindMultiSetMultiGet() {
+    mStorage.setReadCacheMaxSize(1024);
+    mStorage.setWriteBehindDelayMs(60000);
+
+    JavaOnlyArray keyValues = new JavaOnlyArray();
+    keyValues.pushArray(getArray("foo1", "bar1"));
+    keyValues.pushArray(getArray("foo2", "bar2"));
+
+    Callback setCallback = mock(Callback.class);
+    mStorage.multiSet(keyValues, setCallback);
+    verify(setCallback, Mockito.times(1)).invoke();
+
+    JavaOnlyArray keys = new JavaOnlyArray();
+    keys.pushString("foo1");
+    keys.pushString("foo2");
+    keys.pushString("fakeKey");
+    JavaOnlyArray row3 = new JavaOnlyArray();
+    row3.pushString("fakeKey");
+    row3.pushString(null);
+    keyValues.pushArray(row3);
+
+    Callback getCallback = mock(Callback.class);
+    mStorage.multiGet(keys, getCallback);
+    verify(getCallback, Mockito.times(1)).invoke(null, keyValues);
+  }
+
+  @Test
+  public void testWriteBehindFlushedOnHostPause() throws Exception {
+    mStorage.setWriteBehindDelayMs(60000);
+
+    JavaOnlyArray keyValues = new JavaOnlyArray();
+    keyValues.pushArray(getArray("foo1", "bar1"));
+    Callback setCallback = mock(Callback.class);
+    mStorage.multiSet(keyValues, setCallback);
+    verify(setCallback, Mockito.times(1)).invoke();
+
+    JavaOnlyArray mergeValues = new JavaOnlyArray();
+    mergeValues.pushArray(getArray("foo2", createJSONObject("a", 1).toString()));
+    Callback mergeCallback = mock(Callback.class);
+    mStorage.multiMerge(mergeValues, mergeCallback);
+    mergeValues = new JavaOnlyArray();
+    mergeValues.pushArray(getArray("foo2", createJSONObject("b", 2).toString()));
+    mStorage.multiMerge(mergeValues, mergeCallback);
+    verify(mergeCallback, Mockito.times(2)).invoke();
+
+    assertThat(AsyncLocalStorageUtil.getItemImpl(mStorage.mReactDatabaseSupplier.get(), "foo1")).isNull();
+
+    mStorage.onHostPause();
+
+    assertThat(AsyncLocalStorageUtil.getItemImpl(mStorage.mReactDatabaseSupplier.get(), "foo1"))
+        .isEqualTo("bar1");
+    JSONObject merged =
+        new JSONObject(AsyncLocalStorageUtil.getItemImpl(mStorage.mReactDatabaseSupplier.get(), "foo2"));
+    assertThat(merged.getInt("a")).isEqualTo(1);
+    assertThat(merged.getInt("b")).isEqualTo(2);
+  }
+
   @Test
   public void testHugeMultiGetMultiGet() {
     // Test with many keys, so that it's above the 999 limit per batch imposed by SQLite.
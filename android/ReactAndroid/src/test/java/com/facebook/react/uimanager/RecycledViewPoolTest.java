@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2015-present, Facebook, Inc.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link RecycledViewPool}
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RecycledViewPoolTest {
+
+  private ViewManager mViewManager;
+  private Context mContext;
+
+  @Before
+  public void setUp() {
+    mViewManager = mock(ViewManager.class);
+    when(mViewManager.getMaxRecycledViews()).thenReturn(2);
+    mContext = RuntimeEnvironment.application;
+  }
+
+  @Test
+  public void testAcquiresViewOfSameContext() {
+    RecycledViewPool pool = new RecycledViewPool(10);
+    Context otherContext = new ContextWrapper(mContext);
+    View view = new View(mContext);
+    pool.release(mViewManager, view);
+
+    assertThat(pool.acquire(mViewManager, otherContext)).isNull();
+    assertThat(pool.acquire(mock(ViewManager.class), mContext)).isNull();
+    assertThat(pool.acquire(mViewManager, mContext)).isSameAs(view);
+    assertThat(pool.acquire(mViewManager, mContext)).isNull();
+    assertThat(pool.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testHasSpace() {
+    RecycledViewPool pool = new RecycledViewPool(3);
+    ViewManager otherViewManager = mock(ViewManager.class);
+    when(otherViewManager.getMaxRecycledViews()).thenReturn(5);
+
+    pool.release(mViewManager, new View(mContext));
+    assertThat(pool.hasSpace(mViewManager)).isTrue();
+    pool.release(mViewManager, new View(mContext));
+    // Limited by the view manager
+    assertThat(pool.hasSpace(mViewManager)).isFalse();
+    assertThat(pool.hasSpace(otherViewManager)).isTrue();
+    pool.release(otherViewManager, new View(mContext));
+    // Limited by the total
+    assertThat(pool.hasSpace(otherViewManager)).isFalse();
+  }
+
+  @Test
+  public void testClearContext() {
+    RecycledViewPool pool = new RecycledViewPool(10);
+    Context otherContext = new ContextWrapper(mContext);
+    View view = new View(otherContext);
+    pool.release(mViewManager, new View(mContext));
+    pool.release(mViewManager, view);
+
+    pool.clear(mContext);
+
+    assertThat(pool.size()).isEqualTo(1);
+    assertThat(pool.acquire(mViewManager, otherContext)).isSameAs(view);
+  }
+
+  @Test
+  public void testTrim() {
+    RecycledViewPool pool = new RecycledViewPool(10);
+    View oldView = new View(mContext);
+    View newView = new View(mContext);
+    pool.release(mViewManager, oldView);
+    pool.release(mViewManager, newView);
+
+    pool.trim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+    assertThat(pool.size()).isEqualTo(2);
+
+    pool.trim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+    assertThat(pool.size()).isEqualTo(1);
+    assertThat(pool.acquire(mViewManager, mContext)).isSameAs(newView);
+
+    pool.release(mViewManager, oldView);
+    pool.trim(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+    assertThat(pool.size()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2015-present, Facebook, Inc.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager.events;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Test for {@link LongIntMap}
+ */
+@RunWith(RobolectricTestRunner.class)
+public class LongIntMapTest {
+
+  @Test
+  public void testPutAndGet() {
+    LongIntMap map = new LongIntMap(4);
+    map.put(0, 1);
+    map.put(-1, 2);
+    map.put(Long.MIN_VALUE, 3);
+    map.put(0, 4);
+
+    assertThat(map.size()).isEqualTo(3);
+    assertThat(map.get(0)).isEqualTo(4);
+    assertThat(map.get(-1)).isEqualTo(2);
+    assertThat(map.get(Long.MIN_VALUE)).isEqualTo(3);
+    assertThat(map.get(1)).isEqualTo(LongIntMap.NO_VALUE);
+  }
+
+  @Test
+  public void testGrows() {
+    LongIntMap map = new LongIntMap(2);
+    for (int i = 0; i < 1000; i++) {
+      // Keys laid out like event cookies, differing in view tag and event type
+      map.put(i | ((long) (i % 7) << 32), i);
+    }
+
+    assertThat(map.size()).isEqualTo(1000);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(map.get(i | ((long) (i % 7) << 32))).isEqualTo(i);
+    }
+    assertThat(map.get(1000)).isEqualTo(LongIntMap.NO_VALUE);
+  }
+
+  @Test
+  public void testClear() {
+    LongIntMap map = new LongIntMap(16);
+    map.put(42, 0);
+    map.clear();
+
+    assertThat(map.size()).isEqualTo(0);
+    assertThat(map.get(42)).isEqualTo(LongIntMap.NO_VALUE);
+    map.put(42, 1);
+    assertThat(map.get(42)).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNegativeValues() {
+    new LongIntMap(16).put(1, -1);
+  }
+}
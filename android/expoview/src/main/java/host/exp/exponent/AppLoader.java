@@ -37,6 +37,8 @@ public abstract class AppLoader {
   private boolean hasResolved = false;
   private final boolean mUseCacheOnly;
   private Runnable mRunnable;
+  // Bundle download started before the final manifest is known, see startSpeculativeBundleFetch
+  private SpeculativeBundleFetch mSpeculativeBundleFetch;
 
   private static final int DEFAULT_TIMEOUT_LENGTH = 30000;
   private static final int DEFAULT_TIMEOUT_LENGTH_BEFORE_SDK26 = 0;
@@ -142,6 +144,9 @@ public abstract class AppLoader {
         }
 
         if (shouldCheckForUpdate) {
+          // most of the time the new manifest points to the same bundle, so revalidate it while
+          // the manifest is being fetched
+          startSpeculativeBundleFetch(mCachedManifest);
           startTimerAndFetchRemoteManifest(fallbackToCacheTimeout);
         } else {
           resolve();
@@ -279,24 +284,15 @@ public abstract class AppLoader {
     }
 
     try {
-      String oldBundleUrl = null;
-      try {
-        JSONObject oldManifest = mExponentSharedPreferences.getManifest(mManifestUrl).manifest;
-        oldBundleUrl = oldManifest.getString(ExponentManifest.MANIFEST_BUNDLE_URL_KEY);
-      } catch (Throwable e) {
-        EXL.e(TAG, "Couldn't get old manifest from shared preferences");
-      }
-      final String finalOldBundleUrl = oldBundleUrl;
+      final String finalOldBundleUrl = getStoredBundleUrl();
 
       try {
         String bundleUrl = mManifest.getString(ExponentManifest.MANIFEST_BUNDLE_URL_KEY);
         final boolean wasUpdated = !bundleUrl.equals(finalOldBundleUrl);
-        String id = mManifest.getString(ExponentManifest.MANIFEST_ID_KEY);
-        String sdkVersion = mManifest.getString(ExponentManifest.MANIFEST_SDK_VERSION_KEY);
 
         final JSONObject finalManifest = mManifest;
 
-        Exponent.getInstance().loadJSBundle(mManifest, bundleUrl, Exponent.getInstance().encodeExperienceId(id), sdkVersion, new Exponent.BundleListener() {
+        Exponent.BundleListener bundleListener = new Exponent.BundleListener() {
           @Override
           public void onError(Exception e) {
             // if we fail to get a cached bundle, try to download it over the network as a last resort before failing
@@ -343,9 +339,16 @@ public abstract class AppLoader {
             }
             resolve();
           }
+        };
+
+        SpeculativeBundleFetch speculativeBundleFetch = takeSpeculativeBundleFetch(mManifest);
+        if (!forceCache && speculativeBundleFetch != null) {
+          speculativeBundleFetch.setListener(bundleListener);
+        } else {
           // forceNetwork fetch the bundle depending on whether or not the bundleUrl has changed
           // since the last version we have cached
-        }, wasUpdated, forceCache);
+          loadJSBundle(mManifest, bundleListener, wasUpdated, forceCache);
+        }
 
       } catch (JSONException e) {
         EXL.e(TAG, e);
@@ -360,4 +363,122 @@ public abstract class AppLoader {
       resolve(e);
     }
   }
+
+  private String getStoredBundleUrl() {
+    try {
+      JSONObject oldManifest = mExponentSharedPreferences.getManifest(mManifestUrl).manifest;
+      return oldManifest.getString(ExponentManifest.MANIFEST_BUNDLE_URL_KEY);
+    } catch (Throwable e) {
+      EXL.e(TAG, "Couldn't get old manifest from shared preferences");
+      return null;
+    }
+  }
+
+  private void loadJSBundle(JSONObject manifest, Exponent.BundleListener bundleListener, boolean shouldForceNetwork, boolean shouldForceCache) throws JSONException {
+    String bundleUrl = manifest.getString(ExponentManifest.MANIFEST_BUNDLE_URL_KEY);
+    String id = manifest.getString(ExponentManifest.MANIFEST_ID_KEY);
+    String sdkVersion = manifest.getString(ExponentManifest.MANIFEST_SDK_VERSION_KEY);
+    Exponent.getInstance().loadJSBundle(manifest, bundleUrl, Exponent.getInstance().encodeExperienceId(id), sdkVersion, bundleListener, shouldForceNetwork, shouldForceCache);
+  }
+
+  // Starts loading the bundle of the cached manifest while the remote one is fetched. Only
+  // manifests that were verified and had their id sandboxed may be passed here, since the id
+  // decides which experience's stored bundle gets replaced. fetchJSBundle reuses the result if
+  // the final manifest points to the same bundle, otherwise the speculative result is dropped.
+  private synchronized void startSpeculativeBundleFetch(JSONObject manifest) {
+    if (manifest == null || !manifest.optBoolean(ExponentManifest.MANIFEST_IS_VERIFIED_KEY, false) || ExponentManifest.isDebugModeEnabled(manifest)) {
+      return;
+    }
+
+    String key = SpeculativeBundleFetch.getKey(manifest);
+    if (key == null || (mSpeculativeBundleFetch != null && mSpeculativeBundleFetch.key.equals(key))) {
+      return;
+    }
+
+    try {
+      String bundleUrl = manifest.getString(ExponentManifest.MANIFEST_BUNDLE_URL_KEY);
+      SpeculativeBundleFetch speculativeBundleFetch = new SpeculativeBundleFetch(key);
+      mSpeculativeBundleFetch = speculativeBundleFetch;
+      loadJSBundle(manifest, speculativeBundleFetch, !bundleUrl.equals(getStoredBundleUrl()), false);
+    } catch (Exception e) {
+      EXL.e(TAG, "Couldn't start speculative bundle fetch: " + e.toString());
+      mSpeculativeBundleFetch = null;
+    }
+  }
+
+  private synchronized SpeculativeBundleFetch takeSpeculativeBundleFetch(JSONObject manifest) {
+    SpeculativeBundleFetch speculativeBundleFetch = mSpeculativeBundleFetch;
+    mSpeculativeBundleFetch = null;
+    if (speculativeBundleFetch == null || !speculativeBundleFetch.key.equals(SpeculativeBundleFetch.getKey(manifest))) {
+      return null;
+    }
+    return speculativeBundleFetch;
+  }
+
+  private static class SpeculativeBundleFetch implements Exponent.BundleListener {
+    final String key;
+    private boolean mIsDone = false;
+    private String mLocalBundlePath;
+    private Exception mException;
+    private Exponent.BundleListener mListener;
+
+    SpeculativeBundleFetch(String key) {
+      this.key = key;
+    }
+
+    // The bundle file depends on these manifest fields only, see Exponent.loadJSBundle
+    static String getKey(JSONObject manifest) {
+      String bundleUrl = manifest.optString(ExponentManifest.MANIFEST_BUNDLE_URL_KEY, null);
+      String id = manifest.optString(ExponentManifest.MANIFEST_ID_KEY, null);
+      String sdkVersion = manifest.optString(ExponentManifest.MANIFEST_SDK_VERSION_KEY, null);
+      if (bundleUrl == null || id == null || sdkVersion == null) {
+        return null;
+      }
+      return bundleUrl + '\n' + id + '\n' + sdkVersion;
+    }
+
+    void setListener(Exponent.BundleListener listener) {
+      synchronized (this) {
+        mListener = listener;
+        if (!mIsDone) {
+          return;
+        }
+      }
+      deliver(listener);
+    }
+
+    @Override
+    public void onBundleLoaded(String localBundlePath) {
+      Exponent.BundleListener listener;
+      synchronized (this) {
+        mIsDone = true;
+        mLocalBundlePath = localBundlePath;
+        listener = mListener;
+      }
+      if (listener != null) {
+        deliver(listener);
+      }
+    }
+
+    @Override
+    public void onError(Exception e) {
+      Exponent.BundleListener listener;
+      synchronized (this) {
+        mIsDone = true;
+        mException = e;
+        listener = mListener;
+      }
+      if (listener != null) {
+        deliver(listener);
+      }
+    }
+
+    private void deliver(Exponent.BundleListener listener) {
+      if (mException != null) {
+        listener.onError(mException);
+      } else {
+        listener.onBundleLoaded(mLocalBundlePath);
+      }
+    }
+  }
 }
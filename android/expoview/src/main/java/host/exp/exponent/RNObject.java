@@ -8,6 +8,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 import host.exp.exponent.analytics.EXL;
 
@@ -18,6 +20,46 @@ public class RNObject {
 
   public static final String UNVERSIONED = "UNVERSIONED";
 
+  // Reflection lookups are hot on experience startup, so resolved classes and members are cached
+  // for the lifetime of the process. Versioned classes are never unloaded so this can't go stale.
+  private static final ConcurrentHashMap<String, Class> sClassCache = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<MemberKey, Method> sMethodCache = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<MemberKey, Constructor> sConstructorCache = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<MemberKey, Field> sFieldCache = new ConcurrentHashMap<>();
+
+  private static class MemberKey {
+    private final Class mClazz;
+    private final String mName;
+    private final Class[] mTypes;
+    private final int mHashCode;
+
+    MemberKey(Class clazz, String name, Class... types) {
+      mClazz = clazz;
+      mName = name;
+      mTypes = types;
+      mHashCode = 31 * (31 * clazz.hashCode() + (name == null ? 0 : name.hashCode())) + Arrays.hashCode(types);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof MemberKey)) {
+        return false;
+      }
+      MemberKey other = (MemberKey) o;
+      return mClazz == other.mClazz
+          && (mName == null ? other.mName == null : mName.equals(other.mName))
+          && Arrays.equals(mTypes, other.mTypes);
+    }
+
+    @Override
+    public int hashCode() {
+      return mHashCode;
+    }
+  }
+
   private final String mClassName; // Unversioned
   private Class mClazz; // Versioned
   private Object mInstance; // Versioned
@@ -52,12 +94,12 @@ public class RNObject {
     try {
       if (version.equals(UNVERSIONED)) {
         if (mClassName.startsWith("host.exp.exponent")) {
-          mClazz = Class.forName("versioned." + mClassName);
+          mClazz = loadClass("versioned." + mClassName);
         } else {
-          mClazz = Class.forName(mClassName);
+          mClazz = loadClass(mClassName);
         }
       } else {
-        mClazz = Class.forName("abi" + version.replace('.', '_') + '.' + mClassName);
+        mClazz = loadClass("abi" + version.replace('.', '_') + '.' + mClassName);
       }
     } catch (ClassNotFoundException e) {
       EXL.e(TAG, e);
@@ -66,6 +108,15 @@ public class RNObject {
     return this;
   }
 
+  private static Class loadClass(String className) throws ClassNotFoundException {
+    Class clazz = sClassCache.get(className);
+    if (clazz == null) {
+      clazz = Class.forName(className);
+      sClassCache.put(className, clazz);
+    }
+    return clazz;
+  }
+
   public void assign(Object object) {
     if (object != null) {
       mClazz = object.getClass();
@@ -181,8 +232,18 @@ public class RNObject {
     }
   }
 
-  // Allow types that are too specific so that we don't have to specify exact classes
   private Method getMethodWithTypes(Class clazz, String name, Class... types) throws NoSuchMethodException {
+    MemberKey key = new MemberKey(clazz, name, types);
+    Method method = sMethodCache.get(key);
+    if (method == null) {
+      method = findMethodWithTypes(clazz, name, types);
+      sMethodCache.put(key, method);
+    }
+    return method;
+  }
+
+  // Allow types that are too specific so that we don't have to specify exact classes
+  private Method findMethodWithTypes(Class clazz, String name, Class... types) throws NoSuchMethodException {
     Method[] methods = clazz.getMethods();
     for (int i = 0; i < methods.length; i++) {
       Method method = methods[i];
@@ -214,6 +275,16 @@ public class RNObject {
   }
 
   private Field getFieldWithType(Class clazz, String name, Class type) throws NoSuchFieldException {
+    MemberKey key = new MemberKey(clazz, name, type);
+    Field field = sFieldCache.get(key);
+    if (field == null) {
+      field = findFieldWithType(clazz, name, type);
+      sFieldCache.put(key, field);
+    }
+    return field;
+  }
+
+  private Field findFieldWithType(Class clazz, String name, Class type) throws NoSuchFieldException {
     Field[] fields = clazz.getFields();
     for (int i = 0; i < fields.length; i++) {
       Field field = fields[i];
@@ -231,8 +302,18 @@ public class RNObject {
     throw new NoSuchFieldException();
   }
 
-  // Allow types that are too specific so that we don't have to specify exact classes
   private Constructor getConstructorWithTypes(Class clazz, Class... types) throws NoSuchMethodException {
+    MemberKey key = new MemberKey(clazz, null, types);
+    Constructor constructor = sConstructorCache.get(key);
+    if (constructor == null) {
+      constructor = findConstructorWithTypes(clazz, types);
+      sConstructorCache.put(key, constructor);
+    }
+    return constructor;
+  }
+
+  // Allow types that are too specific so that we don't have to specify exact classes
+  private Constructor findConstructorWithTypes(Class clazz, Class... types) throws NoSuchMethodException {
     Constructor[] constructors = clazz.getConstructors();
     for (int i = 0; i < constructors.length; i++) {
       Constructor constructor = constructors[i];
@@ -2,11 +2,17 @@
 
 package host.exp.exponent.kernel.services.sensors;
 
+import java.util.concurrent.TimeUnit;
+
 import host.exp.exponent.kernel.ExperienceId;
 
 public class SensorKernelServiceSubscription {
   private boolean mIsEnabled = false;
   private Long mUpdateInterval = null;
+  // Primitive copies of the throttling state, read for every sensor event
+  private long mUpdateIntervalNanos = -1;
+  private long mLastUpdateTimestamp = 0;
+  private boolean mHasReceivedUpdate = false;
   private final ExperienceId mExperienceId;
   private boolean mHasBeenReleased = false;
   private final SubscribableSensorKernelService mSubscribableSensorKernelService;
@@ -45,6 +51,22 @@ public class SensorKernelServiceSubscription {
   public void setUpdateInterval(long updateInterval) {
     assertSubscriptionIsAlive();
     mUpdateInterval = updateInterval;
+    mUpdateIntervalNanos = TimeUnit.MILLISECONDS.toNanos(updateInterval);
+  }
+
+  /**
+   * Returns whether an event with the given timestamp (in nanoseconds, as reported by
+   * {@link android.hardware.SensorEvent#timestamp}) should be delivered, and if so records it
+   * as the last update.
+   */
+  boolean shouldDeliverEventAt(long eventTimestamp, long defaultUpdateIntervalNanos) {
+    long updateIntervalNanos = mUpdateIntervalNanos >= 0 ? mUpdateIntervalNanos : defaultUpdateIntervalNanos;
+    if (mHasReceivedUpdate && eventTimestamp - mLastUpdateTimestamp <= updateIntervalNanos) {
+      return false;
+    }
+    mHasReceivedUpdate = true;
+    mLastUpdateTimestamp = eventTimestamp;
+    return true;
   }
 
   public void stop() {
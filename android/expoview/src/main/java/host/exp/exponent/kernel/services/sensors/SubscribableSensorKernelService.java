@@ -6,20 +6,22 @@ import android.content.Context;
 import android.hardware.SensorEvent;
 
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import host.exp.exponent.kernel.ExperienceId;
 
 public abstract class SubscribableSensorKernelService extends BaseSensorKernelService {
   protected static int DEFAULT_UPDATE_INTERVAL = 100;
+  private static final WeakReference[] EMPTY_SUBSCRIPTIONS = new WeakReference[0];
 
   private Map<ExperienceId, Integer> mExperienceIdListenersCountMap = new HashMap<>();
-  private Map<SensorKernelServiceSubscription, Long> mSensorEventListenerLastUpdateMap = new WeakHashMap<>();
-  private Map<ExperienceId, List<WeakReference<SensorKernelServiceSubscription>>> mExperienceIdSubscriptionsMap = new HashMap<>();
+  // Subscription arrays are never mutated once published, so sensor events can be dispatched
+  // without locking or allocating. Writers replace the whole array under mSubscriptionsLock.
+  private final Map<ExperienceId, WeakReference<SensorKernelServiceSubscription>[]> mExperienceIdSubscriptionsMap = new ConcurrentHashMap<>();
+  private final Object mSubscriptionsLock = new Object();
 
   SubscribableSensorKernelService(Context reactContext) {
     super(reactContext);
@@ -39,30 +41,23 @@ public abstract class SubscribableSensorKernelService extends BaseSensorKernelSe
 
   @Override
   public void onSensorDataChanged(SensorEvent sensorEvent) {
-    long currentTime = System.currentTimeMillis();
     ExperienceId currentExperienceId = getCurrentExperienceId();
-    List<WeakReference<SensorKernelServiceSubscription>> listeners = mExperienceIdSubscriptionsMap.get(currentExperienceId);
-
-    if (listeners != null) {
-      for(WeakReference<SensorKernelServiceSubscription> weakReference : listeners) {
-        final SensorKernelServiceSubscription sensorKernelServiceSubscription = weakReference.get();
-        if (sensorKernelServiceSubscription != null && sensorKernelServiceSubscription.isEnabled()) {
-          long lastUpdate = 0;
-          if (mSensorEventListenerLastUpdateMap.containsKey(sensorKernelServiceSubscription)) {
-            lastUpdate = mSensorEventListenerLastUpdateMap.get(sensorKernelServiceSubscription);
-          }
-
-          long updateInterval = DEFAULT_UPDATE_INTERVAL;
-          if (sensorKernelServiceSubscription.getUpdateInterval() != null) {
-            updateInterval = sensorKernelServiceSubscription.getUpdateInterval();
-          }
-
-
-          if ((currentTime - lastUpdate) > updateInterval) {
-            sensorKernelServiceSubscription.getSensorEventListener().onSensorDataChanged(sensorEvent);
-            mSensorEventListenerLastUpdateMap.put(sensorKernelServiceSubscription, currentTime);
-          }
-        }
+    if (currentExperienceId == null) {
+      return;
+    }
+    WeakReference<SensorKernelServiceSubscription>[] subscriptions = mExperienceIdSubscriptionsMap.get(currentExperienceId);
+    if (subscriptions == null) {
+      return;
+    }
+
+    // Throttle on the event's own timestamp, so that delivery doesn't depend on when the
+    // event happens to be dequeued
+    long defaultUpdateIntervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_UPDATE_INTERVAL);
+    for (int i = 0; i < subscriptions.length; i++) {
+      final SensorKernelServiceSubscription sensorKernelServiceSubscription = subscriptions[i].get();
+      if (sensorKernelServiceSubscription != null && sensorKernelServiceSubscription.isEnabled()
+          && sensorKernelServiceSubscription.shouldDeliverEventAt(sensorEvent.timestamp, defaultUpdateIntervalNanos)) {
+        sensorKernelServiceSubscription.getSensorEventListener().onSensorDataChanged(sensorEvent);
       }
     }
   }
@@ -71,31 +66,18 @@ public abstract class SubscribableSensorKernelService extends BaseSensorKernelSe
 
   public SensorKernelServiceSubscription createSubscriptionForListener(ExperienceId experienceId, SensorEventListener listener) {
     SensorKernelServiceSubscription sensorKernelServiceSubscription = new SensorKernelServiceSubscription(experienceId, this, listener);
-    if (!mExperienceIdSubscriptionsMap.containsKey(experienceId)) {
-      mExperienceIdSubscriptionsMap.put(experienceId, new ArrayList<WeakReference<SensorKernelServiceSubscription>>());
+    synchronized (mSubscriptionsLock) {
+      WeakReference<SensorKernelServiceSubscription>[] originalSubscriptions = getSubscriptions(experienceId);
+      WeakReference<SensorKernelServiceSubscription>[] subscriptions = newSubscriptionsArray(originalSubscriptions.length + 1);
+      System.arraycopy(originalSubscriptions, 0, subscriptions, 0, originalSubscriptions.length);
+      subscriptions[originalSubscriptions.length] = new WeakReference<>(sensorKernelServiceSubscription);
+      mExperienceIdSubscriptionsMap.put(experienceId, subscriptions);
     }
-    mExperienceIdSubscriptionsMap.get(experienceId).add(new WeakReference<>(sensorKernelServiceSubscription));
     return sensorKernelServiceSubscription;
   }
 
   public void removeSubscription(SensorKernelServiceSubscription subscriptionToRemove) {
-    mSensorEventListenerLastUpdateMap.remove(subscriptionToRemove);
-    ExperienceId experienceId = subscriptionToRemove.getExperienceId();
-    if (mExperienceIdSubscriptionsMap.containsKey(experienceId)) {
-      List<WeakReference<SensorKernelServiceSubscription>> originalSubscriptions = mExperienceIdSubscriptionsMap.get(experienceId);
-      List<WeakReference<SensorKernelServiceSubscription>> leftSubscriptions = new ArrayList<>();
-      for (WeakReference<SensorKernelServiceSubscription> subscriptionWeakReference : originalSubscriptions) {
-        SensorKernelServiceSubscription subscription = subscriptionWeakReference.get();
-        if (subscription != null && subscription != subscriptionToRemove) {
-          leftSubscriptions.add(subscriptionWeakReference);
-        }
-      }
-      if (leftSubscriptions.size() > 0) {
-        mExperienceIdSubscriptionsMap.put(experienceId, leftSubscriptions);
-      } else {
-        mExperienceIdSubscriptionsMap.remove(experienceId);
-      }
-    }
+    retainLiveSubscriptions(subscriptionToRemove.getExperienceId(), subscriptionToRemove);
   }
 
   // SensorKernelServiceSubscription API
@@ -136,27 +118,48 @@ public abstract class SubscribableSensorKernelService extends BaseSensorKernelSe
     return 0;
   }
 
-  private void cleanWeakSubscriptionsList(ExperienceId experienceId) {
-    List<WeakReference<SensorKernelServiceSubscription>> listeners = mExperienceIdSubscriptionsMap.get(experienceId);
-    List<WeakReference<SensorKernelServiceSubscription>> realListeners = new ArrayList<>();
-    if (listeners != null) {
-      for (WeakReference<SensorKernelServiceSubscription> subscriptionWeakReference : listeners) {
-        if (subscriptionWeakReference.get() != null) {
-          realListeners.add(subscriptionWeakReference);
+  @SuppressWarnings("unchecked")
+  private static WeakReference<SensorKernelServiceSubscription>[] newSubscriptionsArray(int length) {
+    return length == 0 ? EMPTY_SUBSCRIPTIONS : new WeakReference[length];
+  }
+
+  private WeakReference<SensorKernelServiceSubscription>[] getSubscriptions(ExperienceId experienceId) {
+    WeakReference<SensorKernelServiceSubscription>[] subscriptions = mExperienceIdSubscriptionsMap.get(experienceId);
+    return subscriptions != null ? subscriptions : newSubscriptionsArray(0);
+  }
+
+  /**
+   * Replaces the subscriptions of the experience with the ones that are still alive and aren't
+   * subscriptionToRemove (which may be null).
+   */
+  private void retainLiveSubscriptions(ExperienceId experienceId, SensorKernelServiceSubscription subscriptionToRemove) {
+    if (experienceId == null) {
+      return;
+    }
+    synchronized (mSubscriptionsLock) {
+      WeakReference<SensorKernelServiceSubscription>[] originalSubscriptions = getSubscriptions(experienceId);
+      WeakReference<SensorKernelServiceSubscription>[] leftSubscriptions = newSubscriptionsArray(originalSubscriptions.length);
+      int leftCount = 0;
+      for (WeakReference<SensorKernelServiceSubscription> subscriptionWeakReference : originalSubscriptions) {
+        SensorKernelServiceSubscription subscription = subscriptionWeakReference.get();
+        if (subscription != null && subscription != subscriptionToRemove) {
+          leftSubscriptions[leftCount++] = subscriptionWeakReference;
         }
       }
-    }
 
-    if (realListeners.size() > 0) {
-      mExperienceIdSubscriptionsMap.put(experienceId, realListeners);
-    } else {
-      mExperienceIdSubscriptionsMap.remove(experienceId);
+      if (leftCount == 0) {
+        mExperienceIdSubscriptionsMap.remove(experienceId);
+      } else if (leftCount != originalSubscriptions.length) {
+        WeakReference<SensorKernelServiceSubscription>[] subscriptions = newSubscriptionsArray(leftCount);
+        System.arraycopy(leftSubscriptions, 0, subscriptions, 0, leftCount);
+        mExperienceIdSubscriptionsMap.put(experienceId, subscriptions);
+      }
     }
   }
 
   private void updateObserving() {
     ExperienceId currentExperienceId = getCurrentExperienceId();
-    cleanWeakSubscriptionsList(currentExperienceId);
+    retainLiveSubscriptions(currentExperienceId, null);
 
     // Start/stop observing according to the experience state
     if (getEnabledListenersForExperienceId(currentExperienceId) > 0) {
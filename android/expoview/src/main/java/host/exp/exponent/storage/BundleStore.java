@@ -0,0 +1,323 @@
+// Copyright 2015-present 650 Industries. All rights reserved.
+
+package host.exp.exponent.storage;
+
+import android.content.Context;
+import android.util.AtomicFile;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import host.exp.exponent.analytics.EXL;
+import host.exp.exponent.utils.BsPatch;
+
+/**
+ * Content addressed storage for JS bundles. Every bundle is stored once, in a file named after
+ * the hex encoded SHA-256 of its contents, no matter how many experiences or urls refer to it.
+ *
+ * An index records which bundle (url and hash) is currently installed for every experience
+ * key. A bundle is garbage collected once no experience refers to it anymore, unless it has
+ * been handed out during this process' lifetime, since it may still be loading.
+ */
+public class BundleStore {
+
+  private static final String TAG = BundleStore.class.getSimpleName();
+
+  private static final String DIRECTORY_NAME = "bundles";
+  private static final String INDEX_FILE_NAME = "index.json";
+  private static final String TEMP_FILE_PREFIX = "download-";
+  private static final String TEMP_FILE_EXTENSION = ".tmp";
+  private static final String INDEX_URL_KEY = "url";
+  private static final String INDEX_HASH_KEY = "hash";
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+  private static class Entry {
+    final String url;
+    final String hash;
+
+    Entry(String url, String hash) {
+      this.url = url;
+      this.hash = hash;
+    }
+  }
+
+  private final File mDirectory;
+  private final AtomicFile mIndexFile;
+  private Map<String, Entry> mIndex = null;
+  private final Set<String> mHashesInUse = new HashSet<>();
+
+  public BundleStore(Context context) {
+    mDirectory = new File(context.getFilesDir(), DIRECTORY_NAME);
+    mIndexFile = new AtomicFile(new File(mDirectory, INDEX_FILE_NAME));
+    deleteTempFiles();
+  }
+
+  /**
+   * Returns the bundle installed for experienceKey if it was downloaded from bundleUrl.
+   */
+  public synchronized File getBundleFile(String experienceKey, String bundleUrl) {
+    Entry entry = getIndex().get(experienceKey);
+    if (entry == null || !entry.url.equals(bundleUrl)) {
+      return null;
+    }
+    return getFileForHash(entry.hash);
+  }
+
+  /**
+   * Returns the stored bundle with the given hash, whichever experience it belongs to.
+   */
+  public synchronized File getFileForHash(String hash) {
+    if (!isValidHash(hash)) {
+      return null;
+    }
+    File file = new File(mDirectory, hash);
+    if (!file.exists()) {
+      return null;
+    }
+    mHashesInUse.add(hash);
+    return file;
+  }
+
+  /**
+   * Installs the already stored bundle with the given hash for experienceKey.
+   */
+  public synchronized File install(String experienceKey, String bundleUrl, String hash) throws IOException {
+    File file = getFileForHash(hash);
+    if (file == null) {
+      throw new FileNotFoundException("No stored bundle with hash " + hash);
+    }
+    updateIndex(experienceKey, new Entry(bundleUrl, hash));
+    return file;
+  }
+
+  /**
+   * Streams a bundle into the store and installs it for experienceKey. If expectedHash is given,
+   * the bundle is only installed if its contents match it.
+   */
+  public File store(String experienceKey, String bundleUrl, InputStream inputStream, @Nullable String expectedHash) throws IOException {
+    File tempFile = createTempFile();
+    try {
+      String hash = writeToFile(inputStream, tempFile);
+      return promote(experienceKey, bundleUrl, tempFile, hash, expectedHash);
+    } finally {
+      tempFile.delete();
+    }
+  }
+
+  /**
+   * Applies a patch (see {@link BsPatch}) to the stored bundle with hash baseHash and installs
+   * the result for experienceKey if it matches expectedHash. The patch is streamed to a file
+   * first and the base bundle is memory mapped, so neither is read onto the heap.
+   */
+  public File storePatched(String experienceKey, String bundleUrl, String baseHash, InputStream patchInputStream, String expectedHash) throws IOException {
+    File baseFile = getFileForHash(baseHash);
+    if (baseFile == null) {
+      IOUtils.closeQuietly(patchInputStream);
+      throw new FileNotFoundException("No stored bundle with hash " + baseHash);
+    }
+
+    File patchFile = createTempFile();
+    File tempFile = null;
+    FileInputStream baseInputStream = null;
+    try {
+      FileOutputStream patchOutputStream = new FileOutputStream(patchFile);
+      try {
+        IOUtils.copy(patchInputStream, patchOutputStream);
+      } finally {
+        IOUtils.closeQuietly(patchOutputStream);
+        IOUtils.closeQuietly(patchInputStream);
+      }
+
+      baseInputStream = new FileInputStream(baseFile);
+      FileChannel baseChannel = baseInputStream.getChannel();
+      MappedByteBuffer baseData = baseChannel.map(FileChannel.MapMode.READ_ONLY, 0, baseChannel.size());
+
+      tempFile = createTempFile();
+      MessageDigest messageDigest = newMessageDigest();
+      FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
+      try {
+        DigestOutputStream digestOutputStream = new DigestOutputStream(new BufferedOutputStream(fileOutputStream, WRITE_BUFFER_SIZE), messageDigest);
+        BsPatch.patch(baseData, patchFile, digestOutputStream);
+        digestOutputStream.flush();
+        fileOutputStream.getFD().sync();
+      } finally {
+        IOUtils.closeQuietly(fileOutputStream);
+      }
+      String hash = String.valueOf(Hex.encodeHex(messageDigest.digest()));
+      return promote(experienceKey, bundleUrl, tempFile, hash, expectedHash);
+    } finally {
+      IOUtils.closeQuietly(baseInputStream);
+      patchFile.delete();
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+    }
+  }
+
+  public static boolean isValidHash(String hash) {
+    if (hash == null || hash.length() != 64) {
+      return false;
+    }
+    for (int i = 0; i < hash.length(); i++) {
+      char c = hash.charAt(i);
+      if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private synchronized File promote(String experienceKey, String bundleUrl, File tempFile, String hash, @Nullable String expectedHash) throws IOException {
+    if (expectedHash != null && !expectedHash.equalsIgnoreCase(hash)) {
+      throw new IOException("Bundle hash " + hash + " does not match expected hash " + expectedHash);
+    }
+
+    File file = new File(mDirectory, hash);
+    if (!file.exists() && !tempFile.renameTo(file)) {
+      throw new IOException("Could not move bundle into place at " + file.getAbsolutePath());
+    }
+    mHashesInUse.add(hash);
+    updateIndex(experienceKey, new Entry(bundleUrl, hash));
+    return file;
+  }
+
+  private void updateIndex(String experienceKey, Entry entry) {
+    Entry previousEntry = getIndex().put(experienceKey, entry);
+    writeIndex();
+    if (previousEntry != null && !previousEntry.hash.equals(entry.hash)) {
+      collectGarbage();
+    }
+  }
+
+  // Deletes bundles that aren't referenced by any experience and haven't been used this session
+  private void collectGarbage() {
+    Set<String> referencedHashes = new HashSet<>(mHashesInUse);
+    for (Entry entry : getIndex().values()) {
+      referencedHashes.add(entry.hash);
+    }
+
+    File[] files = mDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      String name = file.getName();
+      if (isValidHash(name) && !referencedHashes.contains(name) && !file.delete()) {
+        EXL.e(TAG, "Could not delete unused bundle " + name);
+      }
+    }
+  }
+
+  private File createTempFile() throws IOException {
+    if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+      throw new IOException("Could not create bundle directory " + mDirectory.getAbsolutePath());
+    }
+    return File.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_EXTENSION, mDirectory);
+  }
+
+  // Leftovers from downloads interrupted in a previous session
+  private void deleteTempFiles() {
+    File[] files = mDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.getName().endsWith(TEMP_FILE_EXTENSION)) {
+        file.delete();
+      }
+    }
+  }
+
+  private static MessageDigest newMessageDigest() throws IOException {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static String writeToFile(InputStream inputStream, File file) throws IOException {
+    MessageDigest messageDigest = newMessageDigest();
+    FileOutputStream fileOutputStream = null;
+    try {
+      fileOutputStream = new FileOutputStream(file);
+      DigestOutputStream digestOutputStream = new DigestOutputStream(new BufferedOutputStream(fileOutputStream, WRITE_BUFFER_SIZE), messageDigest);
+      IOUtils.copy(inputStream, digestOutputStream);
+      digestOutputStream.flush();
+      fileOutputStream.getFD().sync();
+    } finally {
+      IOUtils.closeQuietly(fileOutputStream);
+      IOUtils.closeQuietly(inputStream);
+    }
+    return String.valueOf(Hex.encodeHex(messageDigest.digest()));
+  }
+
+  private Map<String, Entry> getIndex() {
+    if (mIndex != null) {
+      return mIndex;
+    }
+
+    mIndex = new HashMap<>();
+    FileInputStream inputStream = null;
+    try {
+      inputStream = mIndexFile.openRead();
+      JSONObject json = new JSONObject(IOUtils.toString(inputStream, "UTF-8"));
+      Iterator<String> keys = json.keys();
+      while (keys.hasNext()) {
+        String experienceKey = keys.next();
+        JSONObject entry = json.getJSONObject(experienceKey);
+        mIndex.put(experienceKey, new Entry(entry.getString(INDEX_URL_KEY), entry.getString(INDEX_HASH_KEY)));
+      }
+    } catch (FileNotFoundException e) {
+      // nothing stored yet
+    } catch (IOException | JSONException e) {
+      EXL.e(TAG, e);
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+    return mIndex;
+  }
+
+  private void writeIndex() {
+    FileOutputStream outputStream = null;
+    try {
+      JSONObject json = new JSONObject();
+      for (Map.Entry<String, Entry> entry : mIndex.entrySet()) {
+        JSONObject jsonEntry = new JSONObject();
+        jsonEntry.put(INDEX_URL_KEY, entry.getValue().url);
+        jsonEntry.put(INDEX_HASH_KEY, entry.getValue().hash);
+        json.put(entry.getKey(), jsonEntry);
+      }
+      outputStream = mIndexFile.startWrite();
+      outputStream.write(json.toString().getBytes("UTF-8"));
+      mIndexFile.finishWrite(outputStream);
+    } catch (IOException | JSONException e) {
+      EXL.e(TAG, e);
+      if (outputStream != null) {
+        mIndexFile.failWrite(outputStream);
+      }
+    }
+  }
+}
@@ -75,11 +75,13 @@ public class ExponentSharedPreferences {
   }
 
   private SharedPreferences mSharedPreferences;
+  private ManifestStore mManifestStore;
   private Context mContext;
 
   @Inject
   public ExponentSharedPreferences(Context context) {
     mSharedPreferences = context.getSharedPreferences(context.getString(R.string.preference_file_key), Context.MODE_PRIVATE);
+    mManifestStore = new ManifestStore(context);
     mContext = context;
   }
 
@@ -161,66 +163,54 @@ public class ExponentSharedPreferences {
   }
 
   public void updateManifest(String manifestUrl, JSONObject manifest, String bundleUrl) {
-    try {
-      JSONObject parentObject = new JSONObject();
-      parentObject.put(MANIFEST_KEY, manifest);
-      parentObject.put(BUNDLE_URL_KEY, bundleUrl);
-      parentObject.put(SAFE_MANIFEST_KEY, manifest);
-
-      mSharedPreferences.edit().putString(manifestUrl, parentObject.toString()).apply();
-    } catch (JSONException e) {
-      EXL.e(TAG, e);
+    mManifestStore.putManifest(manifestUrl, manifest, bundleUrl);
+    if (mSharedPreferences.contains(manifestUrl)) {
+      delete(manifestUrl);
     }
   }
 
   public ManifestAndBundleUrl getManifest(String manifestUrl) {
-    String jsonString = mSharedPreferences.getString(manifestUrl, null);
-    if (jsonString == null) {
-      return null;
-    }
-
-    try {
-      JSONObject json = new JSONObject(jsonString);
-      JSONObject manifest = json.getJSONObject(MANIFEST_KEY);
-      String bundleUrl = json.getString(BUNDLE_URL_KEY);
-
-      return new ManifestAndBundleUrl(manifest, bundleUrl);
-    } catch (JSONException e) {
-      EXL.e(TAG, e);
-      return null;
-    }
+    migrateLegacyManifest(manifestUrl);
+    return mManifestStore.getManifest(manifestUrl);
   }
 
   public void updateSafeManifest(String manifestUrl, JSONObject manifest) {
-    try {
-      JSONObject parentObject;
-      String jsonString = mSharedPreferences.getString(manifestUrl, null);
-      if (jsonString != null) {
-        parentObject = new JSONObject(jsonString);
-      } else {
-        parentObject = new JSONObject();
-      }
-      parentObject.put(SAFE_MANIFEST_KEY, manifest);
-
-      mSharedPreferences.edit().putString(manifestUrl, parentObject.toString()).apply();
-    } catch (JSONException e) {
-      EXL.e(TAG, e);
-    }
+    migrateLegacyManifest(manifestUrl);
+    mManifestStore.putSafeManifest(manifestUrl, manifest);
   }
 
   public String getSafeManifestString(String manifestUrl) {
+    migrateLegacyManifest(manifestUrl);
+    return mManifestStore.getSafeManifestString(manifestUrl);
+  }
+
+  // Manifests used to be stored here, as a json blob with the manifest, safe manifest and bundle
+  // url keyed by manifest url. Move them to the manifest store the first time they're accessed.
+  private void migrateLegacyManifest(String manifestUrl) {
     String jsonString = mSharedPreferences.getString(manifestUrl, null);
     if (jsonString == null) {
-      return null;
+      return;
+    }
+    if (mManifestStore.contains(manifestUrl)) {
+      // the store already has a newer manifest, the legacy one is stale
+      delete(manifestUrl);
+      return;
     }
 
     try {
       JSONObject json = new JSONObject(jsonString);
-      return json.getString(SAFE_MANIFEST_KEY);
+      JSONObject manifest = json.optJSONObject(MANIFEST_KEY);
+      if (manifest != null) {
+        mManifestStore.putManifest(manifestUrl, manifest, json.optString(BUNDLE_URL_KEY, null));
+      }
+      JSONObject safeManifest = json.optJSONObject(SAFE_MANIFEST_KEY);
+      if (safeManifest != null) {
+        mManifestStore.putSafeManifest(manifestUrl, safeManifest);
+      }
     } catch (JSONException e) {
       EXL.e(TAG, e);
-      return null;
     }
+    delete(manifestUrl);
   }
 
   public void updateExperienceMetadata(String id, JSONObject metadata) {
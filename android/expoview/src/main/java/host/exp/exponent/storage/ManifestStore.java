@@ -0,0 +1,217 @@
+// Copyright 2015-present 650 Industries. All rights reserved.
+
+package host.exp.exponent.storage;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.LruCache;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import host.exp.exponent.analytics.EXL;
+
+/**
+ * Stores manifests in one file per manifest url, so that reading or updating one of them doesn't
+ * require loading and rewriting every other stored manifest.
+ *
+ * The manifest file holds the bundle url on its first line and the manifest json on the second
+ * one. The safe manifest is only stored in a separate file once it differs from the manifest.
+ * The most recently used manifests are kept in memory as strings, so that callers always get a
+ * manifest of their own to modify. Files are written on a background thread, reads see writes
+ * that haven't finished yet.
+ */
+class ManifestStore {
+
+  private static final String TAG = ManifestStore.class.getSimpleName();
+
+  private static final String DIRECTORY_NAME = "manifests";
+  private static final String MANIFEST_FILE_EXTENSION = ".manifest";
+  private static final String SAFE_MANIFEST_FILE_EXTENSION = ".safe";
+  private static final String CHARSET = "UTF-8";
+  private static final int MANIFESTS_CACHE_SIZE = 16;
+
+  private static class StoredManifest {
+    final String manifest;
+    final String bundleUrl;
+
+    StoredManifest(String manifest, String bundleUrl) {
+      this.manifest = manifest;
+      this.bundleUrl = bundleUrl;
+    }
+  }
+
+  private final File mDirectory;
+  private final LruCache<String, StoredManifest> mManifests = new LruCache<>(MANIFESTS_CACHE_SIZE);
+  // Contents of files that are waiting to be written, null if the file is waiting to be deleted
+  private final Map<File, String> mPendingWrites = new HashMap<>();
+  private final ExecutorService mWriteExecutor = Executors.newSingleThreadExecutor();
+
+  ManifestStore(Context context) {
+    mDirectory = new File(context.getFilesDir(), DIRECTORY_NAME);
+  }
+
+  synchronized boolean contains(String manifestUrl) {
+    if (mManifests.get(manifestUrl) != null) {
+      return true;
+    }
+    File file = getManifestFile(manifestUrl).getBaseFile();
+    if (mPendingWrites.containsKey(file)) {
+      return mPendingWrites.get(file) != null;
+    }
+    return file.exists();
+  }
+
+  synchronized void putManifest(String manifestUrl, JSONObject manifest, String bundleUrl) {
+    String manifestString = manifest.toString();
+    mManifests.put(manifestUrl, new StoredManifest(manifestString, bundleUrl));
+    scheduleWrite(getManifestFile(manifestUrl), (bundleUrl != null ? bundleUrl : "") + "\n" + manifestString);
+    // the safe manifest is the manifest itself until it gets updated
+    scheduleWrite(getSafeManifestFile(manifestUrl), null);
+  }
+
+  /**
+   * Returns a newly parsed manifest, which the caller may modify.
+   */
+  synchronized ExponentSharedPreferences.ManifestAndBundleUrl getManifest(String manifestUrl) {
+    StoredManifest storedManifest = getStoredManifest(manifestUrl);
+    if (storedManifest == null) {
+      return null;
+    }
+
+    try {
+      return new ExponentSharedPreferences.ManifestAndBundleUrl(new JSONObject(storedManifest.manifest), storedManifest.bundleUrl);
+    } catch (JSONException e) {
+      EXL.e(TAG, e);
+      return null;
+    }
+  }
+
+  synchronized void putSafeManifest(String manifestUrl, JSONObject manifest) {
+    scheduleWrite(getSafeManifestFile(manifestUrl), manifest.toString());
+  }
+
+  synchronized String getSafeManifestString(String manifestUrl) {
+    String safeManifest = read(getSafeManifestFile(manifestUrl));
+    if (safeManifest != null) {
+      return safeManifest;
+    }
+
+    StoredManifest storedManifest = getStoredManifest(manifestUrl);
+    return storedManifest != null ? storedManifest.manifest : null;
+  }
+
+  private StoredManifest getStoredManifest(String manifestUrl) {
+    StoredManifest storedManifest = mManifests.get(manifestUrl);
+    if (storedManifest != null) {
+      return storedManifest;
+    }
+
+    String contents = read(getManifestFile(manifestUrl));
+    if (contents == null) {
+      return null;
+    }
+
+    int separatorIndex = contents.indexOf('\n');
+    if (separatorIndex < 0) {
+      EXL.e(TAG, "Malformed manifest file for " + manifestUrl);
+      return null;
+    }
+
+    String bundleUrl = separatorIndex > 0 ? contents.substring(0, separatorIndex) : null;
+    storedManifest = new StoredManifest(contents.substring(separatorIndex + 1), bundleUrl);
+    mManifests.put(manifestUrl, storedManifest);
+    return storedManifest;
+  }
+
+  private AtomicFile getManifestFile(String manifestUrl) {
+    return new AtomicFile(new File(mDirectory, DigestUtils.sha1Hex(manifestUrl) + MANIFEST_FILE_EXTENSION));
+  }
+
+  private AtomicFile getSafeManifestFile(String manifestUrl) {
+    return new AtomicFile(new File(mDirectory, DigestUtils.sha1Hex(manifestUrl) + SAFE_MANIFEST_FILE_EXTENSION));
+  }
+
+  private String read(AtomicFile file) {
+    if (mPendingWrites.containsKey(file.getBaseFile())) {
+      return mPendingWrites.get(file.getBaseFile());
+    }
+
+    FileInputStream inputStream = null;
+    try {
+      inputStream = file.openRead();
+      return IOUtils.toString(inputStream, CHARSET);
+    } catch (FileNotFoundException e) {
+      return null;
+    } catch (IOException e) {
+      EXL.e(TAG, e);
+      return null;
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+  }
+
+  // Writes, or deletes if contents is null, the file on the write thread. Only the latest
+  // contents are written if the file changes again before the write has started.
+  private void scheduleWrite(final AtomicFile file, String contents) {
+    final File baseFile = file.getBaseFile();
+    boolean isScheduled = mPendingWrites.containsKey(baseFile);
+    mPendingWrites.put(baseFile, contents);
+    if (isScheduled) {
+      return;
+    }
+    mWriteExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        String pendingContents;
+        synchronized (ManifestStore.this) {
+          pendingContents = mPendingWrites.get(baseFile);
+        }
+        if (pendingContents != null) {
+          write(file, pendingContents);
+        } else {
+          file.delete();
+        }
+        synchronized (ManifestStore.this) {
+          if (mPendingWrites.get(baseFile) == pendingContents) {
+            mPendingWrites.remove(baseFile);
+          } else {
+            // changed while it was being written
+            scheduleWrite(file, mPendingWrites.remove(baseFile));
+          }
+        }
+      }
+    });
+  }
+
+  private void write(AtomicFile file, String contents) {
+    if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+      EXL.e(TAG, "Couldn't create manifests directory");
+      return;
+    }
+
+    FileOutputStream outputStream = null;
+    try {
+      outputStream = file.startWrite();
+      outputStream.write(contents.getBytes(CHARSET));
+      file.finishWrite(outputStream);
+    } catch (IOException e) {
+      EXL.e(TAG, e);
+      if (outputStream != null) {
+        file.failWrite(outputStream);
+      }
+    }
+  }
+}
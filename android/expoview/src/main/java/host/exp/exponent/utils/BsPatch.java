@@ -0,0 +1,179 @@
+// Copyright 2015-present 650 Industries. All rights reserved.
+
+package host.exp.exponent.utils;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Applies binary patches in the bsdiff 4 layout: a 32 byte header ("BSDIFF40", control block
+ * length, diff block length, new file size) followed by the control, diff and extra blocks.
+ * The blocks are expected to be gzip compressed rather than bzip2 compressed as in the original
+ * bsdiff, since java.util.zip is all we have at runtime.
+ *
+ * The three blocks are read side by side, straight from the patch file, so neither the patch nor
+ * the patched output is held in memory.
+ */
+public class BsPatch {
+
+  private static final String MAGIC = "BSDIFF40";
+  private static final int HEADER_LENGTH = 32;
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  /**
+   * @param oldData the data the patch was made against, e.g. a memory mapped file
+   */
+  public static void patch(ByteBuffer oldData, File patchFile, OutputStream outputStream) throws IOException {
+    RandomAccessFile patch = new RandomAccessFile(patchFile, "r");
+    try {
+      patch(oldData, patch.getChannel(), outputStream);
+    } finally {
+      patch.close();
+    }
+  }
+
+  private static void patch(ByteBuffer oldData, FileChannel patch, OutputStream outputStream) throws IOException {
+    long patchLength = patch.size();
+    byte[] header = new byte[HEADER_LENGTH];
+    if (patchLength < HEADER_LENGTH) {
+      throw new IOException("Invalid patch header");
+    }
+    readFully(new RangeInputStream(patch, 0, HEADER_LENGTH), header, HEADER_LENGTH);
+    if (!MAGIC.equals(new String(header, 0, MAGIC.length(), Charset.forName("US-ASCII")))) {
+      throw new IOException("Invalid patch header");
+    }
+
+    long controlLength = readOffset(header, 8);
+    long diffLength = readOffset(header, 16);
+    long newSize = readOffset(header, 24);
+    if (controlLength < 0 || diffLength < 0 || newSize < 0 || HEADER_LENGTH + controlLength + diffLength > patchLength) {
+      throw new IOException("Corrupt patch header");
+    }
+
+    long diffOffset = HEADER_LENGTH + controlLength;
+    long extraOffset = diffOffset + diffLength;
+    InputStream controlStream = openBlock(patch, HEADER_LENGTH, controlLength);
+    InputStream diffStream = openBlock(patch, diffOffset, diffLength);
+    InputStream extraStream = openBlock(patch, extraOffset, patchLength - extraOffset);
+
+    int oldSize = oldData.limit();
+    byte[] control = new byte[24];
+    byte[] buffer = new byte[BUFFER_SIZE];
+    long newPosition = 0;
+    long oldPosition = 0;
+    while (newPosition < newSize) {
+      readFully(controlStream, control, control.length);
+      long diffCount = readOffset(control, 0);
+      long extraCount = readOffset(control, 8);
+      long seek = readOffset(control, 16);
+      if (diffCount < 0 || extraCount < 0 || newPosition + diffCount + extraCount > newSize) {
+        throw new IOException("Corrupt patch control block");
+      }
+
+      // add the diff block to the old data
+      long remaining = diffCount;
+      while (remaining > 0) {
+        int count = (int) Math.min(remaining, buffer.length);
+        readFully(diffStream, buffer, count);
+        for (int i = 0; i < count; i++) {
+          long oldIndex = oldPosition + i;
+          if (oldIndex >= 0 && oldIndex < oldSize) {
+            buffer[i] += oldData.get((int) oldIndex);
+          }
+        }
+        outputStream.write(buffer, 0, count);
+        oldPosition += count;
+        remaining -= count;
+      }
+
+      // copy the extra block as is
+      remaining = extraCount;
+      while (remaining > 0) {
+        int count = (int) Math.min(remaining, buffer.length);
+        readFully(extraStream, buffer, count);
+        outputStream.write(buffer, 0, count);
+        remaining -= count;
+      }
+
+      newPosition += diffCount + extraCount;
+      oldPosition += seek;
+    }
+  }
+
+  // Each block is its own gzip stream, which must not run on into the block after it
+  private static InputStream openBlock(FileChannel patch, long offset, long length) throws IOException {
+    return new GZIPInputStream(new BufferedInputStream(new RangeInputStream(patch, offset, length), BUFFER_SIZE));
+  }
+
+  // Offsets are stored as 8 byte little endian sign-magnitude integers
+  private static long readOffset(byte[] buffer, int offset) {
+    long value = buffer[offset + 7] & 0x7F;
+    for (int i = 6; i >= 0; i--) {
+      value = (value << 8) | (buffer[offset + i] & 0xFF);
+    }
+    return (buffer[offset + 7] & 0x80) != 0 ? -value : value;
+  }
+
+  private static void readFully(InputStream inputStream, byte[] buffer, int count) throws IOException {
+    int read = 0;
+    while (read < count) {
+      int result = inputStream.read(buffer, read, count - read);
+      if (result < 0) {
+        throw new EOFException("Unexpected end of patch");
+      }
+      read += result;
+    }
+  }
+
+  /**
+   * Reads a range of a file with positional reads, so that several ranges of the same file can be
+   * read at once.
+   */
+  private static class RangeInputStream extends InputStream {
+    private final FileChannel mChannel;
+    private long mPosition;
+    private final long mEnd;
+
+    RangeInputStream(FileChannel channel, long offset, long length) {
+      mChannel = channel;
+      mPosition = offset;
+      mEnd = offset + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] buffer = new byte[1];
+      return read(buffer, 0, 1) == -1 ? -1 : buffer[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      long remaining = mEnd - mPosition;
+      if (remaining <= 0) {
+        return -1;
+      }
+      int count = mChannel.read(ByteBuffer.wrap(buffer, offset, (int) Math.min(length, remaining)), mPosition);
+      if (count > 0) {
+        mPosition += count;
+      }
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(mEnd - mPosition, Integer.MAX_VALUE);
+    }
+  }
+}
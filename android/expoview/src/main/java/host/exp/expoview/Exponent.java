@@ -22,8 +22,6 @@ import com.facebook.stetho.Stetho;
 import com.raizlabs.android.dbflow.config.FlowManager;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.ByteArrayOutputStream;
-import org.apache.commons.io.output.TeeOutputStream;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -42,7 +40,7 @@ import java.net.URLEncoder;
 import java.security.Provider;
 import java.security.Security;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -71,6 +69,7 @@ import host.exp.exponent.network.ExpoHttpCallback;
 import host.exp.exponent.network.ExpoResponse;
 import host.exp.exponent.network.ExponentHttpClient;
 import host.exp.exponent.network.ExponentNetwork;
+import host.exp.exponent.storage.BundleStore;
 import host.exp.exponent.storage.ExponentSharedPreferences;
 import host.exp.exponent.utils.PermissionsHelper;
 import versioned.host.exp.exponent.ExponentPackageDelegate;
@@ -85,18 +84,13 @@ public class Exponent {
   private Context mContext;
   private Application mApplication;
   private Activity mActivity;
-  private Map<String, String> mBundleStrings = new HashMap<>();
+  private BundleStore mBundleStore;
 
+  // Bundles are streamed straight to disk and never held on the Java heap. Returning null here
+  // makes CatalystInstanceImpl fall back to jniLoadScriptFromFile, which memory maps the file.
+  // Kept around because every versioned CatalystInstanceImpl still calls it reflectively.
   public String getBundleSource(final String path) {
-    synchronized (mBundleStrings) {
-      if (mBundleStrings.containsKey(path)) {
-        final String result = mBundleStrings.get(path);
-        mBundleStrings.remove(path);
-        return result;
-      } else {
-        return null;
-      }
-    }
+    return null;
   }
 
   @Inject
@@ -126,6 +120,7 @@ public class Exponent {
 
     mContext = context;
     mApplication = application;
+    mBundleStore = new BundleStore(context);
 
     // Ensure Spongy Castle installed so the security providers don't change
     // non-deterministically during the process's lifetime
@@ -345,18 +340,47 @@ public class Exponent {
 
     // The bundle is cached in two places:
     //   1. The OkHttp cache (which lives in internal storage)
-    //   2. Written to our own file (in cache dir)
+    //   2. The content addressed BundleStore (in files dir), where it's installed for the
+    //      experience and abi version. Identical bundles are stored once across experiences.
     // Ideally we'd take the OkHttp response and send the InputStream directly to RN but RN doesn't
     // support that right now so we need to write the response to a file.
     // getCacheDir() doesn't work here! Some phones clean the file up in between when we check
     // file.exists() and when we feed it into React Native!
-    // TODO: clean up files here!
-    final String fileName = KernelConstants.BUNDLE_FILE_PREFIX + id + Integer.toString(urlString.hashCode()) + '-' + abiVersion;
-    final File directory = new File(mContext.getFilesDir(), abiVersion);
-    if (!directory.exists()) {
-      directory.mkdir();
+    final String experienceKey = id + '-' + abiVersion;
+    // Bundles used to be written to their own file per url, which we can still load from
+    final File legacySourceFile = new File(new File(mContext.getFilesDir(), abiVersion), KernelConstants.BUNDLE_FILE_PREFIX + id + Integer.toString(urlString.hashCode()) + '-' + abiVersion);
+    final String expectedHash = BundleStore.isValidHash(manifest.optString(ExponentManifest.MANIFEST_BUNDLE_HASH_KEY, null)) ?
+        manifest.optString(ExponentManifest.MANIFEST_BUNDLE_HASH_KEY) : null;
+
+    if (expectedHash != null) {
+      // the manifest tells us exactly which bundle to run, no need to ask the server about it
+      // if it's already stored, whichever url or experience it was downloaded for
+      try {
+        if (mBundleStore.getFileForHash(expectedHash) != null) {
+          EXL.d(TAG, "Have stored bundle with hash " + expectedHash + " for " + urlString);
+          onBundleStored(id, mBundleStore.install(experienceKey, urlString, expectedHash), legacySourceFile, bundleListener);
+          return true;
+        }
+      } catch (IOException e) {
+        EXL.e(TAG, e);
+      }
+    }
+
+    if (expectedHash != null && !shouldForceCache) {
+      String baseHash = findPatchBaseHash(manifest);
+      if (baseHash != null) {
+        fetchJSBundlePatch(manifest, urlString, id, experienceKey, baseHash, expectedHash, legacySourceFile, bundleListener, shouldForceNetwork, shouldForceCache);
+        return false;
+      }
     }
 
+    fetchJSBundle(urlString, id, experienceKey, expectedHash, legacySourceFile, bundleListener, shouldForceNetwork, shouldForceCache);
+
+    // Guess whether we'll use the cache based on whether the bundle is stored.
+    return mBundleStore.getBundleFile(experienceKey, urlString) != null || legacySourceFile.exists();
+  }
+
+  private void fetchJSBundle(final String urlString, final String id, final String experienceKey, final String expectedHash, final File legacySourceFile, final BundleListener bundleListener, boolean shouldForceNetwork, boolean shouldForceCache) {
     try {
       Request.Builder requestBuilder = KernelConstants.KERNEL_BUNDLE_ID.equals(id)
           // TODO(eric): remove once home bundle is loaded normally
@@ -395,63 +419,25 @@ public class Exponent {
             if (!id.equals(KernelConstants.KERNEL_BUNDLE_ID)) {
               Analytics.markEvent(Analytics.TimedEvent.STARTED_WRITING_BUNDLE);
             }
-            final File sourceFile = new File(directory, fileName);
-            boolean hasCachedSourceFile = false;
 
             if (response.networkResponse() == null || response.networkResponse().code() == KernelConstants.HTTP_NOT_MODIFIED) {
               // If we're getting a cached response don't rewrite the file to disk.
               EXL.d(TAG, "Got cached OkHttp response for " + urlString);
-              if (sourceFile.exists()) {
-                hasCachedSourceFile = true;
+              File storedFile = mBundleStore.getBundleFile(experienceKey, urlString);
+              if (storedFile != null) {
+                EXL.d(TAG, "Have stored bundle for " + urlString);
+                onBundleStored(id, storedFile, legacySourceFile, bundleListener);
+                return;
+              } else if (legacySourceFile.exists()) {
                 EXL.d(TAG, "Have cached source file for " + urlString);
+                onBundleStored(id, legacySourceFile, null, bundleListener);
+                return;
               }
             }
 
-            if (!hasCachedSourceFile) {
-              InputStream inputStream = null;
-              FileOutputStream fileOutputStream = null;
-              ByteArrayOutputStream byteArrayOutputStream = null;
-              TeeOutputStream teeOutputStream = null;
-
-              try {
-                EXL.d(TAG, "Do not have cached source file for " + urlString);
-                inputStream = response.body().byteStream();
-
-                fileOutputStream = new FileOutputStream(sourceFile);
-                byteArrayOutputStream = new ByteArrayOutputStream();
-
-                // Multiplex the stream. Write both to file and string.
-                teeOutputStream = new TeeOutputStream(fileOutputStream, byteArrayOutputStream);
-
-                ByteStreams.copy(inputStream, teeOutputStream);
-                teeOutputStream.flush();
-
-                mBundleStrings.put(sourceFile.getAbsolutePath(), byteArrayOutputStream.toString());
-
-                fileOutputStream.flush();
-                fileOutputStream.getFD().sync();
-              } finally {
-                IOUtils.closeQuietly(teeOutputStream);
-                IOUtils.closeQuietly(fileOutputStream);
-                IOUtils.closeQuietly(byteArrayOutputStream);
-                IOUtils.closeQuietly(inputStream);
-              }
-            }
-
-            if (!id.equals(KernelConstants.KERNEL_BUNDLE_ID)) {
-              Analytics.markEvent(Analytics.TimedEvent.FINISHED_WRITING_BUNDLE);
-            }
-
-            if (Constants.WRITE_BUNDLE_TO_LOG) {
-              printSourceFile(sourceFile.getAbsolutePath());
-            }
-
-            mExpoHandler.post(new Runnable() {
-              @Override
-              public void run() {
-                bundleListener.onBundleLoaded(sourceFile.getAbsolutePath());
-              }
-            });
+            EXL.d(TAG, "Do not have cached source file for " + urlString);
+            File storedFile = mBundleStore.store(experienceKey, urlString, response.body().byteStream(), expectedHash);
+            onBundleStored(id, storedFile, legacySourceFile, bundleListener);
           } catch (Exception e) {
             bundleListener.onError(e);
           }
@@ -474,10 +460,99 @@ public class Exponent {
     } catch (Exception e) {
       bundleListener.onError(e);
     }
+  }
+
+  // Returns the hash of a stored bundle the manifest offers a patch against, if any
+  private String findPatchBaseHash(JSONObject manifest) {
+    JSONObject patches = manifest.optJSONObject(ExponentManifest.MANIFEST_BUNDLE_PATCHES_KEY);
+    if (patches == null) {
+      return null;
+    }
+    Iterator<String> baseHashes = patches.keys();
+    while (baseHashes.hasNext()) {
+      String baseHash = baseHashes.next();
+      if (mBundleStore.getFileForHash(baseHash) != null) {
+        return baseHash;
+      }
+    }
+    return null;
+  }
 
-    // Guess whether we'll use the cache based on whether the source file is saved.
-    final File sourceFile = new File(directory, fileName);
-    return sourceFile.exists();
+  // Downloads a patch against a stored bundle instead of the whole bundle, falling back to the
+  // whole bundle if anything goes wrong. The patched bundle is only installed if its hash matches.
+  private void fetchJSBundlePatch(JSONObject manifest, final String urlString, final String id, final String experienceKey, final String baseHash, final String expectedHash, final File legacySourceFile, final BundleListener bundleListener, final boolean shouldForceNetwork, final boolean shouldForceCache) {
+    final Runnable fallback = new Runnable() {
+      @Override
+      public void run() {
+        fetchJSBundle(urlString, id, experienceKey, expectedHash, legacySourceFile, bundleListener, shouldForceNetwork, shouldForceCache);
+      }
+    };
+
+    final String patchUrl = manifest.optJSONObject(ExponentManifest.MANIFEST_BUNDLE_PATCHES_KEY).optString(baseHash);
+    Request request;
+    try {
+      request = new Request.Builder().url(patchUrl).build();
+    } catch (Exception e) {
+      EXL.e(TAG, "Invalid bundle patch url " + patchUrl);
+      fallback.run();
+      return;
+    }
+
+    mExponentNetwork.getLongTimeoutClient().callSafe(request, new ExponentHttpClient.SafeCallback() {
+      @Override
+      public void onFailure(IOException e) {
+        EXL.e(TAG, "Could not fetch bundle patch: " + e.toString());
+        fallback.run();
+      }
+
+      @Override
+      public void onResponse(ExpoResponse response) {
+        if (!response.isSuccessful()) {
+          EXL.e(TAG, "Bundle patch return code: " + response.code());
+          fallback.run();
+          return;
+        }
+
+        try {
+          if (!id.equals(KernelConstants.KERNEL_BUNDLE_ID)) {
+            Analytics.markEvent(Analytics.TimedEvent.FINISHED_FETCHING_BUNDLE);
+          }
+          File storedFile = mBundleStore.storePatched(experienceKey, urlString, baseHash, response.body().byteStream(), expectedHash);
+          EXL.d(TAG, "Patched bundle " + baseHash + " into " + expectedHash);
+          onBundleStored(id, storedFile, legacySourceFile, bundleListener);
+        } catch (Exception e) {
+          EXL.e(TAG, "Could not apply bundle patch: " + e.toString());
+          fallback.run();
+        }
+      }
+
+      @Override
+      public void onCachedResponse(ExpoResponse response, boolean isEmbedded) {
+        onResponse(response);
+      }
+    });
+  }
+
+  private void onBundleStored(String id, final File bundleFile, File legacySourceFile, final BundleListener bundleListener) {
+    if (legacySourceFile != null && !legacySourceFile.equals(bundleFile)) {
+      // superseded by the stored bundle
+      legacySourceFile.delete();
+    }
+
+    if (!id.equals(KernelConstants.KERNEL_BUNDLE_ID)) {
+      Analytics.markEvent(Analytics.TimedEvent.FINISHED_WRITING_BUNDLE);
+    }
+
+    if (Constants.WRITE_BUNDLE_TO_LOG) {
+      printSourceFile(bundleFile.getAbsolutePath());
+    }
+
+    mExpoHandler.post(new Runnable() {
+      @Override
+      public void run() {
+        bundleListener.onBundleLoaded(bundleFile.getAbsolutePath());
+      }
+    });
   }
 
   private void printSourceFile(String path) {
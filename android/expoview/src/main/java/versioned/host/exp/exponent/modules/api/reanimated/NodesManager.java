@@ -268,10 +268,12 @@ public class NodesManager implements EventDispatcherListener {
       throw new JSApplicationIllegalArgumentException("Unsupported node type: " + type);
     }
     mAnimatedNodes.put(nodeID, node);
+    updateContext.typeVersion++;
   }
 
   public void dropNode(int tag) {
     mAnimatedNodes.remove(tag);
+    updateContext.typeVersion++;
   }
 
   public void connectNodes(int parentID, int childID) {
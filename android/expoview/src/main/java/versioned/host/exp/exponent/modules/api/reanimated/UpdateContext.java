@@ -9,4 +9,41 @@ public class UpdateContext {
   public long updateLoopID = 0;
   public final ArrayList<Node> updatedNodes = new ArrayList<>();
 
+  /**
+   * Bumped whenever nodes are connected or disconnected so that cached traversal results stored
+   * on nodes can be invalidated.
+   */
+  public long graphVersion = 0;
+
+  /**
+   * Bumped whenever nodes are created or dropped, or a value node switches between holding a number
+   * and holding something else, so that cached {@code evaluatesToDouble} results can be invalidated.
+   */
+  public long typeVersion = 0;
+
+  /**
+   * Stamps used to mark visited nodes without allocating a visited set on every traversal.
+   */
+  public long traversalGeneration = 0;
+  public long updateGeneration = 0;
+
+  /**
+   * Scratch space reused by node traversals, grown on demand.
+   */
+  public Node[] traversalStack = new Node[16];
+  public int[] traversalChildIndices = new int[16];
+  public final ArrayList<Node> finalNodesToUpdate = new ArrayList<>();
+
+  public void ensureTraversalCapacity(int capacity) {
+    if (traversalStack.length < capacity) {
+      int newCapacity = Math.max(capacity, traversalStack.length * 2);
+      Node[] stack = new Node[newCapacity];
+      int[] childIndices = new int[newCapacity];
+      System.arraycopy(traversalStack, 0, stack, 0, traversalStack.length);
+      System.arraycopy(traversalChildIndices, 0, childIndices, 0, traversalChildIndices.length);
+      traversalStack = stack;
+      traversalChildIndices = childIndices;
+    }
+  }
+
 }
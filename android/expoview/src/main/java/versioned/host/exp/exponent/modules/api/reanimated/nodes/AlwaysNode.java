@@ -13,12 +13,22 @@ public class AlwaysNode extends Node implements FinalNode {
 
   @Override
   public void update() {
-    this.value();
+    this.doubleValue();
   }
 
   @Override
   protected Double evaluate() {
-    mNodesManager.findNodeById(mNodeToBeEvaluated, Node.class).value();
-    return ZERO;
+    return evaluateDouble();
+  }
+
+  @Override
+  protected double evaluateDouble() {
+    mNodesManager.findNodeById(mNodeToBeEvaluated, Node.class).evaluateIfNeeded();
+    return 0;
+  }
+
+  @Override
+  protected boolean evaluatesToDouble() {
+    return true;
   }
 }
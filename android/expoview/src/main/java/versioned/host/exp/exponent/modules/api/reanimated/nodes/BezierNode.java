@@ -83,7 +83,17 @@ public class BezierNode extends Node {
 
   @Override
   protected Double evaluate() {
-    Double in = (Double) mNodesManager.getNodeValue(mInputID);
-    return Double.valueOf(mInterpolator.getInterpolation(in.floatValue()));
+    return evaluateDouble();
+  }
+
+  @Override
+  protected double evaluateDouble() {
+    double in = mNodesManager.findNodeById(mInputID, Node.class).doubleValue();
+    return mInterpolator.getInterpolation((float) in);
+  }
+
+  @Override
+  protected boolean evaluatesToDouble() {
+    return true;
   }
 }
@@ -15,10 +15,33 @@ public class BlockNode extends Node {
 
   @Override
   protected Object evaluate() {
-    Object res = null;
-    for (int i = 0; i < mBlock.length; i++) {
-      res = mNodesManager.findNodeById(mBlock[i], Node.class).value();
+    if (mBlock.length == 0) {
+      return null;
+    }
+    evaluateAllButLast();
+    return mNodesManager.findNodeById(mBlock[mBlock.length - 1], Node.class).value();
+  }
+
+  @Override
+  protected double evaluateDouble() {
+    evaluateAllButLast();
+    return mNodesManager.findNodeById(mBlock[mBlock.length - 1], Node.class).doubleValue();
+  }
+
+  @Override
+  protected boolean evaluatesToDouble() {
+    return cachedEvaluatesToDouble();
+  }
+
+  @Override
+  protected boolean computeEvaluatesToDouble() {
+    return mBlock.length > 0
+      && mNodesManager.findNodeById(mBlock[mBlock.length - 1], Node.class).evaluatesToDouble();
+  }
+
+  private void evaluateAllButLast() {
+    for (int i = 0; i < mBlock.length - 1; i++) {
+      mNodesManager.findNodeById(mBlock[i], Node.class).evaluateIfNeeded();
     }
-    return res;
   }
 }
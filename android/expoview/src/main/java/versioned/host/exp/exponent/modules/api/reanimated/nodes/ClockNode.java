@@ -27,9 +27,19 @@ public class ClockNode extends Node implements NodesManager.OnAnimationFrame {
 
   @Override
   protected Double evaluate() {
+    return evaluateDouble();
+  }
+
+  @Override
+  protected double evaluateDouble() {
     return mNodesManager.currentFrameTimeMs;
   }
 
+  @Override
+  protected boolean evaluatesToDouble() {
+    return true;
+  }
+
   @Override
   public void onAnimationFrame() {
     if (isRunning) {
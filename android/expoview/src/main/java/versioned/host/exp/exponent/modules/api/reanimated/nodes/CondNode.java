@@ -14,13 +14,43 @@ public class CondNode extends Node {
     mElseBlockID = config.hasKey("elseBlock") ? config.getInt("elseBlock") : -1;
   }
 
-  @Override
-  protected Object evaluate() {
-    Object cond = mNodesManager.getNodeValue(mCondID);
-    if (cond instanceof Number && ((Number) cond).doubleValue() != 0.0) {
+  private boolean isConditionMet() {
+    Node condNode = mNodesManager.findNodeById(mCondID, Node.class);
+    if (condNode.evaluatesToDouble()) {
       // This is not a good way to compare doubles but in this case it is what we want
-      return mIfBlockID != -1 ? mNodesManager.getNodeValue(mIfBlockID) : ZERO;
+      return condNode.doubleValue() != 0.0;
     }
-    return mElseBlockID != -1 ? mNodesManager.getNodeValue(mElseBlockID) : ZERO;
+    Object cond = condNode.value();
+    return cond instanceof Number && ((Number) cond).doubleValue() != 0.0;
+  }
+
+  private int currentBranchID() {
+    return isConditionMet() ? mIfBlockID : mElseBlockID;
+  }
+
+  @Override
+  protected Object evaluate() {
+    int branchID = currentBranchID();
+    return branchID != -1 ? mNodesManager.getNodeValue(branchID) : ZERO;
+  }
+
+  @Override
+  protected double evaluateDouble() {
+    int branchID = currentBranchID();
+    return branchID != -1 ? mNodesManager.findNodeById(branchID, Node.class).doubleValue() : 0;
+  }
+
+  @Override
+  protected boolean evaluatesToDouble() {
+    return cachedEvaluatesToDouble();
+  }
+
+  @Override
+  protected boolean computeEvaluatesToDouble() {
+    return branchEvaluatesToDouble(mIfBlockID) && branchEvaluatesToDouble(mElseBlockID);
+  }
+
+  private boolean branchEvaluatesToDouble(int branchID) {
+    return branchID == -1 || mNodesManager.findNodeById(branchID, Node.class).evaluatesToDouble();
   }
 }
@@ -6,10 +6,7 @@ import versioned.host.exp.exponent.modules.api.reanimated.NodesManager;
 import versioned.host.exp.exponent.modules.api.reanimated.UpdateContext;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.Stack;
 
 import javax.annotation.Nullable;
 
@@ -25,8 +22,18 @@ public abstract class Node {
 
   private long mLastLoopID = -1;
   private @Nullable Object mMemoizedValue;
+  private double mMemoizedDoubleValue;
+  private boolean mHasMemoizedValue;
+  private boolean mHasMemoizedDoubleValue;
+  private long mEvaluatesToDoubleTypeVersion = -1;
+  private boolean mCachedEvaluatesToDouble;
   private @Nullable List<Node> mChildren; /* lazy-initialized when a child is added */
 
+  private long mTraversalGeneration = -1;
+  private long mUpdateGeneration = -1;
+  private @Nullable ArrayList<Node> mReachableFinalNodes; /* post-ordered, lazy-initialized on update */
+  private long mReachableFinalNodesGraphVersion = -1;
+
   public Node(int nodeID, @Nullable ReadableMap config, NodesManager nodesManager) {
     mNodeID = nodeID;
     mNodesManager = nodesManager;
@@ -35,29 +42,107 @@ public abstract class Node {
 
   protected abstract @Nullable Object evaluate();
 
+  /**
+   * Nodes that evaluate to a number override this together with {@link #evaluatesToDouble()} so
+   * that graphs made of them can be evaluated through {@link #doubleValue()} without boxing.
+   */
+  protected double evaluateDouble() {
+    return toDouble(evaluate());
+  }
+
+  /**
+   * Whether {@link #evaluateDouble()} should be used when this node is evaluated for its numeric
+   * value. May change between frames, e.g. for value nodes that can hold strings.
+   */
+  protected boolean evaluatesToDouble() {
+    return false;
+  }
+
+  /**
+   * Nodes whose {@link #evaluatesToDouble()} only depends on the nodes they reference compute it
+   * here and return {@link #cachedEvaluatesToDouble()} from {@link #evaluatesToDouble()}.
+   */
+  protected boolean computeEvaluatesToDouble() {
+    return false;
+  }
+
+  /**
+   * Returns {@link #computeEvaluatesToDouble()}, which is only called again once the type of a
+   * node may have changed, instead of walking the referenced nodes on every evaluation.
+   */
+  protected final boolean cachedEvaluatesToDouble() {
+    if (mEvaluatesToDoubleTypeVersion != mUpdateContext.typeVersion) {
+      mCachedEvaluatesToDouble = computeEvaluatesToDouble();
+      mEvaluatesToDoubleTypeVersion = mUpdateContext.typeVersion;
+    }
+    return mCachedEvaluatesToDouble;
+  }
+
+  /**
+   * Called by nodes whose {@link #evaluatesToDouble()} result changes, so that cached results of
+   * the nodes referencing them are computed again.
+   */
+  protected final void invalidateEvaluatesToDouble() {
+    mUpdateContext.typeVersion++;
+  }
+
   public final @Nullable Object value() {
     if (mLastLoopID < mUpdateContext.updateLoopID) {
       mLastLoopID = mUpdateContext.updateLoopID;
-      return (mMemoizedValue = evaluate());
+      mMemoizedValue = evaluate();
+      mHasMemoizedValue = true;
+      mHasMemoizedDoubleValue = false;
+    } else if (!mHasMemoizedValue) {
+      // the node has been evaluated as a primitive in this loop, box it only once
+      mMemoizedValue = mMemoizedDoubleValue;
+      mHasMemoizedValue = true;
     }
     return mMemoizedValue;
   }
 
   /**
-   * This method will never return null. If value is null or of a different type we try to cast and
-   * return 0 if we fail to properly cast the value. This is to match iOS behavior where the node
-   * would not throw even if the value was not set.
+   * This method will never throw for null values. If value is null or of a different type we try to
+   * cast and return 0 if we fail to properly cast the value. This is to match iOS behavior where the
+   * node would not throw even if the value was not set.
+   */
+  public final double doubleValue() {
+    if (mLastLoopID < mUpdateContext.updateLoopID) {
+      mLastLoopID = mUpdateContext.updateLoopID;
+      if (evaluatesToDouble()) {
+        mMemoizedValue = null;
+        mHasMemoizedValue = false;
+        mMemoizedDoubleValue = evaluateDouble();
+      } else {
+        mMemoizedValue = evaluate();
+        mHasMemoizedValue = true;
+        mMemoizedDoubleValue = toDouble(mMemoizedValue);
+      }
+      mHasMemoizedDoubleValue = true;
+    } else if (!mHasMemoizedDoubleValue) {
+      mMemoizedDoubleValue = toDouble(mMemoizedValue);
+      mHasMemoizedDoubleValue = true;
+    }
+    return mMemoizedDoubleValue;
+  }
+
+  /**
+   * Evaluates the node for its side effects, through the primitive path if the node supports it.
    */
-  public final Double doubleValue() {
-    Object value = value();
+  public final void evaluateIfNeeded() {
+    if (evaluatesToDouble()) {
+      doubleValue();
+    } else {
+      value();
+    }
+  }
+
+  private double toDouble(@Nullable Object value) {
     if (value == null) {
-      return ZERO;
-    } else if (value instanceof Double) {
-      return (Double) value;
+      return 0;
     } else if (value instanceof Number) {
-      return Double.valueOf(((Number) value).doubleValue());
+      return ((Number) value).doubleValue();
     } else if (value instanceof Boolean) {
-      return ((Boolean) value).booleanValue() ? ONE : ZERO;
+      return ((Boolean) value).booleanValue() ? 1 : 0;
     }
     throw new IllegalStateException("Value of node " + this + " cannot be cast to a number");
   }
@@ -67,12 +152,14 @@ public abstract class Node {
       mChildren = new ArrayList<>();
     }
     mChildren.add(child);
+    mUpdateContext.graphVersion++;
     dangerouslyRescheduleEvaluate();
   }
 
   public void removeChild(Node child) {
     if (mChildren != null) {
       mChildren.remove(child);
+      mUpdateContext.graphVersion++;
     }
   }
 
@@ -89,37 +176,89 @@ public abstract class Node {
 
   protected final void forceUpdateMemoizedValue(Object value) {
     mMemoizedValue = value;
+    mHasMemoizedValue = true;
+    mHasMemoizedDoubleValue = false;
+    markUpdated();
+  }
+
+  protected final void forceUpdateMemoizedDoubleValue(double value) {
+    mMemoizedValue = null;
+    mHasMemoizedValue = false;
+    mMemoizedDoubleValue = value;
+    mHasMemoizedDoubleValue = true;
     markUpdated();
   }
 
-  private static void findAndUpdateNodes(Node node, Set<Node> visitedNodes, Stack<FinalNode> finalNodes) {
-    if (visitedNodes.contains(node)) {
-      return;
+  /**
+   * Returns final nodes reachable from this node in DFS post-order. The result is cached until
+   * the graph changes, so updating a node costs only as much as the final nodes depending on it.
+   */
+  private ArrayList<Node> getReachableFinalNodes() {
+    if (mReachableFinalNodes != null && mReachableFinalNodesGraphVersion == mUpdateContext.graphVersion) {
+      return mReachableFinalNodes;
+    }
+
+    if (mReachableFinalNodes == null) {
+      mReachableFinalNodes = new ArrayList<>();
     } else {
-      visitedNodes.add(node);
+      mReachableFinalNodes.clear();
     }
+    mReachableFinalNodesGraphVersion = mUpdateContext.graphVersion;
+
+    UpdateContext context = mUpdateContext;
+    long generation = ++context.traversalGeneration;
+    int depth = 0;
+
+    mTraversalGeneration = generation;
+    context.traversalStack[depth] = this;
+    context.traversalChildIndices[depth] = 0;
+    depth++;
+
+    while (depth > 0) {
+      Node node = context.traversalStack[depth - 1];
+      int childIndex = context.traversalChildIndices[depth - 1];
+      List<Node> children = node.mChildren;
 
-    List<Node> children = node.mChildren;
-    if (children != null) {
-      for (Node child : children) {
-        findAndUpdateNodes(child, visitedNodes, finalNodes);
+      if (children != null && childIndex < children.size()) {
+        context.traversalChildIndices[depth - 1] = childIndex + 1;
+        Node child = children.get(childIndex);
+        if (child.mTraversalGeneration != generation) {
+          child.mTraversalGeneration = generation;
+          context.ensureTraversalCapacity(depth + 1);
+          context.traversalStack[depth] = child;
+          context.traversalChildIndices[depth] = 0;
+          depth++;
+        }
+      } else {
+        depth--;
+        context.traversalStack[depth] = null;
+        if (node instanceof FinalNode) {
+          mReachableFinalNodes.add(node);
+        }
       }
     }
-    if (node instanceof FinalNode) {
-      finalNodes.push((FinalNode) node);
-    }
+
+    return mReachableFinalNodes;
   }
 
   public static void runUpdates(UpdateContext updateContext) {
     UiThreadUtil.assertOnUiThread();
     ArrayList<Node> updatedNodes = updateContext.updatedNodes;
-    Set<Node> visitedNodes = new HashSet<>();
-    Stack<FinalNode> finalNodes = new Stack<>();
+    ArrayList<Node> finalNodes = updateContext.finalNodesToUpdate;
+    long generation = ++updateContext.updateGeneration;
     for (int i = 0; i < updatedNodes.size(); i++) {
-      findAndUpdateNodes(updatedNodes.get(i), visitedNodes, finalNodes);
+      ArrayList<Node> reachableFinalNodes = updatedNodes.get(i).getReachableFinalNodes();
+      for (int j = 0, size = reachableFinalNodes.size(); j < size; j++) {
+        Node finalNode = reachableFinalNodes.get(j);
+        if (finalNode.mUpdateGeneration != generation) {
+          finalNode.mUpdateGeneration = generation;
+          finalNodes.add(finalNode);
+        }
+      }
       if (i == updatedNodes.size() - 1) {
+        // final nodes are updated in reverse post-order
         while (!finalNodes.isEmpty()) {
-          finalNodes.pop().update();
+          ((FinalNode) finalNodes.remove(finalNodes.size() - 1)).update();
         }
       }
     }
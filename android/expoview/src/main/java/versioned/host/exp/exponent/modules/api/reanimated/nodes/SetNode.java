@@ -21,4 +21,22 @@ public class SetNode extends Node {
     what.setValue(newValue);
     return newValue;
   }
+
+  @Override
+  protected double evaluateDouble() {
+    double newValue = mNodesManager.findNodeById(mValueNodeID, Node.class).doubleValue();
+    ValueNode what = mNodesManager.findNodeById(mWhatNodeID, ValueNode.class);
+    what.setValue(newValue);
+    return newValue;
+  }
+
+  @Override
+  protected boolean evaluatesToDouble() {
+    return cachedEvaluatesToDouble();
+  }
+
+  @Override
+  protected boolean computeEvaluatesToDouble() {
+    return mNodesManager.findNodeById(mValueNodeID, Node.class).evaluatesToDouble();
+  }
 }
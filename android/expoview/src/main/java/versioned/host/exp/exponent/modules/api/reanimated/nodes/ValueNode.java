@@ -9,6 +9,8 @@ import javax.annotation.Nullable;
 public class ValueNode extends Node {
 
   private Object mValue;
+  private double mDoubleValue;
+  private boolean mIsDouble;
 
   public ValueNode(int nodeID, @Nullable ReadableMap config, NodesManager nodesManager) {
     super(nodeID, config, nodesManager);
@@ -20,7 +22,8 @@ public class ValueNode extends Node {
     if (type == ReadableType.String) {
       mValue = config.getString("value");
     } else if (type == ReadableType.Number) {
-      mValue = config.getDouble("value");
+      mDoubleValue = config.getDouble("value");
+      mIsDouble = true;
     } else if (type == ReadableType.Null) {
       mValue = null;
     } else {
@@ -29,12 +32,40 @@ public class ValueNode extends Node {
   }
 
   public void setValue(Object value) {
+    if (value instanceof Double) {
+      setValue(((Double) value).doubleValue());
+      return;
+    }
+    if (mIsDouble) {
+      invalidateEvaluatesToDouble();
+    }
     mValue = value;
+    mIsDouble = false;
     forceUpdateMemoizedValue(mValue);
   }
 
+  public void setValue(double value) {
+    if (!mIsDouble) {
+      invalidateEvaluatesToDouble();
+    }
+    mValue = null;
+    mDoubleValue = value;
+    mIsDouble = true;
+    forceUpdateMemoizedDoubleValue(value);
+  }
+
   @Override
   protected Object evaluate() {
-    return mValue;
+    return mIsDouble ? Double.valueOf(mDoubleValue) : mValue;
+  }
+
+  @Override
+  protected double evaluateDouble() {
+    return mDoubleValue;
+  }
+
+  @Override
+  protected boolean evaluatesToDouble() {
+    return mIsDouble;
   }
 }
@@ -4,12 +4,9 @@ import android.content.Context;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 
 import org.unimodules.core.interfaces.ExpoMethod;
@@ -22,15 +19,44 @@ import org.unimodules.core.interfaces.ExpoMethod;
  */
 public abstract class ExportedModule {
   public class MethodInfo {
+    private String mName;
+    private Method mMethod;
     private Class<?>[] mParameterTypes;
 
-    MethodInfo(Method method) {
+    MethodInfo(String name, Method method) {
+      mName = name;
+      mMethod = method;
       mParameterTypes = method.getParameterTypes();
     }
 
     public Class<?>[] getParameterTypes() {
       return mParameterTypes;
     }
+
+    /**
+     * Invokes the method with an array of already converted arguments (including the Promise).
+     * The array is validated in place and passed straight to {@link Method#invoke(Object, Object...)},
+     * so callers that prepare arguments up front don't pay for any intermediate collections.
+     */
+    public Object invoke(Object[] arguments) throws RuntimeException {
+      if (arguments.length != mParameterTypes.length) {
+        throw new IllegalArgumentException(
+                "Method " + mName + " on class " + getName() + " expects " + mParameterTypes.length + " arguments, "
+                        + "whereas " + arguments.length + " arguments have been provided.");
+      }
+
+      for (int i = 0; i < arguments.length; i++) {
+        arguments[i] = transformArgumentToClass(arguments[i], mParameterTypes[i]);
+      }
+
+      try {
+        return mMethod.invoke(ExportedModule.this, arguments);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        e.printStackTrace();
+        throw new RuntimeException("Exception occurred while executing exported method " + mName
+                + " on module " + getName() + ": " + e.getMessage(), e);
+      }
+    }
   }
   private Context mContext;
   private Map<String, Method> mExportedMethods;
@@ -61,7 +87,7 @@ public abstract class ExportedModule {
 
     Map<String, MethodInfo> exportedMethodInfos = new HashMap<>();
     for(Map.Entry<String, Method> entry : getExportedMethods().entrySet()) {
-      exportedMethodInfos.put(entry.getKey(), new MethodInfo(entry.getValue()));
+      exportedMethodInfos.put(entry.getKey(), new MethodInfo(entry.getKey(), entry.getValue()));
     }
     mExportedMethodInfos = exportedMethodInfos;
     return mExportedMethodInfos;
@@ -71,34 +97,13 @@ public abstract class ExportedModule {
    * Invokes an exported method
    */
   public Object invokeExportedMethod(String methodName, Collection<Object> arguments) throws NoSuchMethodException, RuntimeException {
-    Method method = mExportedMethods.get(methodName);
+    MethodInfo methodInfo = getExportedMethodInfos().get(methodName);
 
-    if (method  == null) {
+    if (methodInfo == null) {
       throw new NoSuchMethodException("Module " + getName() + "does not export method " + methodName + ".");
     }
 
-    int expectedArgumentsCount = method.getParameterTypes().length;
-    if (arguments.size() != expectedArgumentsCount) {
-      throw new IllegalArgumentException(
-              "Method " + methodName + " on class " + getName() + " expects " + expectedArgumentsCount + " arguments, "
-                      + "whereas " + arguments.size() + " arguments have been provided.");
-    }
-
-    Class<?>[] expectedArgumentClasses = method.getParameterTypes();
-    Iterator<Object> actualArgumentsIterator = arguments.iterator();
-    List<Object> transformedArguments = new ArrayList<>(arguments.size());
-
-    for (int i = 0; i < expectedArgumentsCount; i++) {
-      transformedArguments.add(transformArgumentToClass(actualArgumentsIterator.next(), expectedArgumentClasses[i]));
-    }
-
-    try {
-      return method.invoke(this, transformedArguments.toArray());
-    } catch (IllegalAccessException | InvocationTargetException e) {
-      e.printStackTrace();
-      throw new RuntimeException("Exception occurred while executing exported method " + methodName
-              + " on module " + getName() + ": " + e.getMessage(), e);
-    }
+    return methodInfo.invoke(arguments.toArray());
   }
 
   protected Object transformArgumentToClass(Object argument, Class<?> expectedArgumentClass) {
@@ -1,11 +1,115 @@
 package org.unimodules.adapters.react;
 
 import com.facebook.react.bridge.Dynamic;
+import com.facebook.react.bridge.ReadableType;
 
 import org.unimodules.core.arguments.MapArguments;
 import org.unimodules.core.arguments.ReadableArguments;
 
 public class ArgumentsHelper {
+  /**
+   * Converts a single JS argument to the Java class expected by an exported method.
+   * Converters are resolved once per parameter (see {@link #getArgumentConverterForClass(Class)})
+   * so that the expected class doesn't have to be inspected on every call.
+   */
+  public interface ArgumentConverter {
+    Object convert(Dynamic argument);
+  }
+
+  private static class GenericArgumentConverter implements ArgumentConverter {
+    private final Class<?> mExpectedArgumentClass;
+
+    GenericArgumentConverter(Class<?> expectedArgumentClass) {
+      mExpectedArgumentClass = expectedArgumentClass;
+    }
+
+    @Override
+    public Object convert(Dynamic argument) {
+      return getNativeArgumentForExpectedClass(argument, mExpectedArgumentClass);
+    }
+  }
+
+  private static abstract class NumberArgumentConverter extends GenericArgumentConverter {
+    NumberArgumentConverter(Class<?> expectedArgumentClass) {
+      super(expectedArgumentClass);
+    }
+
+    @Override
+    public Object convert(Dynamic argument) {
+      if (argument.getType() == ReadableType.Number) {
+        return convertNumber(argument.asDouble());
+      }
+      return super.convert(argument);
+    }
+
+    abstract Object convertNumber(double value);
+  }
+
+  private static final ArgumentConverter STRING_CONVERTER = new GenericArgumentConverter(String.class) {
+    @Override
+    public Object convert(Dynamic argument) {
+      if (argument.getType() == ReadableType.String) {
+        return argument.asString();
+      }
+      return super.convert(argument);
+    }
+  };
+
+  private static final ArgumentConverter BOOLEAN_CONVERTER = new GenericArgumentConverter(Boolean.class) {
+    @Override
+    public Object convert(Dynamic argument) {
+      if (argument.getType() == ReadableType.Boolean) {
+        return argument.asBoolean();
+      }
+      return super.convert(argument);
+    }
+  };
+
+  private static final ArgumentConverter INT_CONVERTER = new NumberArgumentConverter(Integer.class) {
+    @Override
+    Object convertNumber(double value) {
+      return (int) value;
+    }
+  };
+
+  private static final ArgumentConverter LONG_CONVERTER = new NumberArgumentConverter(Long.class) {
+    @Override
+    Object convertNumber(double value) {
+      return (long) value;
+    }
+  };
+
+  private static final ArgumentConverter FLOAT_CONVERTER = new NumberArgumentConverter(Float.class) {
+    @Override
+    Object convertNumber(double value) {
+      return (float) value;
+    }
+  };
+
+  private static final ArgumentConverter DOUBLE_CONVERTER = new NumberArgumentConverter(Double.class) {
+    @Override
+    Object convertNumber(double value) {
+      return value;
+    }
+  };
+
+  public static ArgumentConverter getArgumentConverterForClass(Class<?> expectedArgumentClass) {
+    if (expectedArgumentClass == String.class) {
+      return STRING_CONVERTER;
+    } else if (expectedArgumentClass == boolean.class || expectedArgumentClass == Boolean.class) {
+      return BOOLEAN_CONVERTER;
+    } else if (expectedArgumentClass == int.class || expectedArgumentClass == Integer.class) {
+      return INT_CONVERTER;
+    } else if (expectedArgumentClass == long.class || expectedArgumentClass == Long.class) {
+      return LONG_CONVERTER;
+    } else if (expectedArgumentClass == float.class || expectedArgumentClass == Float.class) {
+      return FLOAT_CONVERTER;
+    } else if (expectedArgumentClass == double.class || expectedArgumentClass == Double.class) {
+      return DOUBLE_CONVERTER;
+    }
+    return new GenericArgumentConverter(expectedArgumentClass);
+  }
+
   public static Object getNativeArgumentForExpectedClass(Dynamic argument, Class<?> expectedArgumentClass) {
     switch (argument.getType()) {
       case String:
@@ -0,0 +1,45 @@
+package org.unimodules.adapters.react;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableArray;
+
+import org.unimodules.core.ExportedModule;
+
+/**
+ * Everything {@link NativeModulesProxy} needs to call a single {@link org.unimodules.core.interfaces.ExpoMethod}:
+ * the resolved module method and a converter for each of its parameters, prepared once
+ * when the method is registered instead of being looked up on every call.
+ */
+/* package */ class ExportedMethodInvoker {
+  private final String mMethodName;
+  private final ExportedModule.MethodInfo mMethodInfo;
+  private final ArgumentsHelper.ArgumentConverter[] mArgumentConverters;
+
+  ExportedMethodInvoker(String methodName, ExportedModule.MethodInfo methodInfo) {
+    mMethodName = methodName;
+    mMethodInfo = methodInfo;
+
+    Class<?>[] parameterTypes = methodInfo.getParameterTypes();
+    // The last parameter is always a Promise, it's not converted from JS arguments.
+    mArgumentConverters = new ArgumentsHelper.ArgumentConverter[parameterTypes.length - 1];
+    for (int i = 0; i < mArgumentConverters.length; i++) {
+      mArgumentConverters[i] = ArgumentsHelper.getArgumentConverterForClass(parameterTypes[i]);
+    }
+  }
+
+  public Object invoke(ReadableArray arguments, Promise promise) {
+    if (arguments.size() != mArgumentConverters.length) {
+      throw new IllegalArgumentException(
+          "Method " + mMethodName + " expects " + mArgumentConverters.length + " arguments, "
+              + "whereas " + arguments.size() + " arguments have been provided.");
+    }
+
+    Object[] nativeArguments = new Object[mArgumentConverters.length + 1];
+    for (int i = 0; i < mArgumentConverters.length; i++) {
+      nativeArguments[i] = mArgumentConverters[i].convert(arguments.getDynamic(i));
+    }
+    nativeArguments[mArgumentConverters.length] = new PromiseWrapper(promise);
+
+    return mMethodInfo.invoke(nativeArguments);
+  }
+}
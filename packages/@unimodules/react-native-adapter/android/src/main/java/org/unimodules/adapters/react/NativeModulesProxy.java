@@ -45,12 +45,14 @@ public class NativeModulesProxy extends ReactContextBaseJavaModule {
   private ModuleRegistry mModuleRegistry;
   private Map<String, Map<String, Integer>> mExportedMethodsKeys;
   private Map<String, SparseArray<String>> mExportedMethodsReverseKeys;
+  private Map<String, Map<String, ExportedMethodInvoker>> mExportedMethodsInvokers;
 
   public NativeModulesProxy(ReactApplicationContext context, ModuleRegistry moduleRegistry) {
     super(context);
     mModuleRegistry = moduleRegistry;
     mExportedMethodsKeys = new HashMap<>();
     mExportedMethodsReverseKeys = new HashMap<>();
+    mExportedMethodsInvokers = new HashMap<>();
   }
 
   @Override
@@ -75,6 +77,7 @@ public class NativeModulesProxy extends ReactContextBaseJavaModule {
 
       List<Map<String, Object>> exportedMethods = transformExportedMethodsMap(exportedModule.getExportedMethods());
       assignExportedMethodsKeys(moduleName, exportedMethods);
+      mExportedMethodsInvokers.put(moduleName, createExportedMethodsInvokers(exportedModule));
 
       exportedMethodsMap.put(moduleName, exportedMethods);
     }
@@ -111,10 +114,7 @@ public class NativeModulesProxy extends ReactContextBaseJavaModule {
     }
 
     try {
-      List<Object> nativeArguments = getNativeArgumentsForMethod(arguments, mModuleRegistry.getExportedModule(moduleName).getExportedMethodInfos().get(methodName));
-      nativeArguments.add(new PromiseWrapper(promise));
-
-      mModuleRegistry.getExportedModule(moduleName).invokeExportedMethod(methodName, nativeArguments);
+      getExportedMethodInvoker(moduleName, methodName).invoke(arguments, promise);
     } catch (IllegalArgumentException e) {
       promise.reject(ARGS_TYPES_MISMATCH_ERROR, e.getMessage(), e);
     } catch (RuntimeException e) {
@@ -129,17 +129,37 @@ public class NativeModulesProxy extends ReactContextBaseJavaModule {
   }
 
   /**
-   * Converts {@link ReadableArray} of arguments into a list of Java Objects.
-   * Throws {@link RuntimeException} if it can't convert some {@link ReadableType} to Object.
-   * Method is used when converting Double to proper argument.
+   * Returns an {@link ExportedMethodInvoker} prepared in {@link #getConstants()},
+   * creating invokers for the module if it hasn't been registered yet.
    */
-  private static List<Object> getNativeArgumentsForMethod(ReadableArray arguments, ExportedModule.MethodInfo methodInfo) {
-    List<Object> nativeArguments = new ArrayList<>();
+  private ExportedMethodInvoker getExportedMethodInvoker(String moduleName, String methodName) throws NoSuchMethodException {
+    Map<String, ExportedMethodInvoker> moduleInvokers = mExportedMethodsInvokers.get(moduleName);
+    if (moduleInvokers == null) {
+      ExportedModule exportedModule = mModuleRegistry.getExportedModule(moduleName);
+      if (exportedModule == null) {
+        throw new NoSuchMethodException("Module " + moduleName + " is not registered.");
+      }
+      moduleInvokers = createExportedMethodsInvokers(exportedModule);
+      mExportedMethodsInvokers.put(moduleName, moduleInvokers);
+    }
+
+    ExportedMethodInvoker invoker = moduleInvokers.get(methodName);
+    if (invoker == null) {
+      throw new NoSuchMethodException("Module " + moduleName + " does not export method " + methodName + ".");
+    }
+    return invoker;
+  }
 
-    for (int i = 0; i < arguments.size(); i++) {
-      nativeArguments.add(ArgumentsHelper.getNativeArgumentForExpectedClass(arguments.getDynamic(i), methodInfo.getParameterTypes()[i]));
+  /**
+   * Resolves every exported method of the module together with converters for its arguments.
+   */
+  private static Map<String, ExportedMethodInvoker> createExportedMethodsInvokers(ExportedModule exportedModule) {
+    Map<String, ExportedModule.MethodInfo> methodInfos = exportedModule.getExportedMethodInfos();
+    Map<String, ExportedMethodInvoker> invokers = new HashMap<>(methodInfos.size());
+    for (Map.Entry<String, ExportedModule.MethodInfo> entry : methodInfos.entrySet()) {
+      invokers.put(entry.getKey(), new ExportedMethodInvoker(entry.getKey(), entry.getValue()));
     }
-    return nativeArguments;
+    return invokers;
   }
 
   /**
@@ -11,10 +11,17 @@ import android.content.pm.PackageManager;
 import android.media.AudioManager;
 import android.media.MediaRecorder;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.SystemClock;
 
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.cache.CacheUtil;
+import com.google.android.exoplayer2.util.Util;
+
 import org.unimodules.core.ModuleRegistry;
 import org.unimodules.core.Promise;
 import org.unimodules.core.arguments.ReadableArguments;
@@ -36,7 +43,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
+import expo.modules.av.player.ExoPlayerPool;
 import expo.modules.av.player.PlayerData;
+import expo.modules.av.player.datasource.DataSourceFactoryProvider;
+import expo.modules.av.player.datasource.MediaCache;
 import expo.modules.av.video.VideoView;
 import expo.modules.av.video.VideoViewWrapper;
 
@@ -56,6 +66,12 @@ public class AVManager implements LifecycleEventListener, AudioManager.OnAudioFo
   private static final String RECORDING_OPTION_MAX_FILE_SIZE_KEY = "maxFileSize";
   private static final String AUDIO_MODE_PLAY_THROUGH_EARPIECE = "playThroughEarpieceAndroid";
 
+  private static final String PRELOAD_URI_KEY = "uri";
+  private static final String PRELOAD_HEADERS_KEY = "headers";
+  private static final String PRELOAD_LENGTH_KEY = "length";
+  private static final String PRELOAD_WARM_PLAYER_KEY = "warmPlayer";
+  private static final String PRELOAD_BUFFER_CONFIG_KEY = "bufferConfig";
+
   private boolean mShouldRouteThroughEarpiece = false;
 
   private enum AudioInterruptionMode {
@@ -90,9 +106,11 @@ public class AVManager implements LifecycleEventListener, AudioManager.OnAudioFo
   private boolean mAudioRecorderIsPaused = false;
 
   private ModuleRegistry mModuleRegistry;
+  private final ExoPlayerPool mExoPlayerPool;
 
   public AVManager(final Context reactContext) {
     mContext = reactContext;
+    mExoPlayerPool = new ExoPlayerPool(reactContext);
 
     mAudioManager = (AudioManager) reactContext.getSystemService(Context.AUDIO_SERVICE);
     // Implemented because of the suggestion here:
@@ -114,6 +132,11 @@ public class AVManager implements LifecycleEventListener, AudioManager.OnAudioFo
     return mModuleRegistry;
   }
 
+  @Override
+  public ExoPlayerPool getExoPlayerPool() {
+    return mExoPlayerPool;
+  }
+
   @Override
   public void setModuleRegistry(ModuleRegistry moduleRegistry) {
     if (mModuleRegistry != null) {
@@ -186,6 +209,7 @@ public class AVManager implements LifecycleEventListener, AudioManager.OnAudioFo
 
     removeAudioRecorder();
     abandonAudioFocus();
+    mExoPlayerPool.clear();
   }
 
   // Global audio state control API
@@ -346,8 +370,14 @@ public class AVManager implements LifecycleEventListener, AudioManager.OnAudioFo
 
   @Override
   public void loadForSound(final ReadableArguments source, final ReadableArguments status, final Promise promise) {
+    final PlayerData data;
+    try {
+      data = PlayerData.createUnloadedPlayerData(this, mContext, source, status.toBundle());
+    } catch (IllegalArgumentException e) {
+      promise.reject("E_LOAD_ERROR", "Invalid buffer configuration: " + e.getMessage(), e);
+      return;
+    }
     final int key = mSoundMapKeyCount++;
-    final PlayerData data = PlayerData.createUnloadedPlayerData(this, mContext, source, status.toBundle());
     data.setErrorListener(new PlayerData.ErrorListener() {
       @Override
       public void onError(final String error) {
@@ -489,6 +519,54 @@ public class AVManager implements LifecycleEventListener, AudioManager.OnAudioFo
 
   // Note that setStatusUpdateCallback happens in the JS for video via onStatusUpdate
 
+  // Media cache
+
+  @Override
+  public void setMediaCacheSize(final double maxBytes) {
+    MediaCache.setMaxBytes((long) maxBytes);
+  }
+
+  @Override
+  public void preload(final ReadableArguments source, final ReadableArguments options, final Promise promise) {
+    final Uri uri = Uri.parse(source.getString(PRELOAD_URI_KEY));
+    if (!MediaCache.isCacheable(uri)) {
+      promise.reject("E_PRELOAD_ERROR", "Only remote media can be preloaded, got '" + uri + "'.");
+      return;
+    }
+    final Map<String, Object> requestHeaders = source.containsKey(PRELOAD_HEADERS_KEY) ? source.getMap(PRELOAD_HEADERS_KEY) : null;
+    final long length = options.containsKey(PRELOAD_LENGTH_KEY) ? (long) options.getDouble(PRELOAD_LENGTH_KEY) : C.LENGTH_UNSET;
+    if (options.getBoolean(PRELOAD_WARM_PLAYER_KEY, false)) {
+      // Have a player ready for the video that is going to play this source
+      try {
+        mExoPlayerPool.warmUp(source.containsKey(PRELOAD_BUFFER_CONFIG_KEY) ? source.getMap(PRELOAD_BUFFER_CONFIG_KEY) : null);
+      } catch (IllegalArgumentException e) {
+        promise.reject("E_PRELOAD_ERROR", "Invalid buffer configuration: " + e.getMessage(), e);
+        return;
+      }
+    }
+
+    // Goes through the same data sources as playback, so cookies and headers apply to it as well.
+    final DataSource upstream = mModuleRegistry.getModule(DataSourceFactoryProvider.class)
+        .createFactory(mContext, mModuleRegistry, Util.getUserAgent(mContext, "yourApplicationName"), requestHeaders)
+        .createDataSource();
+    AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+      @Override
+      public void run() {
+        CacheUtil.CachingCounters counters = new CacheUtil.CachingCounters();
+        try {
+          CacheUtil.cache(new DataSpec(uri, 0, length, null), MediaCache.getInstance(mContext), upstream, counters, null);
+        } catch (IOException | InterruptedException e) {
+          promise.reject("E_PRELOAD_ERROR", "Preloading '" + uri + "' failed.", e);
+          return;
+        }
+        Bundle result = new Bundle();
+        result.putDouble("bytesCached", counters.totalCachedBytes());
+        result.putDouble("bytesDownloaded", counters.newlyCachedBytes);
+        promise.resolve(result);
+      }
+    });
+  }
+
   // Recording API
 
   private boolean isMissingAudioRecordingPermissions() {
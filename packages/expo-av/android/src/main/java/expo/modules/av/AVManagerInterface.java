@@ -5,6 +5,7 @@ import android.content.Context;
 import org.unimodules.core.ModuleRegistry;
 import org.unimodules.core.Promise;
 import org.unimodules.core.arguments.ReadableArguments;
+import expo.modules.av.player.ExoPlayerPool;
 import expo.modules.av.video.VideoView;
 
 public interface AVManagerInterface {
@@ -44,6 +45,10 @@ public interface AVManagerInterface {
 
   void getStatusForVideo(final Integer tag, final Promise promise);
 
+  void setMediaCacheSize(final double maxBytes);
+
+  void preload(final ReadableArguments source, final ReadableArguments options, final Promise promise);
+
   void prepareAudioRecorder(final ReadableArguments options, final Promise promise);
 
   void startAudioRecording(final Promise promise);
@@ -57,4 +62,6 @@ public interface AVManagerInterface {
   void unloadAudioRecorder(final Promise promise);
 
   ModuleRegistry getModuleRegistry();
+
+  ExoPlayerPool getExoPlayerPool();
 }
@@ -88,6 +88,17 @@ public class AVModule extends ExportedModule implements ModuleRegistryConsumer {
     mAVManager.getStatusForVideo(tag, promise);
   }
 
+  @ExpoMethod
+  public void setMediaCacheSize(final double maxBytes, final Promise promise) {
+    mAVManager.setMediaCacheSize(maxBytes);
+    promise.resolve(null);
+  }
+
+  @ExpoMethod
+  public void preload(final ReadableArguments source, final ReadableArguments options, final Promise promise) {
+    mAVManager.preload(source, options, promise);
+  }
+
   @ExpoMethod
   public void prepareAudioRecorder(final ReadableArguments options, final Promise promise) {
     mAVManager.prepareAudioRecorder(options, promise);
@@ -0,0 +1,280 @@
+package expo.modules.av.player;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.ExoPlayerFactory;
+import com.google.android.exoplayer2.PlaybackParameters;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps a bounded number of idle SimpleExoPlayers around, so that loading a new sound or video
+ * (e.g. the next item of a scrolling feed) doesn't have to build a player, its renderers and its
+ * load control from scratch, and unloading one doesn't tear all of that down.
+ *
+ * A player has to be used from the thread whose looper it was created on, and its buffer
+ * durations can't be changed once it's been created, so players are only handed out to a caller
+ * on the same looper asking for the same buffer configuration.
+ */
+public class ExoPlayerPool {
+  private static final int MAX_IDLE_PLAYERS = 3;
+
+  static class BufferConfig {
+    private static final String MIN_BUFFER_MS_KEY = "minBufferMs";
+    private static final String MAX_BUFFER_MS_KEY = "maxBufferMs";
+    private static final String BUFFER_FOR_PLAYBACK_MS_KEY = "bufferForPlaybackMs";
+    private static final String BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS_KEY = "bufferForPlaybackAfterRebufferMs";
+
+    static final BufferConfig DEFAULT = new BufferConfig(
+        DefaultLoadControl.DEFAULT_MIN_BUFFER_MS,
+        DefaultLoadControl.DEFAULT_MAX_BUFFER_MS,
+        DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS,
+        DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS);
+
+    final int minBufferMs;
+    final int maxBufferMs;
+    final int bufferForPlaybackMs;
+    final int bufferForPlaybackAfterRebufferMs;
+
+    BufferConfig(int minBufferMs, int maxBufferMs, int bufferForPlaybackMs, int bufferForPlaybackAfterRebufferMs) {
+      this.minBufferMs = minBufferMs;
+      this.maxBufferMs = maxBufferMs;
+      this.bufferForPlaybackMs = bufferForPlaybackMs;
+      this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+    }
+
+    /**
+     * Throws an IllegalArgumentException if the durations are ones DefaultLoadControl would
+     * reject, so that callers can report it instead of the player failing to be created later.
+     */
+    static BufferConfig fromMap(Map map) {
+      if (map == null) {
+        return DEFAULT;
+      }
+      BufferConfig bufferConfig = new BufferConfig(
+          getInt(map, MIN_BUFFER_MS_KEY, DEFAULT.minBufferMs),
+          getInt(map, MAX_BUFFER_MS_KEY, DEFAULT.maxBufferMs),
+          getInt(map, BUFFER_FOR_PLAYBACK_MS_KEY, DEFAULT.bufferForPlaybackMs),
+          getInt(map, BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS_KEY, DEFAULT.bufferForPlaybackAfterRebufferMs));
+      bufferConfig.validate();
+      return bufferConfig;
+    }
+
+    private void validate() {
+      if (bufferForPlaybackMs < 0 || bufferForPlaybackAfterRebufferMs < 0) {
+        throw new IllegalArgumentException(BUFFER_FOR_PLAYBACK_MS_KEY + " and " + BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS_KEY + " can't be negative.");
+      }
+      if (minBufferMs < bufferForPlaybackMs || minBufferMs < bufferForPlaybackAfterRebufferMs) {
+        throw new IllegalArgumentException(MIN_BUFFER_MS_KEY + " can't be less than " + BUFFER_FOR_PLAYBACK_MS_KEY + " or " + BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS_KEY + ".");
+      }
+      if (maxBufferMs < minBufferMs) {
+        throw new IllegalArgumentException(MAX_BUFFER_MS_KEY + " can't be less than " + MIN_BUFFER_MS_KEY + ".");
+      }
+    }
+
+    private static int getInt(Map map, String key, int defaultValue) {
+      Object value = map.get(key);
+      return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof BufferConfig)) {
+        return false;
+      }
+      BufferConfig that = (BufferConfig) o;
+      return minBufferMs == that.minBufferMs
+          && maxBufferMs == that.maxBufferMs
+          && bufferForPlaybackMs == that.bufferForPlaybackMs
+          && bufferForPlaybackAfterRebufferMs == that.bufferForPlaybackAfterRebufferMs;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = minBufferMs;
+      result = 31 * result + maxBufferMs;
+      result = 31 * result + bufferForPlaybackMs;
+      result = 31 * result + bufferForPlaybackAfterRebufferMs;
+      return result;
+    }
+  }
+
+  private static class IdlePlayer {
+    final SimpleExoPlayer player;
+    final BufferConfig bufferConfig;
+    final Looper looper;
+
+    IdlePlayer(SimpleExoPlayer player, BufferConfig bufferConfig, Looper looper) {
+      this.player = player;
+      this.bufferConfig = bufferConfig;
+      this.looper = looper;
+    }
+  }
+
+  private final Context mContext;
+  // Most recently recycled players first
+  private final LinkedList<IdlePlayer> mIdlePlayers = new LinkedList<>();
+  private final Map<SimpleExoPlayer, Looper> mPlayerLoopers = new WeakHashMap<>();
+
+  public ExoPlayerPool(Context context) {
+    mContext = context;
+  }
+
+  /**
+   * Returns an idle player created on the current thread's looper with the given buffer
+   * configuration, or a new one.
+   */
+  SimpleExoPlayer acquire(BufferConfig bufferConfig) {
+    Looper looper = getCurrentLooper();
+    synchronized (this) {
+      Iterator<IdlePlayer> iterator = mIdlePlayers.iterator();
+      while (iterator.hasNext()) {
+        IdlePlayer idlePlayer = iterator.next();
+        if (idlePlayer.looper == looper && idlePlayer.bufferConfig.equals(bufferConfig)) {
+          iterator.remove();
+          return idlePlayer.player;
+        }
+      }
+    }
+    return createPlayer(bufferConfig);
+  }
+
+  /**
+   * Resets the player and keeps it for reuse, or releases it if there are enough idle players
+   * already.
+   */
+  void recycle(final SimpleExoPlayer player, final BufferConfig bufferConfig) {
+    final Looper looper;
+    synchronized (this) {
+      looper = mPlayerLoopers.get(player);
+    }
+    if (looper == null) {
+      player.release();
+      return;
+    }
+    if (looper != getCurrentLooper()) {
+      new Handler(looper).post(new Runnable() {
+        @Override
+        public void run() {
+          recycle(player, bufferConfig);
+        }
+      });
+      return;
+    }
+
+    player.stop(true);
+    player.clearVideoSurface();
+    player.setPlayWhenReady(false);
+    player.setRepeatMode(Player.REPEAT_MODE_OFF);
+    player.setVolume(1.0f);
+    player.setPlaybackParameters(PlaybackParameters.DEFAULT);
+
+    IdlePlayer evictedPlayer = null;
+    synchronized (this) {
+      mIdlePlayers.addFirst(new IdlePlayer(player, bufferConfig, looper));
+      if (mIdlePlayers.size() > MAX_IDLE_PLAYERS) {
+        evictedPlayer = mIdlePlayers.removeLast();
+      }
+    }
+    if (evictedPlayer != null) {
+      release(evictedPlayer.player, evictedPlayer.looper);
+    }
+  }
+
+  /**
+   * Releases a player that shouldn't be reused, e.g. because it ran into an error.
+   */
+  void release(SimpleExoPlayer player) {
+    Looper looper;
+    synchronized (this) {
+      looper = mPlayerLoopers.get(player);
+    }
+    release(player, looper != null ? looper : getCurrentLooper());
+  }
+
+  /**
+   * Creates an idle player on the main looper, which video views use, unless the pool is full
+   * already, so that a video loaded later on doesn't have to wait for it to be created. Throws an
+   * IllegalArgumentException if the buffer configuration is invalid.
+   */
+  public void warmUp(Map bufferConfigMap) {
+    // Validated on the caller's thread, where an invalid configuration can still be reported
+    final BufferConfig bufferConfig = BufferConfig.fromMap(bufferConfigMap);
+    new Handler(Looper.getMainLooper()).post(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (ExoPlayerPool.this) {
+          if (mIdlePlayers.size() >= MAX_IDLE_PLAYERS) {
+            return;
+          }
+        }
+        recycle(createPlayer(bufferConfig), bufferConfig);
+      }
+    });
+  }
+
+  public void clear() {
+    List<IdlePlayer> idlePlayers;
+    synchronized (this) {
+      idlePlayers = new ArrayList<>(mIdlePlayers);
+      mIdlePlayers.clear();
+    }
+    for (IdlePlayer idlePlayer : idlePlayers) {
+      release(idlePlayer.player, idlePlayer.looper);
+    }
+  }
+
+  private SimpleExoPlayer createPlayer(BufferConfig bufferConfig) {
+    DefaultTrackSelector trackSelector = new DefaultTrackSelector(new AdaptiveTrackSelection.Factory(new DefaultBandwidthMeter()));
+    DefaultLoadControl loadControl = new DefaultLoadControl.Builder()
+        .setBufferDurationsMs(
+            bufferConfig.minBufferMs,
+            bufferConfig.maxBufferMs,
+            bufferConfig.bufferForPlaybackMs,
+            bufferConfig.bufferForPlaybackAfterRebufferMs)
+        .createDefaultLoadControl();
+    SimpleExoPlayer player = ExoPlayerFactory.newSimpleInstance(mContext, trackSelector, loadControl);
+    synchronized (this) {
+      mPlayerLoopers.put(player, getCurrentLooper());
+    }
+    return player;
+  }
+
+  private void release(final SimpleExoPlayer player, Looper looper) {
+    synchronized (this) {
+      mPlayerLoopers.remove(player);
+    }
+    if (looper == getCurrentLooper()) {
+      player.release();
+      return;
+    }
+    new Handler(looper).post(new Runnable() {
+      @Override
+      public void run() {
+        player.release();
+      }
+    });
+  }
+
+  // ExoPlayer falls back to the main looper for threads that don't have one
+  private static Looper getCurrentLooper() {
+    Looper looper = Looper.myLooper();
+    return looper != null ? looper : Looper.getMainLooper();
+  }
+}
@@ -22,6 +22,7 @@ public abstract class PlayerData implements AudioEventHandler {
   static final String STATUS_IS_LOADED_KEY_PATH = "isLoaded";
   public static final String STATUS_URI_KEY_PATH = "uri";
   static final String STATUS_OVERRIDING_EXTENSION_KEY_PATH = "overridingExtension";
+  static final String STATUS_BUFFER_CONFIG_KEY_PATH = "bufferConfig";
   static final String STATUS_PROGRESS_UPDATE_INTERVAL_MILLIS_KEY_PATH = "progressUpdateIntervalMillis";
   static final String STATUS_DURATION_MILLIS_KEY_PATH = "durationMillis";
   static final String STATUS_POSITION_MILLIS_KEY_PATH = "positionMillis";
@@ -128,7 +129,9 @@ public abstract class PlayerData implements AudioEventHandler {
         && status.getString(STATUS_ANDROID_IMPLEMENTATION_KEY_PATH).equals(MediaPlayerData.IMPLEMENTATION_NAME)) {
       return new MediaPlayerData(avModule, context, uri, requestHeaders);
     } else {
-      return new SimpleExoPlayerData(avModule, context, uri, uriOverridingExtension, requestHeaders);
+      final ExoPlayerPool.BufferConfig bufferConfig = ExoPlayerPool.BufferConfig.fromMap(
+          source.containsKey(STATUS_BUFFER_CONFIG_KEY_PATH) ? source.getMap(STATUS_BUFFER_CONFIG_KEY_PATH) : null);
+      return new SimpleExoPlayerData(avModule, context, uri, uriOverridingExtension, requestHeaders, bufferConfig);
     }
   }
 
@@ -11,7 +11,6 @@ import android.view.Surface;
 
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.ExoPlaybackException;
-import com.google.android.exoplayer2.ExoPlayerFactory;
 import com.google.android.exoplayer2.Format;
 import com.google.android.exoplayer2.PlaybackParameters;
 import com.google.android.exoplayer2.Player;
@@ -27,15 +26,9 @@ import com.google.android.exoplayer2.source.dash.DefaultDashChunkSource;
 import com.google.android.exoplayer2.source.hls.HlsMediaSource;
 import com.google.android.exoplayer2.source.smoothstreaming.DefaultSsChunkSource;
 import com.google.android.exoplayer2.source.smoothstreaming.SsMediaSource;
-import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
-import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
-import com.google.android.exoplayer2.trackselection.TrackSelection;
 import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
-import com.google.android.exoplayer2.trackselection.TrackSelector;
-import com.google.android.exoplayer2.upstream.BandwidthMeter;
 import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DataSpec;
-import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
 import com.google.android.exoplayer2.util.Util;
 
 import java.io.IOException;
@@ -44,6 +37,7 @@ import java.util.Map;
 import expo.modules.av.AVManagerInterface;
 import expo.modules.av.AudioFocusNotAcquiredException;
 import expo.modules.av.player.datasource.DataSourceFactoryProvider;
+import expo.modules.av.player.datasource.MediaCache;
 
 class SimpleExoPlayerData extends PlayerData
     implements Player.EventListener, ExtractorMediaSource.EventListener, SimpleExoPlayer.VideoListener, AdaptiveMediaSourceEventListener {
@@ -59,11 +53,14 @@ class SimpleExoPlayerData extends PlayerData
   private boolean mIsLooping = false;
   private boolean mIsLoading = true;
   private Context mReactContext;
+  private final ExoPlayerPool.BufferConfig mBufferConfig;
+  private boolean mHasFatalError = false;
 
-  SimpleExoPlayerData(final AVManagerInterface avModule, final Context context, final Uri uri, final String overridingExtension, final Map<String, Object> requestHeaders) {
+  SimpleExoPlayerData(final AVManagerInterface avModule, final Context context, final Uri uri, final String overridingExtension, final Map<String, Object> requestHeaders, final ExoPlayerPool.BufferConfig bufferConfig) {
     super(avModule, uri, requestHeaders);
     mReactContext = context;
     mOverridingExtension = overridingExtension;
+    mBufferConfig = bufferConfig;
   }
 
   @Override
@@ -79,15 +76,10 @@ class SimpleExoPlayerData extends PlayerData
   public void load(final Bundle status, final LoadCompletionListener loadCompletionListener) {
     mLoadCompletionListener = loadCompletionListener;
 
-    // Create a default TrackSelector
     final Handler mainHandler = new Handler();
-    // Measures bandwidth during playback. Can be null if not required.
-    final BandwidthMeter bandwidthMeter = new DefaultBandwidthMeter();
-    final TrackSelection.Factory trackSelectionFactory = new AdaptiveTrackSelection.Factory(bandwidthMeter);
-    final TrackSelector trackSelector = new DefaultTrackSelector(trackSelectionFactory);
 
-    // Create the player
-    mSimpleExoPlayer = ExoPlayerFactory.newSimpleInstance(mAVModule.getContext(), trackSelector);
+    // Reuse an idle player if possible, creating one is expensive
+    mSimpleExoPlayer = mAVModule.getExoPlayerPool().acquire(mBufferConfig);
     mSimpleExoPlayer.addListener(this);
     mSimpleExoPlayer.addVideoListener(this);
 
@@ -108,7 +100,13 @@ class SimpleExoPlayerData extends PlayerData
   @Override
   public synchronized void release() {
     if (mSimpleExoPlayer != null) {
-      mSimpleExoPlayer.release();
+      mSimpleExoPlayer.removeListener(this);
+      mSimpleExoPlayer.removeVideoListener(this);
+      if (mHasFatalError) {
+        mAVModule.getExoPlayerPool().release(mSimpleExoPlayer);
+      } else {
+        mAVModule.getExoPlayerPool().recycle(mSimpleExoPlayer, mBufferConfig);
+      }
       mSimpleExoPlayer = null;
     }
   }
@@ -321,6 +319,7 @@ class SimpleExoPlayerData extends PlayerData
   }
 
   private void onFatalError(final Throwable error) {
+    mHasFatalError = true;
     if (mLoadCompletionListener != null) {
       final LoadCompletionListener listener = mLoadCompletionListener;
       mLoadCompletionListener = null;
@@ -363,6 +362,11 @@ class SimpleExoPlayerData extends PlayerData
       case C.TYPE_HLS:
         return new HlsMediaSource(uri, factory, mainHandler, this);
       case C.TYPE_OTHER:
+        // Only progressive media goes through the cache, manifests of adaptive streams may change
+        // between requests to the same uri.
+        if (MediaCache.isCacheable(uri)) {
+          factory = MediaCache.createCachingFactory(mReactContext, factory);
+        }
         return new ExtractorMediaSource(uri, factory, new DefaultExtractorsFactory(), mainHandler, this);
       default: {
         throw new IllegalStateException("Content of this type is unsupported at the moment. Unsupported type: " + type);
@@ -0,0 +1,51 @@
+package expo.modules.av.player.datasource;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSourceFactory;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+
+import java.io.File;
+
+// Disk cache for remote media, shared by all players so that replayed, looped or preloaded media
+// doesn't have to be downloaded again. SimpleCache locks its directory, so there can only be one
+// instance of it per process.
+public class MediaCache {
+  public static final long DEFAULT_MAX_BYTES = 100 * 1024 * 1024;
+
+  private static final String DIRECTORY_NAME = "ExponentAVMediaCache";
+
+  private static SimpleCache sCache = null;
+  private static MediaCacheEvictor sEvictor = null;
+  private static long sMaxBytes = DEFAULT_MAX_BYTES;
+
+  public static synchronized Cache getInstance(Context context) {
+    if (sCache == null) {
+      sEvictor = new MediaCacheEvictor(sMaxBytes);
+      sCache = new SimpleCache(new File(context.getApplicationContext().getCacheDir(), DIRECTORY_NAME), sEvictor);
+    }
+    return sCache;
+  }
+
+  // Least recently used media is evicted right away if the cache is already larger than that.
+  public static synchronized void setMaxBytes(long maxBytes) {
+    sMaxBytes = maxBytes;
+    if (sCache != null) {
+      sEvictor.setMaxBytes(sCache, maxBytes);
+    }
+  }
+
+  public static boolean isCacheable(Uri uri) {
+    return "http".equals(uri.getScheme()) || "https".equals(uri.getScheme());
+  }
+
+  // Reads through the cache, falling back to upstreamFactory for what isn't cached yet. Any
+  // cookie or header handling of upstreamFactory still applies to the requests it makes.
+  public static DataSource.Factory createCachingFactory(Context context, DataSource.Factory upstreamFactory) {
+    return new CacheDataSourceFactory(getInstance(context), upstreamFactory, CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+  }
+}
@@ -0,0 +1,77 @@
+package expo.modules.av.player.datasource;
+
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.CacheSpan;
+
+import java.util.Comparator;
+import java.util.TreeSet;
+
+// Mainly a copy of com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor,
+// whose maximum size can't be changed once the cache has been created. Like the original, it's
+// only called by SimpleCache while holding the cache's lock.
+class MediaCacheEvictor implements CacheEvictor, Comparator<CacheSpan> {
+  private final TreeSet<CacheSpan> mLeastRecentlyUsed = new TreeSet<>(this);
+  private long mMaxBytes;
+  private long mCurrentSize = 0;
+
+  MediaCacheEvictor(long maxBytes) {
+    mMaxBytes = maxBytes;
+  }
+
+  void setMaxBytes(Cache cache, long maxBytes) {
+    synchronized (cache) {
+      mMaxBytes = maxBytes;
+      evictCache(cache, 0);
+    }
+  }
+
+  @Override
+  public void onCacheInitialized() {
+    // Do nothing.
+  }
+
+  @Override
+  public void onStartFile(Cache cache, String key, long position, long length) {
+    evictCache(cache, length);
+  }
+
+  @Override
+  public void onSpanAdded(Cache cache, CacheSpan span) {
+    mLeastRecentlyUsed.add(span);
+    mCurrentSize += span.length;
+    evictCache(cache, 0);
+  }
+
+  @Override
+  public void onSpanRemoved(Cache cache, CacheSpan span) {
+    mLeastRecentlyUsed.remove(span);
+    mCurrentSize -= span.length;
+  }
+
+  @Override
+  public void onSpanTouched(Cache cache, CacheSpan oldSpan, CacheSpan newSpan) {
+    onSpanRemoved(cache, oldSpan);
+    onSpanAdded(cache, newSpan);
+  }
+
+  @Override
+  public int compare(CacheSpan lhs, CacheSpan rhs) {
+    long lastAccessTimestampDelta = lhs.lastAccessTimestamp - rhs.lastAccessTimestamp;
+    if (lastAccessTimestampDelta == 0) {
+      // Use the standard compareTo method as a tie-break.
+      return lhs.compareTo(rhs);
+    }
+    return lhs.lastAccessTimestamp < rhs.lastAccessTimestamp ? -1 : 1;
+  }
+
+  private void evictCache(Cache cache, long requiredSpace) {
+    while (mCurrentSize + requiredSpace > mMaxBytes && !mLeastRecentlyUsed.isEmpty()) {
+      try {
+        cache.removeSpan(mLeastRecentlyUsed.first());
+      } catch (Cache.CacheException e) {
+        // Do nothing.
+      }
+    }
+  }
+}
@@ -327,7 +327,16 @@ public class VideoView extends FrameLayout implements AudioEventHandler, Fullscr
     statusToInitiallySet.putAll(mStatusToSet);
     mStatusToSet = new Bundle();
 
-    mPlayerData = PlayerData.createUnloadedPlayerData(mAVModule, getContext(), source, statusToInitiallySet);
+    try {
+      mPlayerData = PlayerData.createUnloadedPlayerData(mAVModule, getContext(), source, statusToInitiallySet);
+    } catch (IllegalArgumentException e) {
+      String error = "Invalid buffer configuration: " + e.getMessage();
+      callOnError(error);
+      if (promise != null) {
+        promise.reject("E_VIDEO_NOTCREATED", error);
+      }
+      return;
+    }
 
     mPlayerData.setErrorListener(new PlayerData.ErrorListener() {
       @Override
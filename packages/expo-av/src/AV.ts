@@ -22,13 +22,23 @@ export type PlaybackSource =
     uri: string;
     overrideFileExtensionAndroid?: string;
     headers?: { [fieldName: string]: string };
+    bufferConfigAndroid?: BufferConfigAndroid;
   }
   | Asset;
 
+// Buffer durations of the ExoPlayer playing a source, see DefaultLoadControl
+export type BufferConfigAndroid = {
+  minBufferMs?: number;
+  maxBufferMs?: number;
+  bufferForPlaybackMs?: number;
+  bufferForPlaybackAfterRebufferMs?: number;
+};
+
 export type PlaybackNativeSource = {
   uri: string;
   overridingExtension?: string | null;
   headers?: { [fieldName: string]: string };
+  bufferConfig?: BufferConfigAndroid;
 };
 
 export type PlaybackStatus =
@@ -96,6 +106,7 @@ export function getNativeSourceFromSource(
   let uri: string | null = null;
   let overridingExtension: string | null = null;
   let headers: { [fieldName: string]: string } | undefined;
+  let bufferConfig: BufferConfigAndroid | undefined;
 
   if (typeof source === 'string' && Platform.OS === 'web') {
     return {
@@ -138,7 +149,16 @@ export function getNativeSourceFromSource(
   ) {
     headers = source.headers;
   }
-  return { uri, overridingExtension, headers };
+
+  if (
+    source != null &&
+    typeof source !== 'number' &&
+    'bufferConfigAndroid' in source &&
+    typeof source.bufferConfigAndroid === 'object'
+  ) {
+    bufferConfig = source.bufferConfigAndroid;
+  }
+  return { uri, overridingExtension, headers, bufferConfig };
 }
 
 function _getAssetFromPlaybackSource(source: PlaybackSource | null): Asset | null {
@@ -1,4 +1,5 @@
 import ExponentAV from './ExponentAV';
+import { getNativeSourceFromSource, PlaybackSource } from './AV';
 
 export * from './Audio/Recording';
 export * from './Audio/Sound';
@@ -74,3 +75,33 @@ export async function setAudioModeAsync(mode: AudioMode): Promise<void> {
   }
   return await ExponentAV.setAudioMode(mode);
 }
+
+export type PreloadResult = {
+  bytesCached: number;
+  bytesDownloaded: number;
+};
+
+// Android only. Downloads the beginning of a remote media source (or all of it, if no length is
+// given) into the media cache, so that playing it later doesn't have to wait for the network.
+// With warmPlayer, an idle player is also prepared for a video that's going to play the source.
+export async function preloadAsync(
+  source: PlaybackSource,
+  options: { length?: number; warmPlayer?: boolean } = {}
+): Promise<PreloadResult> {
+  if (!ExponentAV.preload) {
+    throw new Error('Audio.preloadAsync is not supported on this platform.');
+  }
+  const nativeSource = getNativeSourceFromSource(source);
+  if (nativeSource === null) {
+    throw new Error(`Cannot preload an AV asset from a null source`);
+  }
+  return await ExponentAV.preload(nativeSource, options);
+}
+
+// Android only. Sets the maximum size in bytes of the media cache shared by all sounds and videos.
+export async function setMediaCacheSizeAsync(bytes: number): Promise<void> {
+  if (!ExponentAV.setMediaCacheSize) {
+    throw new Error('Audio.setMediaCacheSizeAsync is not supported on this platform.');
+  }
+  return await ExponentAV.setMediaCacheSize(bytes);
+}
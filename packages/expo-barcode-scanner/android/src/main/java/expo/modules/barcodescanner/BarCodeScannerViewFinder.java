@@ -1,10 +1,11 @@
 package expo.modules.barcodescanner;
 
 import android.content.Context;
+import android.graphics.ImageFormat;
 import android.graphics.SurfaceTexture;
 import android.hardware.Camera;
-import android.os.AsyncTask;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
 import android.view.TextureView;
 
@@ -26,8 +27,13 @@ class BarCodeScannerViewFinder extends TextureView implements TextureView.Surfac
   private BarCodeScannerView mBarCodeScannerView;
   private Camera mCamera;
 
-  // Concurrency lock for barcode scanner to avoid flooding the runtime
-  public static volatile boolean barCodeScannerTaskLock = false;
+  // Preview frames are scanned one at a time on a dedicated thread, frames that arrive while
+  // one is being scanned are handed straight back to the camera
+  private HandlerThread mScannerThread;
+  private Handler mScannerHandler;
+  private volatile boolean mIsScanning = false;
+  private int mPreviewWidth;
+  private int mPreviewHeight;
 
   // Scanner instance for the barcode scanning
   private BarCodeScanner mBarCodeScanner;
@@ -55,6 +61,7 @@ class BarCodeScannerViewFinder extends TextureView implements TextureView.Surfac
   public boolean onSurfaceTextureDestroyed(SurfaceTexture surface) {
     mSurfaceTexture = null;
     stopCamera();
+    stopScannerThread();
     return true;
   }
 
@@ -120,8 +127,16 @@ class BarCodeScannerViewFinder extends TextureView implements TextureView.Surfac
         mCamera.setParameters(parameters);
         mCamera.setPreviewTexture(mSurfaceTexture);
         mCamera.startPreview();
-        // send previews to `onPreviewFrame`
-        mCamera.setPreviewCallback(this);
+        // send previews to `onPreviewFrame`, in one of two buffers allocated up front, so that
+        // the camera can fill one while the other is being scanned
+        Camera.Size previewSize = mCamera.getParameters().getPreviewSize();
+        mPreviewWidth = previewSize.width;
+        mPreviewHeight = previewSize.height;
+        int bufferSize = mPreviewWidth * mPreviewHeight * ImageFormat.getBitsPerPixel(parameters.getPreviewFormat()) / 8;
+        startScannerThread();
+        mCamera.addCallbackBuffer(new byte[bufferSize]);
+        mCamera.addCallbackBuffer(new byte[bufferSize]);
+        mCamera.setPreviewCallbackWithBuffer(this);
         mBarCodeScannerView.layoutViewFinder();
       } catch (NullPointerException e) {
         e.printStackTrace();
@@ -141,7 +156,7 @@ class BarCodeScannerViewFinder extends TextureView implements TextureView.Surfac
         if (mCamera != null) {
           mCamera.stopPreview();
           // stop sending previews to `onPreviewFrame`
-          mCamera.setPreviewCallback(null);
+          mCamera.setPreviewCallbackWithBuffer(null);
           ExpoBarCodeScanner.getInstance().releaseCameraInstance();
           mCamera = null;
         }
@@ -165,58 +180,67 @@ class BarCodeScannerViewFinder extends TextureView implements TextureView.Surfac
     }
   }
 
-  public void onPreviewFrame(byte[] data, Camera camera) {
-    if (!BarCodeScannerViewFinder.barCodeScannerTaskLock) {
-      BarCodeScannerViewFinder.barCodeScannerTaskLock = true;
-      new BarCodeScannerAsyncTask(camera, data, mBarCodeScannerView).execute();
+  private synchronized void startScannerThread() {
+    // a frame that was waiting for a previous camera or thread won't be scanned anymore
+    mIsScanning = false;
+    if (mScannerThread == null) {
+      mScannerThread = new HandlerThread("ExpoBarCodeScanner");
+      mScannerThread.start();
+      mScannerHandler = new Handler(mScannerThread.getLooper());
     }
   }
 
-  public void setBarCodeScannerSettings(BarCodeScannerSettings settings) {
-    mBarCodeScanner.setSettings(settings);
+  private synchronized void stopScannerThread() {
+    if (mScannerThread != null) {
+      mScannerThread.quitSafely();
+      mScannerThread = null;
+      mScannerHandler = null;
+    }
   }
 
-  private class BarCodeScannerAsyncTask extends AsyncTask<Void, Void, Void> {
-    private byte[] mImageData;
-    private final Camera mCamera;
-
-    BarCodeScannerAsyncTask(Camera camera, byte[] imageData, BarCodeScannerView barCodeScannerView) {
-      mCamera = camera;
-      mImageData = imageData;
-      mBarCodeScannerView = barCodeScannerView;
+  public void onPreviewFrame(final byte[] data, final Camera camera) {
+    Handler scannerHandler = mScannerHandler;
+    if (mIsScanning || scannerHandler == null) {
+      camera.addCallbackBuffer(data);
+      return;
     }
-
-    @Override
-    protected Void doInBackground(Void... ignored) {
-      if (isCancelled()) {
-        return null;
+    mIsScanning = true;
+    final int width = mPreviewWidth;
+    final int height = mPreviewHeight;
+    scannerHandler.post(new Runnable() {
+      @Override
+      public void run() {
+        scanPreviewFrame(data, width, height);
+        mIsScanning = false;
+        // the buffer can be filled again, unless the camera has been released in the meantime
+        if (mCamera == camera) {
+          camera.addCallbackBuffer(data);
+        }
       }
+    });
+  }
 
-      // setting PreviewCallback does not really have an effect - this method is called anyway so we
-      // need to check if camera changing is in progress or not
-      if (!mIsChanging && mCamera != null) {
-        Camera.Size size = mCamera.getParameters().getPreviewSize();
+  public void setBarCodeScannerSettings(BarCodeScannerSettings settings) {
+    mBarCodeScanner.setSettings(settings);
+  }
 
-        int width = size.width;
-        int height = size.height;
+  private void scanPreviewFrame(byte[] data, int width, int height) {
+    // camera may be changing while the frame was waiting to be scanned
+    if (mIsChanging || mCamera == null) {
+      return;
+    }
 
-        int properRotation = ExpoBarCodeScanner.getInstance().getRotation();
+    int properRotation = ExpoBarCodeScanner.getInstance().getRotation();
 
-        final BarCodeScannerResult result = mBarCodeScanner.scan(mImageData, width,
-            height, properRotation);
+    final BarCodeScannerResult result = mBarCodeScanner.scan(data, width, height, properRotation);
 
-        if (result != null) {
-          new Handler(Looper.getMainLooper()).post(new Runnable() {
-            @Override
-            public void run() {
-              mBarCodeScannerView.onBarCodeScanned(result);
-            }
-          });
+    if (result != null) {
+      new Handler(Looper.getMainLooper()).post(new Runnable() {
+        @Override
+        public void run() {
+          mBarCodeScannerView.onBarCodeScanned(result);
         }
-      }
-
-      BarCodeScannerViewFinder.barCodeScannerTaskLock = false;
-      return null;
+      });
     }
   }
 }
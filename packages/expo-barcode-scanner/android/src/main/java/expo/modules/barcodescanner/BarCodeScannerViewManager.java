@@ -78,4 +78,12 @@ public class BarCodeScannerViewManager extends ViewManager<BarCodeScannerView> i
     }};
     view.setBarCodeScannerSettings(settings);
   }
+
+  @ExpoProp(name = "scanArea")
+  public void setScanArea(BarCodeScannerView view, final Map<String, Object> scanArea) {
+    BarCodeScannerSettings settings = new BarCodeScannerSettings() {{
+      putScanArea(scanArea);
+    }};
+    view.setBarCodeScannerSettings(settings);
+  }
 }
@@ -1,6 +1,8 @@
 package expo.modules.barcodescanner.scanners;
 
 import android.content.Context;
+import android.graphics.Rect;
+import android.graphics.RectF;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -10,11 +12,14 @@ import java.util.Set;
 
 import org.unimodules.interfaces.barcodescanner.BarCodeScanner;
 import org.unimodules.interfaces.barcodescanner.BarCodeScannerSettings;
+import org.unimodules.interfaces.barcodescanner.BarCodeScannerSettingsKey;
 
 public abstract class ExpoBarCodeScanner implements BarCodeScanner {
 
   protected Context mContext;
   protected List<Integer> mBarCodeTypes;
+  // Part of the preview to scan, normalized to [0, 1] and relative to the preview as displayed
+  protected RectF mScanArea;
 
   ExpoBarCodeScanner(Context context) {
     mContext = context;
@@ -54,5 +59,66 @@ public abstract class ExpoBarCodeScanner implements BarCodeScanner {
     return result;
   }
 
+  /**
+   * Updates the scan area if settings contain one, a null scan area means the whole preview.
+   * The area is expected as an object of x, y, width and height.
+   */
+  void updateScanArea(BarCodeScannerSettings settings) {
+    if (!settings.containsKey(BarCodeScannerSettingsKey.SCAN_AREA)) {
+      return;
+    }
+    Object scanArea = settings.getScanArea();
+    if (!(scanArea instanceof Map)) {
+      mScanArea = null;
+      return;
+    }
+    Map scanAreaMap = (Map) scanArea;
+    float x = getFloat(scanAreaMap, "x", 0);
+    float y = getFloat(scanAreaMap, "y", 0);
+    RectF area = new RectF(x, y, x + getFloat(scanAreaMap, "width", 1), y + getFloat(scanAreaMap, "height", 1));
+    if (!area.intersect(0, 0, 1, 1)) {
+      mScanArea = null;
+      return;
+    }
+    mScanArea = area;
+  }
+
+  /**
+   * Returns the scan area in pixels of a width x height image which is displayed rotated
+   * clockwise by rotation degrees, or null if the whole image should be scanned. Assumes a back
+   * camera, the area is mirrored horizontally on front cameras.
+   */
+  Rect getScanAreaInImage(int width, int height, int rotation) {
+    if (mScanArea == null) {
+      return null;
+    }
+    RectF area = rotate(mScanArea, 360 - rotation);
+    Rect imageArea = new Rect(
+        Math.round(area.left * width),
+        Math.round(area.top * height),
+        Math.round(area.right * width),
+        Math.round(area.bottom * height));
+    if (imageArea.isEmpty()) {
+      return null;
+    }
+    return imageArea;
+  }
+
+  /**
+   * Rotates a normalized rectangle clockwise by a multiple of 90 degrees.
+   */
+  static RectF rotate(RectF rect, int degrees) {
+    RectF rotated = new RectF(rect);
+    for (int i = 0; i < ((degrees % 360) + 360) % 360 / 90; i++) {
+      rotated.set(1 - rotated.bottom, rotated.left, 1 - rotated.top, rotated.right);
+    }
+    return rotated;
+  }
+
+  private static float getFloat(Map map, String key, float defaultValue) {
+    Object value = map.get(key);
+    return value instanceof Number ? ((Number) value).floatValue() : defaultValue;
+  }
+
   public abstract boolean isAvailable();
 }
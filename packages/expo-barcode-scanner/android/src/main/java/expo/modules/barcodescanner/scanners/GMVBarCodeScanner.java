@@ -5,6 +5,8 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Matrix;
 import android.graphics.Point;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.os.Bundle;
 import android.util.Log;
 import android.util.SparseArray;
@@ -21,12 +23,14 @@ import java.util.List;
 import org.unimodules.interfaces.barcodescanner.BarCodeScannerResult;
 import org.unimodules.interfaces.barcodescanner.BarCodeScannerSettings;
 import expo.modules.barcodescanner.utils.FrameFactory;
+import expo.modules.barcodescanner.utils.ImageDimensions;
 
 public class GMVBarCodeScanner extends ExpoBarCodeScanner {
 
   private String TAG = GMVBarCodeScanner.class.getSimpleName();
 
   private BarcodeDetector mBarcodeDetector;
+  private byte[] mScanAreaBuffer;
 
   public GMVBarCodeScanner(Context context) {
     super(context);
@@ -38,6 +42,10 @@ public class GMVBarCodeScanner extends ExpoBarCodeScanner {
   @Override
   public BarCodeScannerResult scan(byte[] data, int width, int height, int rotation) {
     try {
+      Rect scanArea = getScanAreaInImage(width, height, rotation);
+      if (scanArea != null && data.length >= width * height * 3 / 2) {
+        return scanArea(data, width, height, rotation, scanArea);
+      }
       List<BarCodeScannerResult> results = scan(FrameFactory.buildFrame(data, width, height, rotation));
       return results.size() > 0 ? results.get(0) : null;
     } catch (Exception e) {
@@ -51,6 +59,58 @@ public class GMVBarCodeScanner extends ExpoBarCodeScanner {
     }
   }
 
+  /**
+   * Detects barcodes only in the scan area of an NV21 frame, which is copied into a reused buffer.
+   * Results are moved back to the coordinates of the whole frame.
+   */
+  private BarCodeScannerResult scanArea(byte[] data, int width, int height, int rotation, Rect scanArea) {
+    // Chroma is subsampled by two in both directions
+    int left = scanArea.left & ~1;
+    int top = scanArea.top & ~1;
+    int areaWidth = Math.max(2, (scanArea.right - left) & ~1);
+    int areaHeight = Math.max(2, (scanArea.bottom - top) & ~1);
+    areaWidth = Math.min(areaWidth, width - left);
+    areaHeight = Math.min(areaHeight, height - top);
+
+    int areaSize = areaWidth * areaHeight * 3 / 2;
+    if (mScanAreaBuffer == null || mScanAreaBuffer.length != areaSize) {
+      mScanAreaBuffer = new byte[areaSize];
+    }
+    for (int row = 0; row < areaHeight; row++) {
+      System.arraycopy(data, (top + row) * width + left, mScanAreaBuffer, row * areaWidth, areaWidth);
+    }
+    int chromaOffset = width * height;
+    int areaChromaOffset = areaWidth * areaHeight;
+    for (int row = 0; row < areaHeight / 2; row++) {
+      System.arraycopy(data, chromaOffset + (top / 2 + row) * width + left, mScanAreaBuffer, areaChromaOffset + row * areaWidth, areaWidth);
+    }
+
+    List<BarCodeScannerResult> results = scan(FrameFactory.buildFrame(mScanAreaBuffer, areaWidth, areaHeight, rotation));
+    if (results.isEmpty()) {
+      return null;
+    }
+
+    // Detected points are relative to the upright area, which starts where the rotated area does
+    ImageDimensions dimensions = new ImageDimensions(width, height, rotation);
+    RectF uprightArea = rotate(new RectF(
+        (float) left / width,
+        (float) top / height,
+        (float) (left + areaWidth) / width,
+        (float) (top + areaHeight) / height), rotation);
+    int offsetX = Math.round(uprightArea.left * dimensions.getWidth());
+    int offsetY = Math.round(uprightArea.top * dimensions.getHeight());
+
+    BarCodeScannerResult result = results.get(0);
+    List<Integer> cornerPoints = result.getCornerPoints();
+    for (int i = 0; i < cornerPoints.size(); i++) {
+      cornerPoints.set(i, cornerPoints.get(i) + (i % 2 == 0 ? offsetX : offsetY));
+    }
+    result.setCornerPoints(cornerPoints);
+    result.setReferenceImageWidth(dimensions.getWidth());
+    result.setReferenceImageHeight(dimensions.getHeight());
+    return result;
+  }
+
   @Override
   public List<BarCodeScannerResult> scanMultiple(Bitmap bitmap) {
     return scan(FrameFactory.buildFrame(bitmap));
@@ -90,8 +150,9 @@ public class GMVBarCodeScanner extends ExpoBarCodeScanner {
 
   @Override
   public void setSettings(BarCodeScannerSettings settings) {
+    updateScanArea(settings);
     List<Integer> newBarCodeTypes = parseBarCodeTypesFromSettings(settings);
-    if (areNewAndOldBarCodeTypesEqual(newBarCodeTypes)) {
+    if (newBarCodeTypes == null || areNewAndOldBarCodeTypesEqual(newBarCodeTypes)) {
       return;
     }
 
@@ -0,0 +1,73 @@
+package expo.modules.barcodescanner.scanners;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * Luminance of a YUV preview frame as if the frame was rotated by 90 degrees clockwise. Pixels
+ * are read from the frame at their rotated coordinates, so the frame doesn't need to be copied.
+ * Left, top, width and height describe a crop rectangle in rotated coordinates.
+ */
+final class RotatedPlanarYUVLuminanceSource extends LuminanceSource {
+  private final byte[] mYuvData;
+  private final int mDataWidth;
+  private final int mDataHeight;
+  private final int mLeft;
+  private final int mTop;
+
+  RotatedPlanarYUVLuminanceSource(byte[] yuvData, int dataWidth, int dataHeight, int left, int top, int width, int height) {
+    super(width, height);
+    if (left < 0 || top < 0 || left + width > dataHeight || top + height > dataWidth) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+    mYuvData = yuvData;
+    mDataWidth = dataWidth;
+    mDataHeight = dataHeight;
+    mLeft = left;
+    mTop = top;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    readRow(y, row, 0);
+    return row;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    int width = getWidth();
+    int height = getHeight();
+    byte[] matrix = new byte[width * height];
+    for (int y = 0; y < height; y++) {
+      readRow(y, matrix, y * width);
+    }
+    return matrix;
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return true;
+  }
+
+  @Override
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    return new RotatedPlanarYUVLuminanceSource(mYuvData, mDataWidth, mDataHeight, mLeft + left, mTop + top, width, height);
+  }
+
+  // Rotated pixel (x, y) is frame pixel (y, dataHeight - 1 - x), so a rotated row is a frame
+  // column read from the bottom up.
+  private void readRow(int y, byte[] destination, int offset) {
+    int width = getWidth();
+    int index = (mDataHeight - 1 - mLeft) * mDataWidth + mTop + y;
+    for (int x = 0; x < width; x++) {
+      destination[offset + x] = mYuvData[index];
+      index -= mDataWidth;
+    }
+  }
+}
@@ -3,6 +3,7 @@ package expo.modules.barcodescanner.scanners;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Point;
+import android.graphics.Rect;
 
 import com.google.android.gms.vision.barcode.Barcode;
 import com.google.zxing.BarcodeFormat;
@@ -44,29 +45,34 @@ public class ZxingBarCodeScanner extends ExpoBarCodeScanner {
         bitmap.getWidth(), bitmap.getHeight());
     LuminanceSource source = new RGBLuminanceSource(bitmap.getWidth(), bitmap.getHeight(),intArray);
 
-    BarCodeScannerResult result = scan(source);
+    BarCodeScannerResult result = scan(source, bitmap.getWidth(), bitmap.getHeight());
     return result == null ? Collections.<BarCodeScannerResult>emptyList() : Collections.singletonList(result);
   }
 
   public BarCodeScannerResult scan(byte[] data, int width, int height, int rotation) {
+    LuminanceSource source;
     // rotate for zxing if orientation is portrait
     if (rotation == 0) {
-      byte[] rotated = new byte[data.length];
-      for (int y = 0; y < height; y++) {
-        for (int x = 0; x < width; x++) {
-          rotated[x * height + height - y - 1] = data[x + y * width];
-        }
+      // The frame is read at rotated coordinates instead of being copied. The rotated image
+      // would have to be turned back by 270 degrees to be displayed.
+      Rect scanArea = getScanAreaInImage(height, width, 270);
+      if (scanArea == null) {
+        scanArea = new Rect(0, 0, height, width);
       }
-      width = width + height;
-      height = width - height;
-      width = width - height;
-      data = rotated;
+      source = new RotatedPlanarYUVLuminanceSource(data, width, height, scanArea.left, scanArea.top, scanArea.width(), scanArea.height());
+      return scan(source, height, width);
     }
 
-    return scan(generateSourceFromImageData(data, width, height));
+    Rect scanArea = getScanAreaInImage(width, height, rotation);
+    if (scanArea == null) {
+      scanArea = new Rect(0, 0, width, height);
+    }
+    source = new PlanarYUVLuminanceSource(data, width, height, scanArea.left, scanArea.top, scanArea.width(), scanArea.height(), false);
+    return scan(source, width, height);
   }
 
-  private BarCodeScannerResult scan(LuminanceSource source) {
+  // Only the source, which may be a part of the image, is binarized and decoded
+  private BarCodeScannerResult scan(LuminanceSource source, int imageWidth, int imageHeight) {
     com.google.zxing.Result barcode = null;
     BinaryBitmap bitmap = null;
     try {
@@ -83,13 +89,14 @@ public class ZxingBarCodeScanner extends ExpoBarCodeScanner {
     }
     ArrayList<Integer> cornerPoints = new ArrayList(); // empty list
 
-    return new BarCodeScannerResult(GMV_FROM_ZXING.get(barcode.getBarcodeFormat()), barcode.getText(), cornerPoints, bitmap.getHeight(), bitmap.getWidth());
+    return new BarCodeScannerResult(GMV_FROM_ZXING.get(barcode.getBarcodeFormat()), barcode.getText(), cornerPoints, imageHeight, imageWidth);
   }
 
   @Override
   public void setSettings(BarCodeScannerSettings settings) {
+    updateScanArea(settings);
     List<Integer> newBarCodeTypes = parseBarCodeTypesFromSettings(settings);
-    if (areNewAndOldBarCodeTypesEqual(newBarCodeTypes)) {
+    if (newBarCodeTypes == null || areNewAndOldBarCodeTypesEqual(newBarCodeTypes)) {
       return;
     }
 
@@ -114,19 +121,6 @@ public class ZxingBarCodeScanner extends ExpoBarCodeScanner {
     return true;
   }
 
-  private LuminanceSource generateSourceFromImageData(byte[] imageData, int width, int height) {
-    return new PlanarYUVLuminanceSource(
-        imageData, // byte[] yuvData
-        width, // int dataWidth
-        height, // int dataHeight
-        0, // int left
-        0, // int top
-        width, // int width
-        height, // int height
-        false // boolean reverseHorizontal
-    );
-  }
-
   private static final Map<Integer, String> VALID_BARCODE_TYPES =
       Collections.unmodifiableMap(new HashMap<Integer, String>() {
         {
@@ -23,9 +23,19 @@ export type BarCodeEventCallbackArguments = {
 
 export type BarCodeScannedCallback = (params: BarCodeEvent) => void;
 
+// Part of the preview to scan for bar codes, with all values relative to the size of the
+// preview, e.g. { x: 0.25, y: 0.25, width: 0.5, height: 0.5 } for its center. Android only.
+export type BarCodeScanArea = {
+  x: number;
+  y: number;
+  width: number;
+  height: number;
+};
+
 export interface BarCodeScannerProps extends ViewProps {
   type?: 'front' | 'back' | number;
   barCodeTypes?: string[];
+  scanArea?: BarCodeScanArea;
   onBarCodeScanned: BarCodeScannedCallback;
 }
 
@@ -46,6 +56,7 @@ export class BarCodeScanner extends React.Component<BarCodeScannerProps> {
     ...ViewPropTypes,
     onBarCodeScanned: PropTypes.func,
     barCodeTypes: PropTypes.array,
+    scanArea: PropTypes.object,
     type: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
   };
 
@@ -0,0 +1,287 @@
+package expo.modules.filesystem;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the digests of files along with their size and modification time, so that hashing
+ * a file that hasn't changed since it was last hashed doesn't need to read it again. The index
+ * is persisted, a short while after it changes. There is one cache per process, shared by every
+ * module instance, since they all write the same index file. Entries are keyed by absolute path,
+ * so instances scoped to different directories don't see each other's files.
+ */
+class DigestCache {
+  private static final String TAG = DigestCache.class.getSimpleName();
+
+  static final String MD5 = "md5";
+  static final String SHA256 = "sha256";
+
+  private static final String SIZE_KEY = "size";
+  private static final String MODIFICATION_TIME_KEY = "modificationTime";
+  private static final int MAX_ENTRIES = 10000;
+  private static final long FLUSH_DELAY_MS = 1000;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String INDEX_FILE_NAME = "ExponentFileSystemDigests.json";
+
+  private static DigestCache sInstance = null;
+
+  private static class Entry {
+    final long size;
+    final long modificationTime;
+    final Map<String, String> digests = new HashMap<>();
+
+    Entry(long size, long modificationTime) {
+      this.size = size;
+      this.modificationTime = modificationTime;
+    }
+
+    boolean matches(long size, long modificationTime) {
+      return this.size == size && this.modificationTime == modificationTime;
+    }
+  }
+
+  private final AtomicFile mIndexFile;
+  private final ScheduledExecutorService mFlushExecutor = Executors.newSingleThreadScheduledExecutor();
+  private Map<String, Entry> mEntries = null;
+  private boolean mIsFlushScheduled = false;
+
+  DigestCache(File indexFile) {
+    mIndexFile = new AtomicFile(indexFile);
+  }
+
+  static synchronized DigestCache getInstance(Context context) {
+    if (sInstance == null) {
+      sInstance = new DigestCache(new File(context.getNoBackupFilesDir(), INDEX_FILE_NAME));
+    }
+    return sInstance;
+  }
+
+  /**
+   * Returns the requested digests of file, hex encoded, reading the file at most once and only
+   * for the digests that aren't known yet.
+   */
+  Map<String, String> getDigests(File file, List<String> algorithms) throws IOException {
+    // stat before reading, so that digests are never recorded for a newer version of the file
+    long size = file.length();
+    long modificationTime = file.lastModified();
+    Map<String, String> digests = new HashMap<>();
+    Map<String, MessageDigest> missingDigests = new HashMap<>();
+    synchronized (this) {
+      Entry entry = getEntries().get(file.getAbsolutePath());
+      for (String algorithm : algorithms) {
+        String digest = entry != null && entry.matches(size, modificationTime) ? entry.digests.get(algorithm) : null;
+        if (digest != null) {
+          digests.put(algorithm, digest);
+        } else {
+          missingDigests.put(algorithm, newMessageDigest(algorithm));
+        }
+      }
+    }
+    if (missingDigests.isEmpty()) {
+      return digests;
+    }
+
+    InputStream inputStream = new FileInputStream(file);
+    try {
+      update(missingDigests, inputStream);
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+    Map<String, String> computedDigests = encode(missingDigests);
+    if (file.length() == size && file.lastModified() == modificationTime) {
+      record(file.getAbsolutePath(), size, modificationTime, computedDigests);
+    } else {
+      // changed while it was read, the digests may not match any version of the file
+      Log.w(TAG, "File changed while it was hashed, not caching its digests: " + file);
+    }
+    digests.putAll(computedDigests);
+    return digests;
+  }
+
+  /**
+   * Computes the requested digests of a stream that can't be cached, e.g. one of a content uri.
+   */
+  static Map<String, String> computeDigests(InputStream inputStream, List<String> algorithms) throws IOException {
+    Map<String, MessageDigest> messageDigests = newMessageDigests(algorithms);
+    update(messageDigests, inputStream);
+    return encode(messageDigests);
+  }
+
+  static Map<String, MessageDigest> newMessageDigests(List<String> algorithms) throws IOException {
+    Map<String, MessageDigest> messageDigests = new HashMap<>();
+    for (String algorithm : algorithms) {
+      messageDigests.put(algorithm, newMessageDigest(algorithm));
+    }
+    return messageDigests;
+  }
+
+  /**
+   * Records digests of the current contents of file which were computed while it was written.
+   * Returns them hex encoded.
+   */
+  Map<String, String> put(File file, Map<String, MessageDigest> messageDigests) {
+    if (messageDigests.isEmpty()) {
+      return new HashMap<>();
+    }
+
+    Map<String, String> digests = encode(messageDigests);
+    record(file.getAbsolutePath(), file.length(), file.lastModified(), digests);
+    return digests;
+  }
+
+  private synchronized void record(String path, long size, long modificationTime, Map<String, String> digests) {
+    Entry entry = getEntries().get(path);
+    if (entry == null || !entry.matches(size, modificationTime)) {
+      entry = new Entry(size, modificationTime);
+      mEntries.put(path, entry);
+    }
+    entry.digests.putAll(digests);
+    scheduleFlush();
+  }
+
+  /**
+   * Forgets the digests of file, or of everything inside of it if it's a directory. Size and
+   * modification time don't catch every change, a file may be rewritten within the granularity
+   * of its modification time.
+   */
+  synchronized void invalidate(File file) {
+    String path = file.getAbsolutePath();
+    String directoryPrefix = path + File.separator;
+    boolean changed = false;
+    Iterator<String> paths = getEntries().keySet().iterator();
+    while (paths.hasNext()) {
+      String entryPath = paths.next();
+      if (entryPath.equals(path) || entryPath.startsWith(directoryPrefix)) {
+        paths.remove();
+        changed = true;
+      }
+    }
+    if (changed) {
+      scheduleFlush();
+    }
+  }
+
+  private static void update(Map<String, MessageDigest> messageDigests, InputStream inputStream) throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int read;
+    while ((read = inputStream.read(buffer)) != -1) {
+      for (MessageDigest messageDigest : messageDigests.values()) {
+        messageDigest.update(buffer, 0, read);
+      }
+    }
+  }
+
+  private static Map<String, String> encode(Map<String, MessageDigest> messageDigests) {
+    Map<String, String> digests = new HashMap<>();
+    for (Map.Entry<String, MessageDigest> messageDigest : messageDigests.entrySet()) {
+      digests.put(messageDigest.getKey(), String.valueOf(Hex.encodeHex(messageDigest.getValue().digest())));
+    }
+    return digests;
+  }
+
+  private static MessageDigest newMessageDigest(String algorithm) throws IOException {
+    try {
+      return MessageDigest.getInstance(SHA256.equals(algorithm) ? "SHA-256" : "MD5");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private void scheduleFlush() {
+    if (mIsFlushScheduled) {
+      return;
+    }
+    mIsFlushScheduled = true;
+    mFlushExecutor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        flush();
+      }
+    }, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void flush() {
+    mIsFlushScheduled = false;
+    FileOutputStream outputStream = null;
+    try {
+      JSONObject json = new JSONObject();
+      for (Map.Entry<String, Entry> entry : mEntries.entrySet()) {
+        JSONObject jsonEntry = new JSONObject();
+        jsonEntry.put(SIZE_KEY, entry.getValue().size);
+        jsonEntry.put(MODIFICATION_TIME_KEY, entry.getValue().modificationTime);
+        for (Map.Entry<String, String> digest : entry.getValue().digests.entrySet()) {
+          jsonEntry.put(digest.getKey(), digest.getValue());
+        }
+        json.put(entry.getKey(), jsonEntry);
+      }
+      outputStream = mIndexFile.startWrite();
+      outputStream.write(json.toString().getBytes("UTF-8"));
+      mIndexFile.finishWrite(outputStream);
+    } catch (IOException | JSONException e) {
+      Log.e(TAG, "Couldn't write digest index: " + e.getMessage());
+      if (outputStream != null) {
+        mIndexFile.failWrite(outputStream);
+      }
+    }
+  }
+
+  private Map<String, Entry> getEntries() {
+    if (mEntries != null) {
+      return mEntries;
+    }
+
+    mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > MAX_ENTRIES;
+      }
+    };
+    FileInputStream inputStream = null;
+    try {
+      inputStream = mIndexFile.openRead();
+      JSONObject json = new JSONObject(IOUtils.toString(inputStream, "UTF-8"));
+      Iterator<String> paths = json.keys();
+      while (paths.hasNext()) {
+        String path = paths.next();
+        JSONObject jsonEntry = json.getJSONObject(path);
+        Entry entry = new Entry(jsonEntry.getLong(SIZE_KEY), jsonEntry.getLong(MODIFICATION_TIME_KEY));
+        for (String algorithm : new String[]{MD5, SHA256}) {
+          if (jsonEntry.has(algorithm)) {
+            entry.digests.put(algorithm, jsonEntry.getString(algorithm));
+          }
+        }
+        mEntries.put(path, entry);
+      }
+    } catch (FileNotFoundException e) {
+      // nothing hashed yet
+    } catch (IOException | JSONException e) {
+      Log.e(TAG, "Couldn't read digest index: " + e.getMessage());
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+    return mEntries;
+  }
+}
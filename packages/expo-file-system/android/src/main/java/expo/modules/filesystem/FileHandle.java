@@ -0,0 +1,87 @@
+package expo.modules.filesystem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An open file that can be read and written in chunks at arbitrary offsets, so that large files
+ * never have to be held in memory as a whole. All accesses are positional, they neither depend on
+ * nor move a file pointer.
+ */
+class FileHandle implements Closeable {
+  private final File mFile;
+  private final RandomAccessFile mRandomAccessFile;
+  private final FileChannel mChannel;
+  private final boolean mIsWritable;
+
+  FileHandle(File file, boolean isWritable) throws IOException {
+    mFile = file;
+    mRandomAccessFile = new RandomAccessFile(file, isWritable ? "rw" : "r");
+    mChannel = mRandomAccessFile.getChannel();
+    mIsWritable = isWritable;
+  }
+
+  File getFile() {
+    return mFile;
+  }
+
+  long size() throws IOException {
+    return mChannel.size();
+  }
+
+  /**
+   * Reads up to length bytes starting at position. Returns fewer bytes only if the end of the
+   * file was reached.
+   */
+  byte[] read(long position, int length) throws IOException {
+    if (position < 0 || length < 0) {
+      throw new IOException("Position and length must not be negative.");
+    }
+    long available = Math.max(0, mChannel.size() - position);
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, available));
+    while (buffer.hasRemaining()) {
+      int read = mChannel.read(buffer, position + buffer.position());
+      if (read < 0) {
+        break;
+      }
+    }
+    if (buffer.hasRemaining()) {
+      byte[] bytes = new byte[buffer.position()];
+      System.arraycopy(buffer.array(), 0, bytes, 0, bytes.length);
+      return bytes;
+    }
+    return buffer.array();
+  }
+
+  void write(long position, byte[] bytes) throws IOException {
+    if (!mIsWritable) {
+      throw new IOException("File handle isn't writable.");
+    }
+    if (position < 0) {
+      throw new IOException("Position must not be negative.");
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      mChannel.write(buffer, position + buffer.position());
+    }
+  }
+
+  void truncate(long size) throws IOException {
+    if (!mIsWritable) {
+      throw new IOException("File handle isn't writable.");
+    }
+    mChannel.truncate(size);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (mIsWritable) {
+      mChannel.force(false);
+    }
+    mRandomAccessFile.close();
+  }
+}
@@ -9,8 +9,6 @@ import android.os.Bundle;
 import android.util.Base64;
 import android.util.Log;
 
-import org.apache.commons.codec.binary.Hex;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.json.JSONArray;
@@ -27,18 +25,27 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.CookieHandler;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.unimodules.core.ExportedModule;
 import org.unimodules.core.interfaces.ExpoMethod;
 import org.unimodules.core.ModuleRegistry;
+import org.unimodules.core.interfaces.LifecycleEventListener;
 import org.unimodules.core.interfaces.ModuleRegistryConsumer;
 import org.unimodules.core.Promise;
 import org.unimodules.core.interfaces.services.EventEmitter;
+import org.unimodules.core.interfaces.services.UIManager;
 import org.unimodules.interfaces.filesystem.FilePermissionModuleInterface;
 import org.unimodules.interfaces.filesystem.Permission;
 import okhttp3.Call;
@@ -58,19 +65,32 @@ import okio.ForwardingSource;
 import okio.Okio;
 import okio.Source;
 
-public class FileSystemModule extends ExportedModule implements ModuleRegistryConsumer {
+public class FileSystemModule extends ExportedModule implements ModuleRegistryConsumer, LifecycleEventListener {
   private static final String NAME = "ExponentFileSystem";
   private static final String TAG = FileSystemModule.class.getSimpleName();
   private static final String EXDownloadProgressEventName = "Exponent.downloadProgress";
   private static final long MIN_EVENT_DT_MS = 100;
   private static final String HEADER_KEY = "headers";
+  private static final String PARALLEL_SEGMENTS_KEY = "parallelSegments";
+  // A chunk has to be encoded for the bridge as a whole, so this bounds the memory used per call
+  private static final int MAX_CHUNK_SIZE = 8 * 1024 * 1024;
+  // Hashing is mostly bound by I/O, a few threads are enough to keep the storage busy
+  private static final int DIGEST_THREAD_COUNT = 4;
+
+  // Shared by all instances, so that reloading doesn't leave threads behind
+  private static ExecutorService sDigestExecutor = null;
 
   private ModuleRegistry mModuleRegistry;
+  private OkHttpClient mClient;
 
   private final Map<String, DownloadResumable> mDownloadResumableMap = new HashMap<>();
+  private final Map<Integer, FileHandle> mFileHandles = new HashMap<>();
+  private int mNextFileHandleId = 1;
+  private final DigestCache mDigestCache;
 
   public FileSystemModule(Context context) {
     super(context);
+    mDigestCache = DigestCache.getInstance(context);
     try {
       ensureDirExists(getContext().getFilesDir());
       ensureDirExists(getContext().getCacheDir());
@@ -82,7 +102,44 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
 
   @Override
   public void setModuleRegistry(ModuleRegistry moduleRegistry) {
+    // Unregister from old UIManager
+    if (mModuleRegistry != null && mModuleRegistry.getModule(UIManager.class) != null) {
+      mModuleRegistry.getModule(UIManager.class).unregisterLifecycleEventListener(this);
+    }
+
     mModuleRegistry = moduleRegistry;
+
+    // Register to new UIManager
+    if (mModuleRegistry != null && mModuleRegistry.getModule(UIManager.class) != null) {
+      mModuleRegistry.getModule(UIManager.class).registerLifecycleEventListener(this);
+    }
+    synchronized (this) {
+      // the cookie handler may have changed along with the registry
+      mClient = null;
+    }
+  }
+
+  @Override
+  public void onHostResume() { }
+
+  @Override
+  public void onHostPause() { }
+
+  @Override
+  public void onHostDestroy() {
+    // handles JS never closed would otherwise keep their files open for the life of the process
+    List<FileHandle> handles;
+    synchronized (mFileHandles) {
+      handles = new ArrayList<>(mFileHandles.values());
+      mFileHandles.clear();
+    }
+    for (FileHandle handle : handles) {
+      try {
+        handle.close();
+      } catch (IOException e) {
+        Log.e(TAG, "Couldn't close file handle: " + e.getMessage());
+      }
+    }
   }
 
   @Override
@@ -149,57 +206,92 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
   @ExpoMethod
   public void getInfoAsync(String uriStr, Map<String, Object> options, Promise promise) {
     try {
-      Uri uri = Uri.parse(uriStr);
-      ensurePermission(uri, Permission.READ);
-      if ("file".equals(uri.getScheme())) {
-        File file = uriToFile(uri);
-        Bundle result = new Bundle();
-        if (file.exists()) {
-          result.putBoolean("exists", true);
-          result.putBoolean("isDirectory", file.isDirectory());
-          result.putString("uri", Uri.fromFile(file).toString());
-          if (options.containsKey("md5") && (Boolean) options.get("md5")) {
-            result.putString("md5", md5(file));
+      promise.resolve(getInfo(Uri.parse(uriStr), options));
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  @ExpoMethod
+  public void getInfoManyAsync(final List<String> uriStrs, final Map<String, Object> options, final Promise promise) {
+    final Bundle[] results = new Bundle[uriStrs.size()];
+    if (results.length == 0) {
+      promise.resolve(new ArrayList<Bundle>());
+      return;
+    }
+
+    final AtomicInteger remaining = new AtomicInteger(results.length);
+    final AtomicBoolean failed = new AtomicBoolean(false);
+    ExecutorService executor = getDigestExecutor();
+    for (int i = 0; i < results.length; i++) {
+      final int index = i;
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          if (failed.get()) {
+            return;
           }
-          result.putDouble("size", file.length());
-          result.putDouble("modificationTime", 0.001 * file.lastModified());
-          promise.resolve(result);
-        } else {
-          result.putBoolean("exists", false);
-          result.putBoolean("isDirectory", false);
-          promise.resolve(result);
-        }
-      } else if ("content".equals(uri.getScheme()) || "asset".equals(uri.getScheme())) {
-        Bundle result = new Bundle();
-        try {
-          InputStream is = "content".equals(uri.getScheme()) ?
-                  getContext().getContentResolver().openInputStream(uri) :
-                  openAssetInputStream(uri);
-          if (is == null) {
-            throw new FileNotFoundException();
+          try {
+            results[index] = getInfo(Uri.parse(uriStrs.get(index)), options);
+          } catch (Exception e) {
+            if (failed.compareAndSet(false, true)) {
+              Log.e(TAG, e.getMessage());
+              promise.reject(e);
+            }
+            return;
           }
-          result.putBoolean("exists", true);
-          result.putBoolean("isDirectory", false);
-          result.putString("uri", uri.toString());
-          // NOTE: `.available()` is supposedly not a reliable source of size info, but it's been
-          //       more reliable than querying `OpenableColumns.SIZE` in practice in tests ¯\_(ツ)_/¯
-          result.putDouble("size", is.available());
-          if (options.containsKey("md5") && (Boolean) options.get("md5")) {
-            byte[] md5bytes = DigestUtils.md5(is);
-            result.putString("md5", String.valueOf(Hex.encodeHex(md5bytes)));
+          if (remaining.decrementAndGet() == 0) {
+            promise.resolve(new ArrayList<>(Arrays.asList(results)));
           }
-          promise.resolve(result);
-        } catch (FileNotFoundException e)  {
-          result.putBoolean("exists", false);
-          result.putBoolean("isDirectory", false);
-          promise.resolve(result);
         }
+      });
+    }
+  }
+
+  private Bundle getInfo(Uri uri, Map<String, Object> options) throws IOException {
+    ensurePermission(uri, Permission.READ);
+    List<String> algorithms = getRequestedDigests(options);
+    if ("file".equals(uri.getScheme())) {
+      File file = uriToFile(uri);
+      Bundle result = new Bundle();
+      if (file.exists()) {
+        result.putBoolean("exists", true);
+        result.putBoolean("isDirectory", file.isDirectory());
+        result.putString("uri", Uri.fromFile(file).toString());
+        putDigests(result, mDigestCache.getDigests(file, algorithms));
+        result.putDouble("size", file.length());
+        result.putDouble("modificationTime", 0.001 * file.lastModified());
       } else {
-        throw new IOException("Unsupported scheme for location '" + uri +  "'.");
+        result.putBoolean("exists", false);
+        result.putBoolean("isDirectory", false);
       }
-    } catch (Exception e) {
-      Log.e(TAG, e.getMessage());
-      promise.reject(e);
+      return result;
+    } else if ("content".equals(uri.getScheme()) || "asset".equals(uri.getScheme())) {
+      Bundle result = new Bundle();
+      try {
+        InputStream is = "content".equals(uri.getScheme()) ?
+                getContext().getContentResolver().openInputStream(uri) :
+                openAssetInputStream(uri);
+        if (is == null) {
+          throw new FileNotFoundException();
+        }
+        result.putBoolean("exists", true);
+        result.putBoolean("isDirectory", false);
+        result.putString("uri", uri.toString());
+        // NOTE: `.available()` is supposedly not a reliable source of size info, but it's been
+        //       more reliable than querying `OpenableColumns.SIZE` in practice in tests ¯\_(ツ)_/¯
+        result.putDouble("size", is.available());
+        // there's no stable path to cache the digests of these by
+        putDigests(result, DigestCache.computeDigests(is, algorithms));
+        is.close();
+      } catch (FileNotFoundException e)  {
+        result.putBoolean("exists", false);
+        result.putBoolean("isDirectory", false);
+      }
+      return result;
+    } else {
+      throw new IOException("Unsupported scheme for location '" + uri +  "'.");
     }
   }
 
@@ -214,8 +306,20 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
       if (options.containsKey("encoding") && options.get("encoding") instanceof String) {
         encoding = ((String)options.get("encoding")).toLowerCase();
       }
+      boolean isPositionalRead = encoding.equalsIgnoreCase("base64")
+          && options.containsKey("length") && options.containsKey("position");
       String contents;
-      if (encoding.equalsIgnoreCase("base64")) {
+      if (isPositionalRead && "file".equals(uri.getScheme())) {
+        // positional read, without going through the bytes before position
+        int length = ((Number)options.get("length")).intValue();
+        long position = ((Number)options.get("position")).longValue();
+        FileHandle handle = new FileHandle(uriToFile(uri), false);
+        try {
+          contents = Base64.encodeToString(handle.read(position, length), Base64.NO_WRAP);
+        } finally {
+          handle.close();
+        }
+      } else if (encoding.equalsIgnoreCase("base64")) {
         InputStream inputStream;
         if ("file".equals(uri.getScheme())) {
           inputStream = new FileInputStream(uriToFile(uri));
@@ -225,7 +329,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
           throw new IOException("Unsupported scheme for location '" + uri + "'.");
         }
 
-        if (options.containsKey("length") && options.containsKey("position")) {
+        if (isPositionalRead) {
           int length = ((Number)options.get("length")).intValue();
           int position = ((Number)options.get("position")).intValue();
           byte[] buffer = new byte[length];
@@ -264,6 +368,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
           encoding = ((String)options.get("encoding")).toLowerCase();
         }
 
+        mDigestCache.invalidate(uriToFile(uri));
         FileOutputStream out = new FileOutputStream(uriToFile(uri));
         if (encoding.equals("base64")) {
           byte[] bytes = Base64.decode(string, Base64.DEFAULT);
@@ -293,6 +398,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
       if ("file".equals(uri.getScheme())) {
         File file = uriToFile(uri);
         if (file.exists()) {
+          mDigestCache.invalidate(file);
           FileUtils.forceDelete(file);
           promise.resolve(null);
         } else {
@@ -331,6 +437,8 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
       if ("file".equals(fromUri.getScheme())) {
         File from = uriToFile(fromUri);
         File to = uriToFile(toUri);
+        mDigestCache.invalidate(from);
+        mDigestCache.invalidate(to);
         if (from.renameTo(to)) {
           promise.resolve(null);
         } else {
@@ -365,6 +473,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
       if ("file".equals(fromUri.getScheme())) {
         File from = uriToFile(fromUri);
         File to = uriToFile(toUri);
+        mDigestCache.invalidate(to);
         if (from.isDirectory()) {
           FileUtils.copyDirectory(from, to);
           promise.resolve(null);
@@ -373,11 +482,13 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
           promise.resolve(null);
         }
       } else if ("content".equals(fromUri.getScheme())) {
+        mDigestCache.invalidate(uriToFile(toUri));
         InputStream in = getContext().getContentResolver().openInputStream(fromUri);
         OutputStream out = new FileOutputStream(uriToFile(toUri));
         IOUtils.copy(in, out);
         promise.resolve(null);
       } else if ("asset".equals(fromUri.getScheme())) {
+        mDigestCache.invalidate(uriToFile(toUri));
         InputStream in = openAssetInputStream(fromUri);
         OutputStream out = new FileOutputStream(uriToFile(toUri));
         IOUtils.copy(in, out);
@@ -455,46 +566,50 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
         String packageName = context.getPackageName();
         int resourceId = resources.getIdentifier(url, "raw", packageName);
 
-        BufferedSource bufferedSource = Okio.buffer(Okio.source(context.getResources().openRawResource(resourceId)));
         File file = uriToFile(uri);
-        file.delete();
-        BufferedSink sink = Okio.buffer(Okio.sink(file));
-        sink.writeAll(bufferedSource);
-        sink.close();
+        Map<String, String> digests = writeToFile(Okio.source(context.getResources().openRawResource(resourceId)), file, getRequestedDigests(options));
 
         Bundle result = new Bundle();
         result.putString("uri", Uri.fromFile(file).toString());
-        if (options != null && options.containsKey("md5") && (Boolean) options.get("md5")) {
-          result.putString("md5", md5(file));
-        }
+        putDigests(result, digests);
         promise.resolve(result);
       } else if ("file".equals(uri.getScheme())) {
-        Request request = new Request.Builder().url(url).build();
-        getOkHttpClientBuilder().build().newCall(request).enqueue(new Callback() {
-          @Override
-          public void onFailure(Call call, IOException e) {
-            Log.e(TAG, e.getMessage());
-            promise.reject(e);
-          }
+        final Request request = new Request.Builder().url(url).build();
+        final File file = uriToFile(uri);
+        int parallelSegments = 1;
+        if (options != null && options.containsKey(PARALLEL_SEGMENTS_KEY)) {
+          parallelSegments = ((Number) options.get(PARALLEL_SEGMENTS_KEY)).intValue();
+        }
 
-          @Override
-          public void onResponse(Call call, Response response) throws IOException {
-            File file = uriToFile(uri);
-            file.delete();
-            BufferedSink sink = Okio.buffer(Okio.sink(file));
-            sink.writeAll(response.body().source());
-            sink.close();
-
-            Bundle result = new Bundle();
-            result.putString("uri", Uri.fromFile(file).toString());
-            if (options != null && options.containsKey("md5") && (Boolean) options.get("md5")) {
-              result.putString("md5", md5(file));
+        if (parallelSegments > 1) {
+          mDigestCache.invalidate(file);
+          new RangedDownload(getOkHttpClient(), request, file, parallelSegments, new RangedDownload.Listener() {
+            @Override
+            public void onFallback() {
+              download(request, file, options, promise);
             }
-            result.putInt("status", response.code());
-            result.putBundle("headers", translateHeaders(response.headers()));
-            promise.resolve(result);
-          }
-        });
+
+            @Override
+            public void onCompleted(File file, int status, Headers headers) {
+              try {
+                // segments arrive out of order, so they can't be hashed as they're written
+                Map<String, String> digests = mDigestCache.getDigests(file, getRequestedDigests(options));
+                promise.resolve(createDownloadResult(file, status, headers, digests));
+              } catch (IOException e) {
+                Log.e(TAG, e.getMessage());
+                promise.reject(e);
+              }
+            }
+
+            @Override
+            public void onError(Exception e) {
+              Log.e(TAG, e.getMessage());
+              promise.reject(e);
+            }
+          }).start();
+        } else {
+          download(request, file, options, promise);
+        }
       } else {
         throw new IOException("Unsupported scheme for location '" + uri +  "'.");
       }
@@ -504,6 +619,50 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
+  private void download(Request request, final File file, final Map<String, Object> options, final Promise promise) {
+    getOkHttpClient().newCall(request).enqueue(new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        Log.e(TAG, e.getMessage());
+        promise.reject(e);
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) throws IOException {
+        Map<String, String> digests = writeToFile(response.body().source(), file, getRequestedDigests(options));
+        promise.resolve(createDownloadResult(file, response.code(), response.headers(), digests));
+      }
+    });
+  }
+
+  // Computes the requested digests while the data is being written, rather than in another pass
+  // over the file afterwards
+  private Map<String, String> writeToFile(Source source, File file, List<String> algorithms) throws IOException {
+    mDigestCache.invalidate(file);
+    file.delete();
+    Map<String, MessageDigest> messageDigests = DigestCache.newMessageDigests(algorithms);
+    OutputStream outputStream = new FileOutputStream(file);
+    for (MessageDigest messageDigest : messageDigests.values()) {
+      outputStream = new DigestOutputStream(outputStream, messageDigest);
+    }
+    BufferedSink sink = Okio.buffer(Okio.sink(outputStream));
+    try {
+      sink.writeAll(source);
+    } finally {
+      sink.close();
+    }
+    return mDigestCache.put(file, messageDigests);
+  }
+
+  private Bundle createDownloadResult(File file, int status, Headers headers, Map<String, String> digests) {
+    Bundle result = new Bundle();
+    result.putString("uri", Uri.fromFile(file).toString());
+    putDigests(result, digests);
+    result.putInt("status", status);
+    result.putBundle("headers", translateHeaders(headers));
+    return result;
+  }
+
   @ExpoMethod
   public void downloadResumableStartAsync(String url, final String fileUriStr, final String uuid, final Map<String, Object> options, final String resumeData, final Promise promise) {
     try {
@@ -542,7 +701,7 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
       };
 
       OkHttpClient client =
-              getOkHttpClientBuilder()
+              getOkHttpClient().newBuilder()
                       .addNetworkInterceptor(new Interceptor() {
                         @Override public Response intercept(Chain chain) throws IOException {
                           Response originalResponse = chain.proceed(chain.request());
@@ -602,6 +761,110 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     }
   }
 
+  @ExpoMethod
+  public void openFileHandleAsync(String uriStr, Map<String, Object> options, Promise promise) {
+    try {
+      Uri uri = Uri.parse(uriStr);
+      if (!"file".equals(uri.getScheme())) {
+        throw new IOException("Unsupported scheme for location '" + uri + "'.");
+      }
+
+      boolean isWritable = options.containsKey("writable") && (Boolean) options.get("writable");
+      ensurePermission(uri, isWritable ? Permission.WRITE : Permission.READ);
+      File file = uriToFile(uri);
+      if (!isWritable && !file.isFile()) {
+        throw new FileNotFoundException("File '" + uri + "' doesn't exist.");
+      }
+
+      FileHandle handle = new FileHandle(file, isWritable);
+      int handleId;
+      synchronized (mFileHandles) {
+        handleId = mNextFileHandleId++;
+        mFileHandles.put(handleId, handle);
+      }
+
+      Bundle result = new Bundle();
+      result.putInt("handle", handleId);
+      result.putDouble("size", handle.size());
+      promise.resolve(result);
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  @ExpoMethod
+  public void readFileHandleAsync(int handleId, double position, int length, Promise promise) {
+    try {
+      if (length > MAX_CHUNK_SIZE) {
+        throw new IOException("Chunks can't be larger than " + MAX_CHUNK_SIZE + " bytes.");
+      }
+      byte[] bytes = getFileHandle(handleId).read((long) position, length);
+      promise.resolve(Base64.encodeToString(bytes, Base64.NO_WRAP));
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  @ExpoMethod
+  public void writeFileHandleAsync(int handleId, double position, String base64Chunk, Promise promise) {
+    try {
+      FileHandle handle = getFileHandle(handleId);
+      byte[] bytes = Base64.decode(base64Chunk, Base64.DEFAULT);
+      if (bytes.length > MAX_CHUNK_SIZE) {
+        throw new IOException("Chunks can't be larger than " + MAX_CHUNK_SIZE + " bytes.");
+      }
+      mDigestCache.invalidate(handle.getFile());
+      handle.write((long) position, bytes);
+      promise.resolve(bytes.length);
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  @ExpoMethod
+  public void truncateFileHandleAsync(int handleId, double size, Promise promise) {
+    try {
+      FileHandle handle = getFileHandle(handleId);
+      mDigestCache.invalidate(handle.getFile());
+      handle.truncate((long) size);
+      promise.resolve(null);
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  @ExpoMethod
+  public void closeFileHandleAsync(int handleId, Promise promise) {
+    try {
+      FileHandle handle;
+      synchronized (mFileHandles) {
+        handle = mFileHandles.remove(handleId);
+      }
+      if (handle != null) {
+        handle.close();
+      }
+      promise.resolve(null);
+    } catch (Exception e) {
+      Log.e(TAG, e.getMessage());
+      promise.reject(e);
+    }
+  }
+
+  private FileHandle getFileHandle(int handleId) throws IOException {
+    FileHandle handle;
+    synchronized (mFileHandles) {
+      handle = mFileHandles.get(handleId);
+    }
+    if (handle == null) {
+      throw new IOException("No open file handle with id " + handleId + ".");
+    }
+    return handle;
+  }
+
   private static byte[] getInputStreamBytes(InputStream inputStream) throws IOException {
     byte[] bytesResult;
     ByteArrayOutputStream byteBuffer = new ByteArrayOutputStream();
@@ -653,23 +916,30 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
         BufferedInputStream input = new BufferedInputStream(responseBody.byteStream());
         OutputStream output;
 
+        List<String> algorithms = getRequestedDigests(options);
+        // a resumed download only sees the end of the file, so it has to be hashed once complete
+        Map<String, MessageDigest> messageDigests = DigestCache.newMessageDigests(isResume ? new ArrayList<String>() : algorithms);
+        mDigestCache.invalidate(file);
+
         if (isResume) {
           output = new FileOutputStream(file, true);
         } else {
           output = new FileOutputStream(file, false);
         }
+        for (MessageDigest messageDigest : messageDigests.values()) {
+          output = new DigestOutputStream(output, messageDigest);
+        }
 
         byte[] data = new byte[1024];
         int count = 0;
         while ((count = input.read(data)) != -1) {
           output.write(data, 0, count);
         }
+        output.close();
 
         Bundle result = new Bundle();
         result.putString("uri", Uri.fromFile(file).toString());
-        if (options != null && options.containsKey("md5") && (Boolean) options.get("md5")) {
-          result.putString("md5", md5(file));
-        }
+        putDigests(result, isResume ? mDigestCache.getDigests(file, algorithms) : mDigestCache.put(file, messageDigests));
         result.putInt("status", response.code());
         result.putBundle("headers", translateHeaders(response.headers()));
 
@@ -760,22 +1030,40 @@ public class FileSystemModule extends ExportedModule implements ModuleRegistryCo
     void update(long bytesRead, long contentLength, boolean done);
   }
 
-  private OkHttpClient.Builder getOkHttpClientBuilder() {
-    CookieHandler cookieHandler = mModuleRegistry.getModule(CookieHandler.class);
-    OkHttpClient.Builder builder = new OkHttpClient.Builder();
-    if (cookieHandler != null) {
-      builder.cookieJar(new JavaNetCookieJar(cookieHandler));
+  // Shared by all downloads so that they reuse the same connection pool and dispatcher. Clients
+  // derived from it with newBuilder() share them as well.
+  private synchronized OkHttpClient getOkHttpClient() {
+    if (mClient == null) {
+      CookieHandler cookieHandler = mModuleRegistry.getModule(CookieHandler.class);
+      OkHttpClient.Builder builder = new OkHttpClient.Builder();
+      if (cookieHandler != null) {
+        builder.cookieJar(new JavaNetCookieJar(cookieHandler));
+      }
+      mClient = builder.build();
+    }
+    return mClient;
+  }
+
+  private static synchronized ExecutorService getDigestExecutor() {
+    if (sDigestExecutor == null) {
+      sDigestExecutor = Executors.newFixedThreadPool(DIGEST_THREAD_COUNT);
     }
-    return builder;
+    return sDigestExecutor;
   }
 
-  private String md5(File file) throws IOException {
-    InputStream is = new FileInputStream(file);
-    try {
-      byte[] md5bytes = DigestUtils.md5(is);
-      return String.valueOf(Hex.encodeHex(md5bytes));
-    } finally {
-      is.close();
+  private static List<String> getRequestedDigests(Map<String, Object> options) {
+    List<String> algorithms = new ArrayList<>();
+    for (String algorithm : new String[]{DigestCache.MD5, DigestCache.SHA256}) {
+      if (options != null && options.containsKey(algorithm) && (Boolean) options.get(algorithm)) {
+        algorithms.add(algorithm);
+      }
+    }
+    return algorithms;
+  }
+
+  private static void putDigests(Bundle result, Map<String, String> digests) {
+    for (Map.Entry<String, String> digest : digests.entrySet()) {
+      result.putString(digest.getKey(), digest.getValue());
     }
   }
 
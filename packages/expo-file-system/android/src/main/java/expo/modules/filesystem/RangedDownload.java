@@ -0,0 +1,235 @@
+package expo.modules.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+
+/**
+ * Downloads a file over several connections at once, each fetching a byte range of it. The
+ * destination file is preallocated and every segment is written at its own offset through
+ * positional {@link FileChannel} writes, so there's nothing to reassemble once all of them
+ * complete.
+ *
+ * The server is first probed with a single byte range request. If it doesn't support ranges, or
+ * the file is too small to benefit from more connections, the listener is told to fall back to a
+ * regular download.
+ */
+class RangedDownload {
+  interface Listener {
+    void onFallback();
+    void onCompleted(File file, int status, Headers headers);
+    void onError(Exception e);
+  }
+
+  // Below this size the extra round trip of the probe isn't worth it
+  static final long MIN_RANGED_DOWNLOAD_SIZE = 2 * 1024 * 1024;
+  // OkHttp's dispatcher runs at most 5 requests per host at once by default
+  static final int MAX_SEGMENTS = 4;
+
+  private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+)");
+  private static final int HTTP_PARTIAL_CONTENT = 206;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final OkHttpClient mClient;
+  private final Request mRequest;
+  private final File mFile;
+  private final int mSegmentCount;
+  private final Listener mListener;
+
+  private final List<Call> mCalls = new ArrayList<>();
+  private FileChannel mChannel;
+  private RandomAccessFile mRandomAccessFile;
+  private Headers mHeaders;
+  private int mPendingSegments;
+  private boolean mIsFinished = false;
+
+  RangedDownload(OkHttpClient client, Request request, File file, int segmentCount, Listener listener) {
+    mClient = client;
+    mRequest = request;
+    mFile = file;
+    mSegmentCount = Math.max(1, Math.min(segmentCount, MAX_SEGMENTS));
+    mListener = listener;
+  }
+
+  void start() {
+    Request probeRequest = mRequest.newBuilder().header("Range", "bytes=0-0").build();
+    enqueue(probeRequest, new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        fail(e);
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        long totalLength = -1;
+        try {
+          if (response.code() == HTTP_PARTIAL_CONTENT) {
+            long[] range = parseContentRange(response.header("Content-Range"));
+            totalLength = range != null ? range[2] : -1;
+          }
+        } finally {
+          response.close();
+        }
+
+        if (totalLength < MIN_RANGED_DOWNLOAD_SIZE || mSegmentCount < 2) {
+          synchronized (RangedDownload.this) {
+            mIsFinished = true;
+          }
+          mListener.onFallback();
+          return;
+        }
+        mHeaders = response.headers().newBuilder().removeAll("Content-Range").set("Content-Length", String.valueOf(totalLength)).build();
+        startSegments(totalLength);
+      }
+    });
+  }
+
+  private void startSegments(long totalLength) {
+    try {
+      mFile.delete();
+      mRandomAccessFile = new RandomAccessFile(mFile, "rw");
+      mRandomAccessFile.setLength(totalLength);
+      mChannel = mRandomAccessFile.getChannel();
+    } catch (IOException e) {
+      fail(e);
+      return;
+    }
+
+    long segmentLength = (totalLength + mSegmentCount - 1) / mSegmentCount;
+    synchronized (this) {
+      mPendingSegments = mSegmentCount;
+    }
+    for (int i = 0; i < mSegmentCount; i++) {
+      final long start = i * segmentLength;
+      final long end = Math.min(start + segmentLength, totalLength) - 1;
+      Request segmentRequest = mRequest.newBuilder().header("Range", "bytes=" + start + "-" + end).build();
+      enqueue(segmentRequest, new Callback() {
+        @Override
+        public void onFailure(Call call, IOException e) {
+          fail(e);
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+          try {
+            writeSegment(response, start, end);
+            onSegmentCompleted();
+          } catch (IOException e) {
+            fail(e);
+          } finally {
+            response.close();
+          }
+        }
+      });
+    }
+  }
+
+  private void writeSegment(Response response, long start, long end) throws IOException {
+    long[] range = parseContentRange(response.header("Content-Range"));
+    if (response.code() != HTTP_PARTIAL_CONTENT || range == null || range[0] != start || range[1] != end) {
+      throw new IOException("Server didn't honor the requested range " + start + "-" + end + ", got status " + response.code());
+    }
+
+    BufferedSource source = response.body().source();
+    byte[] bytes = new byte[BUFFER_SIZE];
+    long position = start;
+    int read;
+    while ((read = source.read(bytes)) != -1) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, read);
+      while (buffer.hasRemaining()) {
+        position += mChannel.write(buffer, position);
+      }
+      if (position > end + 1) {
+        throw new IOException("Received more data than requested for range " + start + "-" + end);
+      }
+    }
+    if (position != end + 1) {
+      throw new IOException("Received " + (position - start) + " bytes for range " + start + "-" + end);
+    }
+  }
+
+  private void onSegmentCompleted() {
+    synchronized (this) {
+      if (mIsFinished || --mPendingSegments > 0) {
+        return;
+      }
+      mIsFinished = true;
+    }
+
+    try {
+      mChannel.force(false);
+      mRandomAccessFile.close();
+    } catch (IOException e) {
+      mFile.delete();
+      mListener.onError(e);
+      return;
+    }
+    mListener.onCompleted(mFile, 200, mHeaders);
+  }
+
+  private void fail(Exception e) {
+    synchronized (this) {
+      if (mIsFinished) {
+        return;
+      }
+      mIsFinished = true;
+      for (Call call : mCalls) {
+        call.cancel();
+      }
+    }
+
+    if (mRandomAccessFile != null) {
+      try {
+        mRandomAccessFile.close();
+      } catch (IOException ignored) {
+      }
+      mFile.delete();
+    }
+    mListener.onError(e);
+  }
+
+  private void enqueue(Request request, Callback callback) {
+    Call call = mClient.newCall(request);
+    synchronized (this) {
+      if (mIsFinished) {
+        return;
+      }
+      mCalls.add(call);
+    }
+    call.enqueue(callback);
+  }
+
+  // Returns [first byte, last byte, total length] for a "bytes first-last/total" header
+  private static long[] parseContentRange(String contentRange) {
+    if (contentRange == null) {
+      return null;
+    }
+    Matcher matcher = CONTENT_RANGE_PATTERN.matcher(contentRange);
+    if (!matcher.matches()) {
+      return null;
+    }
+    try {
+      return new long[]{
+          Long.parseLong(matcher.group(1)),
+          Long.parseLong(matcher.group(2)),
+          Long.parseLong(matcher.group(3))
+      };
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
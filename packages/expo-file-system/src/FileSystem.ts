@@ -13,6 +13,7 @@ import {
   EncodingType,
   ReadingOptions,
   WritingOptions,
+  FileHandle,
   ProgressEvent,
 } from './FileSystem.types';
 
@@ -34,6 +35,7 @@ export {
   EncodingType,
   ReadingOptions,
   WritingOptions,
+  FileHandle,
   ProgressEvent,
 };
 
@@ -51,7 +53,7 @@ export const { bundledAssets, bundleDirectory } = ExponentFileSystem;
 
 export async function getInfoAsync(
   fileUri: string,
-  options: { md5?: boolean; cache?: boolean } = {}
+  options: { md5?: boolean; sha256?: boolean; cache?: boolean } = {}
 ): Promise<FileInfo> {
   if (!ExponentFileSystem.getInfoAsync) {
     throw new UnavailabilityError('expo-file-system', 'getInfoAsync');
@@ -59,6 +61,16 @@ export async function getInfoAsync(
   return await ExponentFileSystem.getInfoAsync(fileUri, options);
 }
 
+export async function getInfoManyAsync(
+  fileUris: string[],
+  options: { md5?: boolean; sha256?: boolean; cache?: boolean } = {}
+): Promise<FileInfo[]> {
+  if (!ExponentFileSystem.getInfoManyAsync) {
+    throw new UnavailabilityError('expo-file-system', 'getInfoManyAsync');
+  }
+  return await ExponentFileSystem.getInfoManyAsync(fileUris, options);
+}
+
 export async function readAsStringAsync(
   fileUri: string,
   options?: ReadingOptions
@@ -121,6 +133,53 @@ export async function readDirectoryAsync(fileUri: string): Promise<string[]> {
   return await ExponentFileSystem.readDirectoryAsync(fileUri, {});
 }
 
+export async function openFileHandleAsync(
+  fileUri: string,
+  options: { writable?: boolean } = {}
+): Promise<FileHandle> {
+  if (!ExponentFileSystem.openFileHandleAsync) {
+    throw new UnavailabilityError('expo-file-system', 'openFileHandleAsync');
+  }
+  return await ExponentFileSystem.openFileHandleAsync(fileUri, options);
+}
+
+// Chunks are read and written base64 encoded
+export async function readFileHandleAsync(
+  fileHandle: FileHandle,
+  position: number,
+  length: number
+): Promise<string> {
+  if (!ExponentFileSystem.readFileHandleAsync) {
+    throw new UnavailabilityError('expo-file-system', 'readFileHandleAsync');
+  }
+  return await ExponentFileSystem.readFileHandleAsync(fileHandle.handle, position, length);
+}
+
+export async function writeFileHandleAsync(
+  fileHandle: FileHandle,
+  position: number,
+  chunk: string
+): Promise<number> {
+  if (!ExponentFileSystem.writeFileHandleAsync) {
+    throw new UnavailabilityError('expo-file-system', 'writeFileHandleAsync');
+  }
+  return await ExponentFileSystem.writeFileHandleAsync(fileHandle.handle, position, chunk);
+}
+
+export async function truncateFileHandleAsync(fileHandle: FileHandle, size: number): Promise<void> {
+  if (!ExponentFileSystem.truncateFileHandleAsync) {
+    throw new UnavailabilityError('expo-file-system', 'truncateFileHandleAsync');
+  }
+  return await ExponentFileSystem.truncateFileHandleAsync(fileHandle.handle, size);
+}
+
+export async function closeFileHandleAsync(fileHandle: FileHandle): Promise<void> {
+  if (!ExponentFileSystem.closeFileHandleAsync) {
+    throw new UnavailabilityError('expo-file-system', 'closeFileHandleAsync');
+  }
+  return await ExponentFileSystem.closeFileHandleAsync(fileHandle.handle);
+}
+
 export async function downloadAsync(
   uri: string,
   fileUri: string,
@@ -1,7 +1,9 @@
 export type DownloadOptions = {
   md5?: boolean;
+  sha256?: boolean;
   cache?: boolean;
   headers?: { [name: string]: string };
+  parallelSegments?: number;
 };
 
 export type DownloadResult = {
@@ -9,6 +11,7 @@ export type DownloadResult = {
   status: number;
   headers: { [name: string]: string };
   md5?: string;
+  sha256?: string;
 };
 
 export type DownloadProgressCallback = (data: DownloadProgressData) => void;
@@ -33,6 +36,7 @@ export type FileInfo =
       isDirectory: boolean;
       modificationTime: number;
       md5?: string;
+      sha256?: string;
     }
   | {
       exists: false;
@@ -41,6 +45,7 @@ export type FileInfo =
       isDirectory: false;
       modificationTime: undefined;
       md5: undefined;
+      sha256: undefined;
     };
 
 export enum EncodingType {
@@ -58,6 +63,11 @@ export type WritingOptions = {
   encoding?: EncodingType | 'utf8' | 'base64';
 };
 
+export type FileHandle = {
+  handle: number;
+  size: number;
+};
+
 export type ProgressEvent = {
   uuid: string;
   data: {
@@ -75,6 +85,7 @@ export interface ExponentFileSystemModule {
   readonly bundledAssets: string | null;
   readonly bundleDirectory: string | null;
   readonly getInfoAsync?: PlatformMethod;
+  readonly getInfoManyAsync?: PlatformMethod;
   readonly readAsStringAsync?: PlatformMethod;
   readonly writeAsStringAsync?: PlatformMethod;
   readonly deleteAsync?: PlatformMethod;
@@ -85,6 +96,11 @@ export interface ExponentFileSystemModule {
   readonly downloadAsync?: PlatformMethod;
   readonly downloadResumableStartAsync?: PlatformMethod;
   readonly downloadResumablePauseAsync?: PlatformMethod;
+  readonly openFileHandleAsync?: PlatformMethod;
+  readonly readFileHandleAsync?: PlatformMethod;
+  readonly writeFileHandleAsync?: PlatformMethod;
+  readonly truncateFileHandleAsync?: PlatformMethod;
+  readonly closeFileHandleAsync?: PlatformMethod;
 
   startObserving?: () => void;
   stopObserving?: () => void;
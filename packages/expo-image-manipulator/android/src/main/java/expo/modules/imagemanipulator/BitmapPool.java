@@ -0,0 +1,82 @@
+package expo.modules.imagemanipulator;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.LinkedList;
+
+/**
+ * Keeps bitmaps that aren't needed anymore, up to a total size, so that later manipulations can
+ * draw into them instead of allocating new ones. Any bitmap that is large enough is reused, it's
+ * reconfigured to the requested size.
+ */
+class BitmapPool {
+  private final long mMaxBytes;
+  // Most recently released bitmaps first
+  private final LinkedList<Bitmap> mBitmaps = new LinkedList<>();
+  private long mSize = 0;
+
+  BitmapPool(long maxBytes) {
+    mMaxBytes = maxBytes;
+  }
+
+  /**
+   * Returns a mutable, transparent bitmap of the given size.
+   */
+  Bitmap get(int width, int height, Bitmap.Config config) {
+    Bitmap bitmap = removeSmallestFitting((long) width * height * getBytesPerPixel(config));
+    if (bitmap == null) {
+      return Bitmap.createBitmap(width, height, config);
+    }
+    bitmap.reconfigure(width, height, config);
+    bitmap.eraseColor(Color.TRANSPARENT);
+    return bitmap;
+  }
+
+  void put(Bitmap bitmap) {
+    if (bitmap.isRecycled()) {
+      return;
+    }
+    if (!bitmap.isMutable() || bitmap.getAllocationByteCount() > mMaxBytes) {
+      bitmap.recycle();
+      return;
+    }
+
+    synchronized (this) {
+      mBitmaps.addFirst(bitmap);
+      mSize += bitmap.getAllocationByteCount();
+      while (mSize > mMaxBytes) {
+        Bitmap evictedBitmap = mBitmaps.removeLast();
+        mSize -= evictedBitmap.getAllocationByteCount();
+        evictedBitmap.recycle();
+      }
+    }
+  }
+
+  private synchronized Bitmap removeSmallestFitting(long byteCount) {
+    Bitmap smallestFitting = null;
+    for (Bitmap bitmap : mBitmaps) {
+      if (bitmap.getAllocationByteCount() >= byteCount
+          && (smallestFitting == null || bitmap.getAllocationByteCount() < smallestFitting.getAllocationByteCount())) {
+        smallestFitting = bitmap;
+      }
+    }
+    if (smallestFitting != null) {
+      mBitmaps.remove(smallestFitting);
+      mSize -= smallestFitting.getAllocationByteCount();
+    }
+    return smallestFitting;
+  }
+
+  private static int getBytesPerPixel(Bitmap.Config config) {
+    switch (config) {
+      case ALPHA_8:
+        return 1;
+      case RGB_565:
+      case ARGB_4444:
+        return 2;
+      default:
+        return 4;
+    }
+  }
+}
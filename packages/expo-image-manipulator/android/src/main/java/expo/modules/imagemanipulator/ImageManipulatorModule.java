@@ -1,20 +1,27 @@
 package expo.modules.imagemanipulator;
 
+import android.content.ContentResolver;
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Matrix;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.media.ExifInterface;
 import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.Base64;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Map;
 
 import org.unimodules.core.ExportedModule;
 import org.unimodules.core.ModuleRegistry;
@@ -24,9 +31,6 @@ import org.unimodules.core.interfaces.ExpoMethod;
 import org.unimodules.core.interfaces.ModuleRegistryConsumer;
 import org.unimodules.interfaces.imageloader.ImageLoader;
 import expo.modules.imagemanipulator.arguments.Action;
-import expo.modules.imagemanipulator.arguments.ActionCrop;
-import expo.modules.imagemanipulator.arguments.ActionFlip;
-import expo.modules.imagemanipulator.arguments.ActionResize;
 import expo.modules.imagemanipulator.arguments.SaveOptions;
 
 public class ImageManipulatorModule extends ExportedModule implements ModuleRegistryConsumer {
@@ -34,6 +38,7 @@ public class ImageManipulatorModule extends ExportedModule implements ModuleRegi
   private static final String ERROR_TAG = "E_IMAGE_MANIPULATOR";
   private ModuleRegistry mModuleRegistry;
   private ImageLoader mImageLoader;
+  private final BitmapPool mBitmapPool = new BitmapPool(Runtime.getRuntime().maxMemory() / 8);
 
   public ImageManipulatorModule(Context context) {
     super(context);
@@ -69,11 +74,45 @@ public class ImageManipulatorModule extends ExportedModule implements ModuleRegi
       return;
     }
 
+    final Uri imageUri = Uri.parse(uri);
+    if (!canDecodeRegion(imageUri)) {
+      loadAndProcessBitmap(uri, manipulatorActions, manipulatorSaveOptions, promise);
+      return;
+    }
+
+    AsyncTask.execute(new Runnable() {
+      @Override
+      public void run() {
+        Bitmap bitmap;
+        try {
+          bitmap = decodeWithActions(imageUri, manipulatorActions);
+        } catch (IllegalArgumentException e) {
+          promise.reject(ERROR_TAG + "_CROP_DATA", e);
+          return;
+        } catch (IOException | RuntimeException e) {
+          // Not a format BitmapRegionDecoder supports, or e.g. a SecurityException for a content
+          // uri without a grant, let the image loader try and report the error
+          bitmap = null;
+        } catch (OutOfMemoryError e) {
+          // Decoding the whole image through the image loader would need even more memory
+          promise.reject(ERROR_TAG + "_DECODE", "Not enough memory to decode " + uri + ".", e);
+          return;
+        }
+        if (bitmap == null) {
+          loadAndProcessBitmap(uri, manipulatorActions, manipulatorSaveOptions, promise);
+          return;
+        }
+        saveBitmap(bitmap, manipulatorSaveOptions, promise);
+        mBitmapPool.put(bitmap);
+      }
+    });
+  }
 
+  private void loadAndProcessBitmap(final String uri, final ArrayList<Action> actions, final SaveOptions saveOptions, final Promise promise) {
     mImageLoader.loadImageFromURL(uri, new ImageLoader.ResultListener() {
       @Override
       public void onSuccess(@NonNull Bitmap bitmap) {
-        processBitmapWithActions(bitmap, manipulatorActions, manipulatorSaveOptions, promise);
+        processBitmapWithActions(bitmap, actions, saveOptions, promise);
       }
 
       @Override
@@ -90,60 +129,99 @@ public class ImageManipulatorModule extends ExportedModule implements ModuleRegi
     });
   }
 
-  private Bitmap resizeBitmap(Bitmap bitmap, ActionResize resize) {
-    float imageRatio = (float) bitmap.getWidth() / bitmap.getHeight();
-    int requestedWidth = resize.getWidth() != 0
-        ? resize.getWidth()
-        : resize.getHeight() != 0
-          ? (int) (resize.getHeight() * imageRatio)
-          : 0;
-    int requestedHeight = resize.getHeight() != 0
-        ? resize.getHeight()
-        : resize.getWidth() != 0
-          ? (int) (resize.getWidth() / imageRatio)
-          : 0;
-    return Bitmap.createScaledBitmap(bitmap, requestedWidth, requestedHeight, true);
-  }
-
-  private Bitmap rotateBitmap(Bitmap bitmap, Integer rotation) {
-    Matrix rotationMatrix = new Matrix();
-    rotationMatrix.postRotate(rotation);
-    return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), rotationMatrix, true);
+  // Local images can be decoded right here, unless they have to be rotated according to their
+  // EXIF orientation, which ExifInterface can only read for content uris since API 24.
+  private boolean canDecodeRegion(Uri uri) {
+    return ContentResolver.SCHEME_FILE.equals(uri.getScheme())
+        || (ContentResolver.SCHEME_CONTENT.equals(uri.getScheme()) && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N);
   }
 
-  private Bitmap flipBitmap(Bitmap bmp, ActionFlip flip) {
-    return Bitmap.createBitmap(bmp, 0, 0, bmp.getWidth(), bmp.getHeight(), flip.getRotationMatrix(), true);
-  }
-
-  private Bitmap cropBitmap(Bitmap bitmap, ActionCrop crop) throws IllegalArgumentException {
-    if (crop.getOriginX() > bitmap.getWidth()
-        || crop.getOriginX() > bitmap.getHeight()
-        || crop.getOriginX() + crop.getWidth() > bitmap.getWidth()
-        || crop.getOriginY() + crop.getHeight() > bitmap.getHeight()
-    ) {
-      throw new IllegalArgumentException("Invalid crop options has been passed. Please make sure the requested crop rectangle is inside source image.");
+  /**
+   * Decodes only the part of the image that ends up in the output, at the lowest resolution that
+   * is still enough for it, and draws it into the output bitmap in one go. Returns null if the
+   * image has to go through the image loader instead.
+   */
+  @Nullable
+  private Bitmap decodeWithActions(Uri uri, final ArrayList<Action> actions) throws IOException, IllegalArgumentException {
+    ParcelFileDescriptor fileDescriptor = getContext().getContentResolver().openFileDescriptor(uri, "r");
+    if (fileDescriptor == null) {
+      return null;
     }
-    return Bitmap.createBitmap(bitmap, crop.getOriginX(), crop.getOriginY(), crop.getWidth(), crop.getHeight());
-  }
+    try {
+      if (hasExifRotation(uri, fileDescriptor.getFileDescriptor())) {
+        return null;
+      }
+      BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(fileDescriptor.getFileDescriptor(), false);
+      try {
+        TransformPlan plan = TransformPlan.fromActions(decoder.getWidth(), decoder.getHeight(), actions);
+        Rect sourceRegion = plan.getSourceRegion(decoder.getWidth(), decoder.getHeight());
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = plan.getSampleSize(sourceRegion);
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+        // Sampled sizes are rounded down, with at least one pixel left
+        options.inBitmap = mBitmapPool.get(
+            Math.max(1, sourceRegion.width() / options.inSampleSize),
+            Math.max(1, sourceRegion.height() / options.inSampleSize),
+            Bitmap.Config.ARGB_8888);
 
-  private void processBitmapWithActions(Bitmap bitmap, final ArrayList<Action> actions, final SaveOptions saveOptions, Promise promise) {
-    for (Action action : actions) {
-      if (action.getResize() != null) {
-        bitmap = resizeBitmap(bitmap, action.getResize());
-      } else if (action.getRotate() != null) {
-        bitmap = rotateBitmap(bitmap, action.getRotate());
-      } else if (action.getFlip() != null) {
-        bitmap = flipBitmap(bitmap, action.getFlip());
-      } else if (action.getCrop() != null) {
+        Bitmap region;
         try {
-          bitmap = cropBitmap(bitmap, action.getCrop());
+          region = decoder.decodeRegion(sourceRegion, options);
         } catch (IllegalArgumentException e) {
-          promise.reject(ERROR_TAG + "_CROP_DATA", e);
-          return;
+          // The decoder can't draw into the pooled bitmap
+          mBitmapPool.put(options.inBitmap);
+          options.inBitmap = null;
+          region = decoder.decodeRegion(sourceRegion, options);
+        }
+        if (region == null) {
+          return null;
+        }
+        if (plan.isIdentity(region.getWidth(), region.getHeight())) {
+          return region;
         }
+
+        Bitmap output = mBitmapPool.get(plan.getWidth(), plan.getHeight(), Bitmap.Config.ARGB_8888);
+        plan.draw(region, sourceRegion, output);
+        mBitmapPool.put(region);
+        return output;
+      } finally {
+        decoder.recycle();
       }
+    } finally {
+      fileDescriptor.close();
     }
+  }
+
+  private boolean hasExifRotation(Uri uri, FileDescriptor fileDescriptor) throws IOException {
+    ExifInterface exifInterface = ContentResolver.SCHEME_FILE.equals(uri.getScheme())
+        ? new ExifInterface(uri.getPath())
+        : new ExifInterface(fileDescriptor);
+    int orientation = exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+    return orientation != ExifInterface.ORIENTATION_NORMAL && orientation != ExifInterface.ORIENTATION_UNDEFINED;
+  }
+
+  private void processBitmapWithActions(Bitmap bitmap, final ArrayList<Action> actions, final SaveOptions saveOptions, Promise promise) {
+    TransformPlan plan;
+    try {
+      plan = TransformPlan.fromActions(bitmap.getWidth(), bitmap.getHeight(), actions);
+    } catch (IllegalArgumentException e) {
+      promise.reject(ERROR_TAG + "_CROP_DATA", e);
+      return;
+    }
+    if (plan.isIdentity(bitmap.getWidth(), bitmap.getHeight())) {
+      saveBitmap(bitmap, saveOptions, promise);
+      return;
+    }
+
+    // The loaded bitmap belongs to the image loader, only the output can be reused
+    Bitmap output = mBitmapPool.get(plan.getWidth(), plan.getHeight(), Bitmap.Config.ARGB_8888);
+    plan.draw(bitmap, new Rect(0, 0, bitmap.getWidth(), bitmap.getHeight()), output);
+    saveBitmap(output, saveOptions, promise);
+    mBitmapPool.put(output);
+  }
 
+  private void saveBitmap(Bitmap bitmap, final SaveOptions saveOptions, Promise promise) {
     int compression = (int) (saveOptions.getCompress() * 100);
 
     FileOutputStream out = null;
@@ -153,12 +231,15 @@ public class ImageManipulatorModule extends ExportedModule implements ModuleRegi
     try {
       path = FileUtils.generateOutputPath(getContext().getCacheDir(), "ImageManipulator", saveOptions.getFormat().getFileExtension());
       out = new FileOutputStream(path);
-      bitmap.compress(saveOptions.getFormat().getCompressFormat(), compression, out);
 
       if (saveOptions.hasBase64()) {
+        // Compress only once, the file gets the same bytes
         byteOut = new ByteArrayOutputStream();
         bitmap.compress(saveOptions.getFormat().getCompressFormat(), compression, byteOut);
+        byteOut.writeTo(out);
         base64String = Base64.encodeToString(byteOut.toByteArray(), Base64.DEFAULT);
+      } else {
+        bitmap.compress(saveOptions.getFormat().getCompressFormat(), compression, out);
       }
     } catch (Exception e) {
       e.printStackTrace();
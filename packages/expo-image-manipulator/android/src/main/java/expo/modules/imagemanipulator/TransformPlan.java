@@ -0,0 +1,171 @@
+package expo.modules.imagemanipulator;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import java.util.List;
+
+import expo.modules.imagemanipulator.arguments.Action;
+import expo.modules.imagemanipulator.arguments.ActionCrop;
+import expo.modules.imagemanipulator.arguments.ActionFlip;
+import expo.modules.imagemanipulator.arguments.ActionResize;
+
+/**
+ * Fuses a list of actions into a single transform from the source image to the output image, so
+ * that the source is drawn only once instead of creating a full bitmap per action. Sizes are
+ * computed the same way Bitmap.createBitmap and Bitmap.createScaledBitmap would for each action.
+ */
+class TransformPlan {
+  // Maps source image coordinates to output image coordinates
+  private final Matrix mMatrix = new Matrix();
+  private int mWidth;
+  private int mHeight;
+
+  private TransformPlan(int sourceWidth, int sourceHeight) {
+    mWidth = sourceWidth;
+    mHeight = sourceHeight;
+  }
+
+  static TransformPlan fromActions(int sourceWidth, int sourceHeight, List<Action> actions) throws IllegalArgumentException {
+    TransformPlan plan = new TransformPlan(sourceWidth, sourceHeight);
+    for (Action action : actions) {
+      if (action.getResize() != null) {
+        plan.resize(action.getResize());
+      } else if (action.getRotate() != null) {
+        plan.rotate(action.getRotate());
+      } else if (action.getFlip() != null) {
+        plan.flip(action.getFlip());
+      } else if (action.getCrop() != null) {
+        plan.crop(action.getCrop());
+      }
+    }
+    return plan;
+  }
+
+  int getWidth() {
+    return mWidth;
+  }
+
+  int getHeight() {
+    return mHeight;
+  }
+
+  /**
+   * Whether the output is just the source image, unchanged.
+   */
+  boolean isIdentity(int sourceWidth, int sourceHeight) {
+    return mMatrix.isIdentity() && mWidth == sourceWidth && mHeight == sourceHeight;
+  }
+
+  /**
+   * Returns the part of the source image that ends up in the output.
+   */
+  Rect getSourceRegion(int sourceWidth, int sourceHeight) {
+    Matrix inverse = new Matrix();
+    mMatrix.invert(inverse);
+    RectF region = new RectF(0, 0, mWidth, mHeight);
+    inverse.mapRect(region);
+    Rect sourceRegion = new Rect();
+    region.roundOut(sourceRegion);
+    if (!sourceRegion.intersect(0, 0, sourceWidth, sourceHeight)) {
+      // Only transparent pixels end up in the output, e.g. a corner of a rotated image
+      sourceRegion.set(0, 0, 1, 1);
+    }
+    return sourceRegion;
+  }
+
+  /**
+   * Returns the largest power of two the source can be subsampled by, so that it still has at
+   * least as many pixels as the output wherever it's drawn.
+   */
+  int getSampleSize(Rect sourceRegion) {
+    float[] vectors = {1, 0, 0, 1};
+    mMatrix.mapVectors(vectors);
+    float scale = Math.min(
+        (float) Math.hypot(vectors[0], vectors[1]),
+        (float) Math.hypot(vectors[2], vectors[3]));
+    int sampleSize = 1;
+    while (sampleSize * 2 * scale <= 1
+        && sampleSize * 2 <= sourceRegion.width()
+        && sampleSize * 2 <= sourceRegion.height()) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+
+  /**
+   * Draws source, which holds sourceRegion of the source image at any resolution, into target,
+   * which must be of the output size.
+   */
+  void draw(Bitmap source, Rect sourceRegion, Bitmap target) {
+    Matrix matrix = new Matrix();
+    matrix.setScale(
+        (float) sourceRegion.width() / source.getWidth(),
+        (float) sourceRegion.height() / source.getHeight());
+    matrix.postTranslate(sourceRegion.left, sourceRegion.top);
+    matrix.postConcat(mMatrix);
+
+    Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    paint.setAntiAlias(!mMatrix.rectStaysRect());
+    Canvas canvas = new Canvas(target);
+    canvas.drawBitmap(source, matrix, paint);
+    canvas.setBitmap(null);
+  }
+
+  private void resize(ActionResize resize) {
+    float imageRatio = (float) mWidth / mHeight;
+    int requestedWidth = resize.getWidth() != 0
+        ? resize.getWidth()
+        : resize.getHeight() != 0
+          ? (int) (resize.getHeight() * imageRatio)
+          : mWidth;
+    int requestedHeight = resize.getHeight() != 0
+        ? resize.getHeight()
+        : resize.getWidth() != 0
+          ? (int) (resize.getWidth() / imageRatio)
+          : mHeight;
+    requestedWidth = Math.max(1, requestedWidth);
+    requestedHeight = Math.max(1, requestedHeight);
+    mMatrix.postScale((float) requestedWidth / mWidth, (float) requestedHeight / mHeight);
+    mWidth = requestedWidth;
+    mHeight = requestedHeight;
+  }
+
+  private void rotate(int rotation) {
+    Matrix rotationMatrix = new Matrix();
+    rotationMatrix.postRotate(rotation);
+    transform(rotationMatrix);
+  }
+
+  private void flip(ActionFlip flip) {
+    transform(flip.getRotationMatrix());
+  }
+
+  private void crop(ActionCrop crop) throws IllegalArgumentException {
+    if (crop.getOriginX() > mWidth
+        || crop.getOriginX() > mHeight
+        || crop.getOriginX() + crop.getWidth() > mWidth
+        || crop.getOriginY() + crop.getHeight() > mHeight
+    ) {
+      throw new IllegalArgumentException("Invalid crop options has been passed. Please make sure the requested crop rectangle is inside source image.");
+    }
+    mMatrix.postTranslate(-crop.getOriginX(), -crop.getOriginY());
+    mWidth = crop.getWidth();
+    mHeight = crop.getHeight();
+  }
+
+  // Applies matrix to the current image and moves the result back to the origin, like
+  // Bitmap.createBitmap does.
+  private void transform(Matrix matrix) {
+    RectF bounds = new RectF(0, 0, mWidth, mHeight);
+    matrix.mapRect(bounds);
+    mMatrix.postConcat(matrix);
+    mMatrix.postTranslate(-bounds.left, -bounds.top);
+    mWidth = Math.round(bounds.width());
+    mHeight = Math.round(bounds.height());
+  }
+}
@@ -40,6 +40,16 @@ public class BarometerModule extends BaseSensorModule {
     return map;
   }
 
+  @Override
+  protected int getSampleSize() {
+    return 1;
+  }
+
+  @Override
+  protected void writeSample(SensorEvent sensorEvent, double[] values, int offset) {
+    values[offset] = sensorEvent.values[0];
+  }
+
   @ExpoMethod
   public void startObserving(Promise promise) {
     super.startObserving();
@@ -58,6 +68,11 @@ public class BarometerModule extends BaseSensorModule {
     promise.resolve(null);
   }
 
+  @ExpoMethod
+  public void setBatchInterval(int batchInterval, Promise promise) {
+    super.setBatchInterval(batchInterval, promise);
+  }
+
   @ExpoMethod
   public void isAvailableAsync(Promise promise) {
     SensorManager mSensorManager = (SensorManager) getContext().getSystemService(Context.SENSOR_SERVICE);
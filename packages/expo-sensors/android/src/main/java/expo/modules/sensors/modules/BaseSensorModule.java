@@ -5,10 +5,13 @@ import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener2;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import org.unimodules.core.ExportedModule;
 import org.unimodules.core.ModuleRegistry;
+import org.unimodules.core.Promise;
 import org.unimodules.core.interfaces.LifecycleEventListener;
 import org.unimodules.core.interfaces.ModuleRegistryConsumer;
 import org.unimodules.core.interfaces.services.EventEmitter;
@@ -21,10 +24,43 @@ public abstract class BaseSensorModule extends ExportedModule implements SensorE
   private ModuleRegistry mModuleRegistry;
   private boolean mIsObserving = false;
 
+  // Batching state, only accessed on the main thread which receives sensor events
+  private static final int MAX_BATCH_SIZE = 512;
+  private final Handler mBatchHandler = new Handler(Looper.getMainLooper());
+  private SensorSampleBatch mSampleBatch = null;
+  private long mBatchIntervalMs = 0;
+  private boolean mIsBatchFlushScheduled = false;
+  private final Runnable mFlushBatchRunnable = new Runnable() {
+    @Override
+    public void run() {
+      mIsBatchFlushScheduled = false;
+      flushBatch();
+    }
+  };
+
   protected abstract String getEventName();
   protected abstract SensorService getSensorService();
   protected abstract Bundle eventToMap(SensorEvent sensorEvent);
 
+  /**
+   * Number of values written by {@link #writeSample(SensorEvent, double[], int)}, modules
+   * returning 0 don't support batching.
+   */
+  protected int getSampleSize() {
+    return 0;
+  }
+
+  /**
+   * Writes the same values {@link #eventToMap(SensorEvent)} would put in the event map to
+   * values, starting at offset.
+   */
+  protected void writeSample(SensorEvent sensorEvent, double[] values, int offset) {
+  }
+
+  protected String getBatchEventName() {
+    return getEventName() + "Batch";
+  }
+
   BaseSensorModule(Context context) {
     super(context);
   }
@@ -50,11 +86,36 @@ public abstract class BaseSensorModule extends ExportedModule implements SensorE
 
   @Override
   public void onSensorChanged(SensorEvent sensorEvent) {
+    if (mSampleBatch != null) {
+      addToBatch(sensorEvent);
+      return;
+    }
+    emit(getEventName(), eventToMap(sensorEvent));
+  }
+
+  private void emit(String eventName, Bundle eventBody) {
     EventEmitter eventEmitter = mModuleRegistry.getModule(EventEmitter.class);
     if (eventEmitter != null) {
-      eventEmitter.emit(getEventName(), eventToMap(sensorEvent));
+      eventEmitter.emit(eventName, eventBody);
     } else {
-      Log.e("E_SENSOR_MODULE", "Could not emit " + getEventName() + " event, no event emitter present.");
+      Log.e("E_SENSOR_MODULE", "Could not emit " + eventName + " event, no event emitter present.");
+    }
+  }
+
+  private void addToBatch(SensorEvent sensorEvent) {
+    writeSample(sensorEvent, mSampleBatch.getValues(), mSampleBatch.nextSampleOffset());
+    mSampleBatch.commitSample(sensorEvent.timestamp / 1e6);
+    if (mSampleBatch.isFull()) {
+      flushBatch();
+    } else if (!mIsBatchFlushScheduled) {
+      mIsBatchFlushScheduled = true;
+      mBatchHandler.postDelayed(mFlushBatchRunnable, mBatchIntervalMs);
+    }
+  }
+
+  private void flushBatch() {
+    if (mSampleBatch != null && !mSampleBatch.isEmpty()) {
+      emit(getBatchEventName(), mSampleBatch.drainToBundle());
     }
   }
 
@@ -72,6 +133,32 @@ public abstract class BaseSensorModule extends ExportedModule implements SensorE
     getSensorKernelServiceSubscription().setUpdateInterval(updateInterval);
   }
 
+  /**
+   * Enables batching when batchInterval is positive. Samples are then delivered as a single
+   * {@link #getBatchEventName()} event every batchInterval milliseconds, holding the timestamps
+   * and the packed values of all samples received in between, instead of one event per sample.
+   * Rejects the promise if the module doesn't support batching.
+   */
+  public void setBatchInterval(final int batchInterval, Promise promise) {
+    if (getSampleSize() == 0) {
+      promise.reject("E_SENSOR_BATCHING_UNSUPPORTED", getName() + " does not support batching.");
+      return;
+    }
+    mBatchHandler.post(new Runnable() {
+      @Override
+      public void run() {
+        flushBatch();
+        mBatchIntervalMs = batchInterval;
+        mSampleBatch = batchInterval > 0 ? new SensorSampleBatch(getSampleSize(), MAX_BATCH_SIZE) : null;
+      }
+    });
+    promise.resolve(null);
+  }
+
+  private void flushBatchAsync() {
+    mBatchHandler.post(mFlushBatchRunnable);
+  }
+
   private SensorServiceSubscription getSensorKernelServiceSubscription() {
     if (mSensorServiceSubscription != null) {
       return mSensorServiceSubscription;
@@ -89,6 +176,7 @@ public abstract class BaseSensorModule extends ExportedModule implements SensorE
   public void stopObserving() {
     mIsObserving = false;
     getSensorKernelServiceSubscription().stop();
+    flushBatchAsync();
   }
 
   @Override
@@ -101,6 +189,7 @@ public abstract class BaseSensorModule extends ExportedModule implements SensorE
   @Override
   public void onHostPause() {
     getSensorKernelServiceSubscription().stop();
+    flushBatchAsync();
   }
 
   @Override
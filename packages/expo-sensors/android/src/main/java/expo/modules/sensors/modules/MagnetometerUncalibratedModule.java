@@ -41,6 +41,18 @@ public class MagnetometerUncalibratedModule extends BaseSensorModule {
     return map;
   }
 
+  @Override
+  protected int getSampleSize() {
+    return 3;
+  }
+
+  @Override
+  protected void writeSample(SensorEvent sensorEvent, double[] values, int offset) {
+    values[offset] = sensorEvent.values[0];
+    values[offset + 1] = sensorEvent.values[1];
+    values[offset + 2] = sensorEvent.values[2];
+  }
+
   @ExpoMethod
   public void startObserving(Promise promise) {
     super.startObserving();
@@ -59,6 +71,11 @@ public class MagnetometerUncalibratedModule extends BaseSensorModule {
     promise.resolve(null);
   }
 
+  @ExpoMethod
+  public void setBatchInterval(int batchInterval, Promise promise) {
+    super.setBatchInterval(batchInterval, promise);
+  }
+
   @ExpoMethod
   public void isAvailableAsync(Promise promise) {
     SensorManager mSensorManager = (SensorManager) getContext().getSystemService(Context.SENSOR_SERVICE);
@@ -0,0 +1,69 @@
+// Copyright 2015-present 650 Industries. All rights reserved.
+
+package expo.modules.sensors.modules;
+
+import android.os.Bundle;
+
+/**
+ * Fixed-capacity buffer of sensor samples stored in primitive arrays, so that accumulating
+ * samples between two flushes doesn't allocate. Every sample consists of a timestamp and
+ * sampleSize values, which are packed one after another when the batch is converted to a Bundle.
+ */
+class SensorSampleBatch {
+  private final int mSampleSize;
+  private final double[] mTimestamps;
+  private final double[] mValues;
+  private int mCount = 0;
+
+  SensorSampleBatch(int sampleSize, int capacity) {
+    mSampleSize = sampleSize;
+    mTimestamps = new double[capacity];
+    mValues = new double[capacity * sampleSize];
+  }
+
+  int getSampleSize() {
+    return mSampleSize;
+  }
+
+  double[] getValues() {
+    return mValues;
+  }
+
+  /**
+   * Returns the offset in {@link #getValues()} at which the values of the next sample should be
+   * written, after which the sample has to be committed with {@link #commitSample(double)}.
+   */
+  int nextSampleOffset() {
+    return mCount * mSampleSize;
+  }
+
+  void commitSample(double timestamp) {
+    mTimestamps[mCount++] = timestamp;
+  }
+
+  boolean isEmpty() {
+    return mCount == 0;
+  }
+
+  boolean isFull() {
+    return mCount == mTimestamps.length;
+  }
+
+  /**
+   * Copies the samples into a Bundle and empties the batch.
+   */
+  Bundle drainToBundle() {
+    double[] timestamps = new double[mCount];
+    double[] values = new double[mCount * mSampleSize];
+    System.arraycopy(mTimestamps, 0, timestamps, 0, timestamps.length);
+    System.arraycopy(mValues, 0, values, 0, values.length);
+
+    Bundle batch = new Bundle();
+    batch.putInt("count", mCount);
+    batch.putInt("sampleSize", mSampleSize);
+    batch.putDoubleArray("timestamps", timestamps);
+    batch.putDoubleArray("values", values);
+    mCount = 0;
+    return batch;
+  }
+}
@@ -1,7 +1,19 @@
-import { EventEmitter, Subscription, Platform } from '@unimodules/core';
+import { EventEmitter, Subscription, Platform, UnavailabilityError } from '@unimodules/core';
 
 type Listener<E> = (event: E) => void;
 
+/**
+ * Samples delivered together while batching is enabled, see `setBatchInterval`. The values of
+ * all samples are packed one after another, `sampleSize` values per sample, in the order of the
+ * fields of a single measurement.
+ */
+export type SensorBatch = {
+  count: number;
+  sampleSize: number;
+  timestamps: number[];
+  values: number[];
+};
+
 type NativeSensorModule = any;
 
 /**
@@ -13,16 +25,32 @@ export default class DeviceSensor<M> {
   _nativeEmitter: EventEmitter;
   _nativeEventName: string;
   _listenerCount: number;
+  _batchSubscriptions: Set<Subscription>;
 
   constructor(nativeSensorModule: NativeSensorModule, nativeEventName: string) {
     this._nativeModule = nativeSensorModule;
     this._nativeEmitter = new EventEmitter(nativeSensorModule);
     this._nativeEventName = nativeEventName;
     this._listenerCount = 0;
+    this._batchSubscriptions = new Set();
   }
 
   addListener(listener: Listener<M>): Subscription {
-    let subscription = this._nativeEmitter.addListener(this._nativeEventName, listener);
+    return this._addListener(this._nativeEventName, listener);
+  }
+
+  /**
+   * Adds a listener for the samples delivered while batching is enabled. Listeners added with
+   * `addListener` don't receive those samples.
+   */
+  addBatchListener(listener: Listener<SensorBatch>): Subscription {
+    const subscription = this._addListener(this._nativeEventName + 'Batch', listener);
+    this._batchSubscriptions.add(subscription);
+    return subscription;
+  }
+
+  _addListener<E>(eventName: string, listener: Listener<E>): Subscription {
+    let subscription = this._nativeEmitter.addListener(eventName, listener);
     subscription.remove = () => this.removeSubscription(subscription);
     this._listenerCount++;
     return subscription;
@@ -39,9 +67,15 @@ export default class DeviceSensor<M> {
   removeAllListeners(): void {
     this._listenerCount = 0;
     this._nativeEmitter.removeAllListeners(this._nativeEventName);
+    // Only if there are any, the emitter stops observing every time it ends up without listeners
+    if (this._batchSubscriptions.size) {
+      this._batchSubscriptions.clear();
+      this._nativeEmitter.removeAllListeners(this._nativeEventName + 'Batch');
+    }
   }
 
   removeSubscription(subscription: Subscription): void {
+    this._batchSubscriptions.delete(subscription);
     this._listenerCount--;
     this._nativeEmitter.removeSubscription(subscription);
   }
@@ -53,6 +87,19 @@ export default class DeviceSensor<M> {
       this._nativeModule.setUpdateInterval(intervalMs);
     }
   }
+
+  /**
+   * Delivers samples to the listeners added with `addBatchListener` every `intervalMs`
+   * milliseconds, instead of one event per sample. 0 turns batching off again. Rejects if the
+   * sensor doesn't support batching.
+   */
+  async setBatchInterval(intervalMs: number): Promise<void> {
+    if (!this._nativeModule.setBatchInterval) {
+      throw new UnavailabilityError(this._nativeModule.name || 'DeviceSensor', 'setBatchInterval');
+    }
+    await this._nativeModule.setBatchInterval(intervalMs);
+  }
+
   async isAvailableAsync(): Promise<boolean> {
     if (!this._nativeModule.isAvailableAsync) {
       return false;
@@ -126,12 +126,41 @@ it(`doesn't fail when a subscription is removed twice`, () => {
   expect(() => sensor.removeSubscription(subscription)).not.toThrow();
 });
 
+it(`counts batch listeners and removes them with the other listeners`, () => {
+  mockPlatformAndroid();
+  const nativeModule = new MockNativeSensorModule();
+  const sensor = new DeviceSensor(nativeModule, 'mockDidUpdate');
+
+  const subscription = sensor.addBatchListener(() => {});
+  expect(nativeModule.startObserving).toHaveBeenCalledTimes(1);
+  sensor.addListener(() => {});
+  sensor.addBatchListener(() => {});
+  expect(sensor.getListenerCount()).toBe(3);
+
+  subscription.remove();
+  expect(sensor.getListenerCount()).toBe(2);
+  sensor.removeAllListeners();
+  expect(sensor.hasListeners()).toBe(false);
+  expect(nativeModule.stopObserving).toHaveBeenCalledTimes(1);
+});
+
+it(`sets the batch interval or rejects if batching isn't supported`, async () => {
+  const nativeModule = new MockNativeSensorModule();
+  const sensor = new DeviceSensor(nativeModule, 'mockDidUpdate');
+  await sensor.setBatchInterval(100);
+  expect(nativeModule.setBatchInterval).toHaveBeenLastCalledWith(100);
+
+  delete nativeModule.setBatchInterval;
+  await expect(sensor.setBatchInterval(100)).rejects.toThrow();
+});
+
 class MockNativeSensorModule {
   addListener = jest.fn(async () => {});
   removeListeners = jest.fn(async () => {});
   startObserving = jest.fn(async () => {});
   stopObserving = jest.fn(async () => {});
   setUpdateInterval = jest.fn(async () => {});
+  setBatchInterval = jest.fn(async () => {});
 }
 
 function _countRemovedListeners(nativeModule) {
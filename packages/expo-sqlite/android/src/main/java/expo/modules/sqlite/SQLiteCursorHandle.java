@@ -0,0 +1,142 @@
+// Copyright 2015-present 650 Industries. All rights reserved.
+package expo.modules.sqlite;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An open SELECT whose rows are handed to JS a page at a time. Pages are encoded column-major:
+ * a column that holds only numbers becomes a double[], one that holds only strings a String[],
+ * and anything else (e.g. a column with nulls) falls back to a list of values.
+ * Only one page is materialized at a time, the rest of the result stays in SQLite. The arrays of
+ * a page grow with the rows actually read, not with the number of rows JS asked for.
+ */
+class SQLiteCursorHandle {
+  private static final int INITIAL_PAGE_CAPACITY = 64;
+
+  private final String mDatabaseName;
+  private final Cursor mCursor;
+  private final int mNumColumns;
+  private boolean mIsDone;
+
+  SQLiteCursorHandle(String databaseName, Cursor cursor) {
+    mDatabaseName = databaseName;
+    mCursor = cursor;
+    mNumColumns = cursor.getColumnCount();
+  }
+
+  String getDatabaseName() {
+    return mDatabaseName;
+  }
+
+  List<String> getColumnNames() {
+    return Arrays.asList(mCursor.getColumnNames());
+  }
+
+  /**
+   * Returns `[numRows, isDone, columns]` for at most `maxRows` rows following the previous page.
+   */
+  List<Object> fetch(int maxRows) {
+    int capacity = Math.min(maxRows, INITIAL_PAGE_CAPACITY);
+    byte[][] types = new byte[mNumColumns][capacity];
+    double[][] numbers = new double[mNumColumns][];
+    Object[][] values = new Object[mNumColumns][];
+
+    int numRows = 0;
+    while (numRows < maxRows && !mIsDone) {
+      if (!mCursor.moveToNext()) {
+        mIsDone = true;
+        break;
+      }
+      if (numRows == capacity) {
+        capacity = (int) Math.min((long) capacity * 2, maxRows);
+        for (int j = 0; j < mNumColumns; j++) {
+          types[j] = Arrays.copyOf(types[j], capacity);
+          if (numbers[j] != null) {
+            numbers[j] = Arrays.copyOf(numbers[j], capacity);
+          }
+          if (values[j] != null) {
+            values[j] = Arrays.copyOf(values[j], capacity);
+          }
+        }
+      }
+      for (int j = 0; j < mNumColumns; j++) {
+        int type = mCursor.getType(j);
+        types[j][numRows] = (byte) type;
+        if (type == Cursor.FIELD_TYPE_INTEGER || type == Cursor.FIELD_TYPE_FLOAT) {
+          if (numbers[j] == null) {
+            numbers[j] = new double[capacity];
+          }
+          numbers[j][numRows] = mCursor.getDouble(j);
+        } else if (type != Cursor.FIELD_TYPE_NULL) {
+          if (values[j] == null) {
+            values[j] = new Object[capacity];
+          }
+          values[j][numRows] = getValue(type, j);
+        }
+      }
+      numRows++;
+    }
+
+    List<Object> columns = new ArrayList<>(mNumColumns);
+    for (int j = 0; j < mNumColumns; j++) {
+      columns.add(encodeColumn(numRows, types[j], numbers[j], values[j]));
+    }
+
+    List<Object> page = new ArrayList<>(3);
+    page.add(numRows);
+    page.add(mIsDone);
+    page.add(columns);
+    return page;
+  }
+
+  void close() {
+    mCursor.close();
+  }
+
+  private Object getValue(int type, int index) {
+    switch (type) {
+      case Cursor.FIELD_TYPE_BLOB:
+        // same binary string representation as results of `exec`
+        return new String(mCursor.getBlob(index));
+      case Cursor.FIELD_TYPE_STRING:
+        return mCursor.getString(index);
+    }
+    return null;
+  }
+
+  private static Object encodeColumn(int numRows, byte[] types, double[] numbers, Object[] values) {
+    boolean onlyNumbers = true;
+    boolean onlyStrings = true;
+    for (int i = 0; i < numRows; i++) {
+      onlyNumbers &= types[i] == Cursor.FIELD_TYPE_INTEGER || types[i] == Cursor.FIELD_TYPE_FLOAT;
+      onlyStrings &= types[i] == Cursor.FIELD_TYPE_STRING;
+    }
+
+    if (onlyNumbers) {
+      return numbers == null ? new double[0] : Arrays.copyOf(numbers, numRows);
+    }
+    if (onlyStrings) {
+      String[] strings = new String[numRows];
+      for (int i = 0; i < numRows; i++) {
+        strings[i] = (String) values[i];
+      }
+      return strings;
+    }
+
+    List<Object> mixed = new ArrayList<>(numRows);
+    for (int i = 0; i < numRows; i++) {
+      if (types[i] == Cursor.FIELD_TYPE_INTEGER || types[i] == Cursor.FIELD_TYPE_FLOAT) {
+        mixed.add(numbers[i]);
+      } else if (types[i] == Cursor.FIELD_TYPE_NULL) {
+        mixed.add(null);
+      } else {
+        mixed.add(values[i]);
+      }
+    }
+    return mixed;
+  }
+}
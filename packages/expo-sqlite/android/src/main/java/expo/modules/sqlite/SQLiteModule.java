@@ -3,8 +3,13 @@ package expo.modules.sqlite;
 
 import android.content.Context;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteProgram;
+import android.database.sqlite.SQLiteQuery;
 import android.database.sqlite.SQLiteStatement;
+import android.util.SparseArray;
 
 import java.io.File;
 import java.io.IOException;
@@ -14,10 +19,14 @@ import java.util.List;
 import java.util.Map;
 
 import org.unimodules.core.ExportedModule;
+import org.unimodules.core.ModuleRegistry;
 import org.unimodules.core.Promise;
 import org.unimodules.core.interfaces.ExpoMethod;
+import org.unimodules.core.interfaces.LifecycleEventListener;
+import org.unimodules.core.interfaces.ModuleRegistryConsumer;
+import org.unimodules.core.interfaces.services.UIManager;
 
-public class SQLiteModule extends ExportedModule {
+public class SQLiteModule extends ExportedModule implements ModuleRegistryConsumer, LifecycleEventListener {
   private static final boolean DEBUG_MODE = false;
 
   private static final String TAG = SQLiteModule.class.getSimpleName();
@@ -26,9 +35,17 @@ public class SQLiteModule extends ExportedModule {
   private static final String[] EMPTY_COLUMNS = new String[]{};
   private static final SQLitePluginResult EMPTY_RESULT = new SQLitePluginResult(EMPTY_ROWS, EMPTY_COLUMNS, 0, 0, null);
 
+  private static final int STATEMENT_CACHE_SIZE = 64;
+  // doubles with a larger magnitude can't be represented exactly as longs
+  private static final double MAX_SAFE_INTEGER = 9007199254740991.;
+
   private static final Map<String, SQLiteDatabase> DATABASES = new HashMap<String, SQLiteDatabase>();
+  private static final Map<String, SQLiteStatementCache> STATEMENT_CACHES = new HashMap<String, SQLiteStatementCache>();
 
   private Context mContext;
+  private ModuleRegistry mModuleRegistry;
+  private final SparseArray<SQLiteCursorHandle> mCursors = new SparseArray<>();
+  private int mNextCursorId = 0;
 
   public SQLiteModule(Context scopedContext) {
     super(scopedContext);
@@ -40,33 +57,63 @@ public class SQLiteModule extends ExportedModule {
     return "ExponentSQLite";
   }
 
+  @Override
+  public void setModuleRegistry(ModuleRegistry moduleRegistry) {
+    // Unregister from old UIManager
+    if (mModuleRegistry != null && mModuleRegistry.getModule(UIManager.class) != null) {
+      mModuleRegistry.getModule(UIManager.class).unregisterLifecycleEventListener(this);
+    }
+
+    mModuleRegistry = moduleRegistry;
+
+    // Register to new UIManager
+    if (mModuleRegistry != null && mModuleRegistry.getModule(UIManager.class) != null) {
+      mModuleRegistry.getModule(UIManager.class).registerLifecycleEventListener(this);
+    }
+  }
+
+  @Override
+  public void onHostResume() { }
+
+  @Override
+  public void onHostPause() { }
+
+  @Override
+  public void onHostDestroy() {
+    // cursors JS didn't read to the end would otherwise keep their query and memory around
+    for (int i = mCursors.size() - 1; i >= 0; i--) {
+      closeCursorHandle(mCursors.keyAt(i));
+    }
+  }
+
   @ExpoMethod
   public void exec(String dbName, ArrayList<ArrayList<Object>> queries, Boolean readOnly, final Promise promise) {
     try {
-      int numQueries = queries.size();
-      SQLitePluginResult[] results = new SQLitePluginResult[numQueries];
       SQLiteDatabase db = getDatabase(dbName);
+      SQLitePluginResult[] results = execQueries(db, getStatementCache(dbName, db), queries, readOnly);
+      List<Object> data = pluginResultsToPrimitiveData(results);
+      promise.resolve(data);
+    } catch (Exception e) {
+      promise.reject("SQLiteError", e);
+    }
+  }
 
-      for (int i = 0; i < numQueries; i++) {
-        ArrayList<Object> sqlQuery = queries.get(i);
-        String sql = (String) sqlQuery.get(0);
-        String[] bindArgs = convertParamsToStringArray(sqlQuery.get(1));
-        try {
-          if (isSelect(sql)) {
-            results[i] = doSelectInBackgroundAndPossiblyThrow(sql, bindArgs, db);
-          } else { // update/insert/delete
-            if (readOnly) {
-              results[i] = new SQLitePluginResult(EMPTY_ROWS, EMPTY_COLUMNS, 0, 0, new ReadOnlyException());
-            } else {
-              results[i] = doUpdateInBackgroundAndPossiblyThrow(sql, bindArgs, db);
-            }
-          }
-        } catch (Throwable e) {
-          if (DEBUG_MODE) {
-            e.printStackTrace();
-          }
-          results[i] = new SQLitePluginResult(EMPTY_ROWS, EMPTY_COLUMNS, 0, 0, e);
-        }
+  /**
+   * Same as {@link #exec(String, ArrayList, Boolean, Promise)}, but runs the whole batch inside a
+   * single transaction so that many small writes are committed (and synced to disk) only once.
+   * Errors are still reported per query, so queries that succeeded are committed either way.
+   */
+  @ExpoMethod
+  public void execInTransaction(String dbName, ArrayList<ArrayList<Object>> queries, Boolean readOnly, final Promise promise) {
+    try {
+      SQLiteDatabase db = getDatabase(dbName);
+      SQLitePluginResult[] results;
+      db.beginTransaction();
+      try {
+        results = execQueries(db, getStatementCache(dbName, db), queries, readOnly);
+        db.setTransactionSuccessful();
+      } finally {
+        db.endTransaction();
       }
       List<Object> data = pluginResultsToPrimitiveData(results);
       promise.resolve(data);
@@ -75,33 +122,121 @@ public class SQLiteModule extends ExportedModule {
     }
   }
 
+  /**
+   * Opens a cursor for a SELECT so that its rows can be read in pages with
+   * {@link #fetchCursorRows(int, int, Promise)}. Resolves with `[cursorId, columnNames]`.
+   */
+  @ExpoMethod
+  public void openCursor(String dbName, String sql, ArrayList<Object> args, final Promise promise) {
+    try {
+      Cursor cursor = queryWithTypedArgs(getDatabase(dbName), sql, args);
+      SQLiteCursorHandle handle = new SQLiteCursorHandle(dbName, cursor);
+      int cursorId = mNextCursorId++;
+      mCursors.put(cursorId, handle);
+
+      List<Object> result = new ArrayList<>(2);
+      result.add(cursorId);
+      result.add(handle.getColumnNames());
+      promise.resolve(result);
+    } catch (Exception e) {
+      promise.reject("SQLiteError", e);
+    }
+  }
+
+  /**
+   * Resolves with `[numRows, isDone, columns]` where `columns` holds up to `maxRows` values of
+   * every column (see {@link SQLiteCursorHandle}). The cursor is closed once it's exhausted.
+   */
+  @ExpoMethod
+  public void fetchCursorRows(int cursorId, int maxRows, final Promise promise) {
+    SQLiteCursorHandle handle = mCursors.get(cursorId);
+    if (handle == null) {
+      promise.reject("SQLiteError", "Cursor " + cursorId + " is not open.");
+      return;
+    }
+    try {
+      List<Object> page = handle.fetch(Math.max(maxRows, 1));
+      if ((Boolean) page.get(1)) {
+        closeCursorHandle(cursorId);
+      }
+      promise.resolve(page);
+    } catch (Exception e) {
+      closeCursorHandle(cursorId);
+      promise.reject("SQLiteError", e);
+    }
+  }
+
+  @ExpoMethod
+  public void closeCursor(int cursorId, final Promise promise) {
+    closeCursorHandle(cursorId);
+    promise.resolve(null);
+  }
+
+  private void closeCursorHandle(int cursorId) {
+    SQLiteCursorHandle handle = mCursors.get(cursorId);
+    if (handle != null) {
+      mCursors.remove(cursorId);
+      handle.close();
+    }
+  }
+
   @ExpoMethod
   public void close(String dbName, final Promise promise) {
+    for (int i = mCursors.size() - 1; i >= 0; i--) {
+      if (mCursors.valueAt(i).getDatabaseName().equals(dbName)) {
+        closeCursorHandle(mCursors.keyAt(i));
+      }
+    }
+    SQLiteStatementCache statementCache = STATEMENT_CACHES.remove(dbName);
+    if (statementCache != null) {
+      statementCache.evictAll();
+    }
     DATABASES.get(dbName).close();
     DATABASES.remove(dbName);
     promise.resolve(null);
   }
 
-  // do a update/delete/insert operation
-  private SQLitePluginResult doUpdateInBackgroundAndPossiblyThrow(String sql, String[] bindArgs,
-                                                                  SQLiteDatabase db) {
-    SQLiteStatement statement = null;
-    try {
-      statement = db.compileStatement(sql);
-      if (bindArgs != null) {
-        for (int i = bindArgs.length; i != 0; i--) {
-          if (bindArgs[i - 1] == null) {
-            statement.bindNull(i);
+  private SQLitePluginResult[] execQueries(SQLiteDatabase db, SQLiteStatementCache statementCache,
+                                           ArrayList<ArrayList<Object>> queries, Boolean readOnly) {
+    int numQueries = queries.size();
+    SQLitePluginResult[] results = new SQLitePluginResult[numQueries];
+
+    for (int i = 0; i < numQueries; i++) {
+      ArrayList<Object> sqlQuery = queries.get(i);
+      String sql = (String) sqlQuery.get(0);
+      ArrayList<Object> bindArgs = (ArrayList<Object>) sqlQuery.get(1);
+      try {
+        SQLiteStatementCache.CachedStatement cachedStatement = statementCache.get(sql);
+        if (cachedStatement.type == SQLiteStatementCache.TYPE_SELECT) {
+          results[i] = doSelectInBackgroundAndPossiblyThrow(sql, bindArgs, db);
+        } else { // update/insert/delete
+          if (readOnly) {
+            results[i] = new SQLitePluginResult(EMPTY_ROWS, EMPTY_COLUMNS, 0, 0, new ReadOnlyException());
           } else {
-            statement.bindString(i, bindArgs[i - 1]);
+            results[i] = doUpdateInBackgroundAndPossiblyThrow(cachedStatement, bindArgs);
           }
         }
+      } catch (Throwable e) {
+        if (DEBUG_MODE) {
+          e.printStackTrace();
+        }
+        results[i] = new SQLitePluginResult(EMPTY_ROWS, EMPTY_COLUMNS, 0, 0, e);
       }
-      if (isInsert(sql)) {
+    }
+    return results;
+  }
+
+  // do a update/delete/insert operation
+  private SQLitePluginResult doUpdateInBackgroundAndPossiblyThrow(SQLiteStatementCache.CachedStatement cachedStatement,
+                                                                  ArrayList<Object> bindArgs) {
+    SQLiteStatement statement = cachedStatement.statement;
+    try {
+      bindParams(statement, bindArgs);
+      if (cachedStatement.type == SQLiteStatementCache.TYPE_INSERT) {
         long insertId = statement.executeInsert();
         int rowsAffected = insertId >= 0 ? 1 : 0;
         return new SQLitePluginResult(EMPTY_ROWS, EMPTY_COLUMNS, rowsAffected, insertId, null);
-      } else if (isDelete(sql) || isUpdate(sql)) {
+      } else if (cachedStatement.type == SQLiteStatementCache.TYPE_UPDATE_OR_DELETE) {
         int rowsAffected = statement.executeUpdateDelete();
         return new SQLitePluginResult(EMPTY_ROWS, EMPTY_COLUMNS, rowsAffected, 0, null);
       } else {
@@ -111,18 +246,17 @@ public class SQLiteModule extends ExportedModule {
         return EMPTY_RESULT;
       }
     } finally {
-      if (statement != null) {
-        statement.close();
-      }
+      // don't keep (possibly large) arguments alive while the statement sits in the cache
+      statement.clearBindings();
     }
   }
 
   // do a select operation
-  private SQLitePluginResult doSelectInBackgroundAndPossiblyThrow(String sql, String[] bindArgs,
+  private SQLitePluginResult doSelectInBackgroundAndPossiblyThrow(String sql, ArrayList<Object> bindArgs,
                                                                   SQLiteDatabase db) {
     Cursor cursor = null;
     try {
-      cursor = db.rawQuery(sql, bindArgs);
+      cursor = queryWithTypedArgs(db, sql, bindArgs);
       int numRows = cursor.getCount();
       if (numRows == 0) {
         return EMPTY_RESULT;
@@ -145,6 +279,16 @@ public class SQLiteModule extends ExportedModule {
     }
   }
 
+  private static Cursor queryWithTypedArgs(SQLiteDatabase db, String sql, final ArrayList<Object> bindArgs) {
+    return db.rawQueryWithFactory(new SQLiteDatabase.CursorFactory() {
+      @Override
+      public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery, String editTable, SQLiteQuery query) {
+        bindParams(query, bindArgs);
+        return new SQLiteCursor(masterQuery, editTable, query);
+      }
+    }, sql, null, null);
+  }
+
   private Object getValueFromCursor(Cursor cursor, int index, int columnType) {
     switch (columnType) {
       case Cursor.FIELD_TYPE_FLOAT:
@@ -182,12 +326,25 @@ public class SQLiteModule extends ExportedModule {
     }
     if (database == null) {
       DATABASES.remove(name);
+      SQLiteStatementCache statementCache = STATEMENT_CACHES.remove(name);
+      if (statementCache != null) {
+        statementCache.evictAll();
+      }
       database = SQLiteDatabase.openOrCreateDatabase(path, null);
       DATABASES.put(name, database);
     }
     return database;
   }
 
+  private SQLiteStatementCache getStatementCache(String name, SQLiteDatabase database) {
+    SQLiteStatementCache statementCache = STATEMENT_CACHES.get(name);
+    if (statementCache == null) {
+      statementCache = new SQLiteStatementCache(database, STATEMENT_CACHE_SIZE);
+      STATEMENT_CACHES.put(name, statementCache);
+    }
+    return statementCache;
+  }
+
   private static List<Object> pluginResultsToPrimitiveData(SQLitePluginResult[] results) {
     List<Object> list = new ArrayList<>();
     for (int i = 0; i < results.length; i++) {
@@ -240,68 +397,42 @@ public class SQLiteModule extends ExportedModule {
     return data;
   }
 
-  private static boolean isSelect(String str) {
-    return startsWithCaseInsensitive(str, "select") || startsWithCaseInsensitive(str, "pragma");
-  }
-
-  private static boolean isInsert(String str) {
-    return startsWithCaseInsensitive(str, "insert");
-  }
-
-  private static boolean isUpdate(String str) {
-    return startsWithCaseInsensitive(str, "update");
-  }
-
-  private static boolean isDelete(String str) {
-    return startsWithCaseInsensitive(str, "delete");
-  }
-
-  // identify an "insert"/"select" query more efficiently than with a Pattern
-  private static boolean startsWithCaseInsensitive(String str, String substr) {
-    int i = -1;
-    int len = str.length();
-    while (++i < len) {
-      char ch = str.charAt(i);
-      if (!Character.isWhitespace(ch)) {
-        break;
-      }
-    }
-
-    int j = -1;
-    int substrLen = substr.length();
-    while (++j < substrLen) {
-      if (j + i >= len) {
-        return false;
-      }
-      char ch = str.charAt(j + i);
-      if (Character.toLowerCase(ch) != substr.charAt(j)) {
-        return false;
-      }
+  private static void bindParams(SQLiteProgram program, ArrayList<Object> params) {
+    program.clearBindings();
+    if (params == null) {
+      return;
     }
-    return true;
-  }
-
-  private static String[] convertParamsToStringArray(Object paramArrayArg) {
-    ArrayList<Object> paramArray = (ArrayList<Object>) paramArrayArg;
-    int len = paramArray.size();
-    String[] res = new String[len];
-    for (int i = 0; i < len; i++) {
-      Object object = paramArray.get(i);
-      res[i] = null;
-      if (object instanceof String) {
-        res[i] = unescapeBlob((String) object);
+    for (int i = 0; i < params.size(); i++) {
+      Object object = params.get(i);
+      int index = i + 1;
+      if (object == null) {
+        program.bindNull(index);
+      } else if (object instanceof String) {
+        program.bindString(index, unescapeBlob((String) object));
       } else if (object instanceof Boolean) {
-        res[i] = ((Boolean) object) ? "0" : "1";
+        program.bindString(index, ((Boolean) object) ? "0" : "1");
       } else if (object instanceof Double) {
-        res[i] = object.toString();
-      } else if (object != null) {
+        double value = (Double) object;
+        // JS only has doubles, bind integral ones as integers so they keep INTEGER affinity
+        if (value == Math.rint(value) && Math.abs(value) <= MAX_SAFE_INTEGER) {
+          program.bindLong(index, (long) value);
+        } else {
+          program.bindDouble(index, value);
+        }
+      } else if (object instanceof Integer || object instanceof Long) {
+        program.bindLong(index, ((Number) object).longValue());
+      } else if (object instanceof byte[]) {
+        program.bindBlob(index, (byte[]) object);
+      } else {
         throw new ClassCastException("Cound not find proper type in SQLite module");
       }
     }
-    return res;
   }
 
   private static String unescapeBlob(String str) {
+    if (str.indexOf('\u0001') == -1 && str.indexOf('\u0002') == -1) {
+      return str;
+    }
     return str.replaceAll("\u0001\u0001", "\u0000")
         .replaceAll("\u0001\u0002", "\u0001")
         .replaceAll("\u0002\u0002", "\u0002");
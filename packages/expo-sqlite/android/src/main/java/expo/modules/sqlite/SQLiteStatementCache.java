@@ -0,0 +1,87 @@
+// Copyright 2015-present 650 Industries. All rights reserved.
+package expo.modules.sqlite;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.LruCache;
+
+/**
+ * Per-database LRU cache of compiled statements. Statements are classified once when they are
+ * first seen, and everything but SELECTs is compiled into a reusable {@link SQLiteStatement}.
+ * Evicted statements are closed.
+ */
+class SQLiteStatementCache extends LruCache<String, SQLiteStatementCache.CachedStatement> {
+  static final int TYPE_SELECT = 0;
+  static final int TYPE_INSERT = 1;
+  static final int TYPE_UPDATE_OR_DELETE = 2;
+  static final int TYPE_OTHER = 3;
+
+  static class CachedStatement {
+    final int type;
+    final SQLiteStatement statement; // null for selects, which are run through a cursor
+
+    CachedStatement(int type, SQLiteStatement statement) {
+      this.type = type;
+      this.statement = statement;
+    }
+  }
+
+  private final SQLiteDatabase mDatabase;
+
+  SQLiteStatementCache(SQLiteDatabase database, int maxSize) {
+    super(maxSize);
+    mDatabase = database;
+  }
+
+  @Override
+  protected CachedStatement create(String sql) {
+    int type = getStatementType(sql);
+    if (type == TYPE_SELECT) {
+      return new CachedStatement(type, null);
+    }
+    return new CachedStatement(type, mDatabase.compileStatement(sql));
+  }
+
+  @Override
+  protected void entryRemoved(boolean evicted, String sql, CachedStatement oldValue, CachedStatement newValue) {
+    if (oldValue.statement != null) {
+      oldValue.statement.close();
+    }
+  }
+
+  private static int getStatementType(String sql) {
+    if (startsWithCaseInsensitive(sql, "select") || startsWithCaseInsensitive(sql, "pragma")) {
+      return TYPE_SELECT;
+    } else if (startsWithCaseInsensitive(sql, "insert")) {
+      return TYPE_INSERT;
+    } else if (startsWithCaseInsensitive(sql, "update") || startsWithCaseInsensitive(sql, "delete")) {
+      return TYPE_UPDATE_OR_DELETE;
+    }
+    return TYPE_OTHER;
+  }
+
+  // identify an "insert"/"select" query more efficiently than with a Pattern
+  private static boolean startsWithCaseInsensitive(String str, String substr) {
+    int i = -1;
+    int len = str.length();
+    while (++i < len) {
+      char ch = str.charAt(i);
+      if (!Character.isWhitespace(ch)) {
+        break;
+      }
+    }
+
+    int j = -1;
+    int substrLen = substr.length();
+    while (++j < substrLen) {
+      if (j + i >= len) {
+        return false;
+      }
+      char ch = str.charAt(j + i);
+      if (Character.toLowerCase(ch) != substr.charAt(j)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
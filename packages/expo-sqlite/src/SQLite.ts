@@ -2,22 +2,24 @@ import './polyfillNextTick';
 
 import zipObject from 'lodash.zipobject';
 import { Platform } from 'react-native';
-import { NativeModulesProxy } from '@unimodules/core';
+import { NativeModulesProxy, UnavailabilityError } from '@unimodules/core';
 import customOpenDatabase from '@expo/websql/custom';
 
 const { ExponentSQLite } = NativeModulesProxy;
 
-type InternalQuery = { sql: string; args: unknown[] };
+export type Query = { sql: string; args: unknown[] };
+
+export type SQLiteRow = { [column: string]: any };
 
 type InternalResultSet =
   | { error: Error }
   | {
       insertId?: number;
       rowsAffected: number;
-      rows: Array<{ [column: string]: any }>;
+      rows: SQLiteRow[];
     };
 
-export type SQLiteCallback = (error?: Error | null, resultSet?: InternalResultSet) => void;
+export type SQLiteCallback = (error?: Error | null, resultSets?: InternalResultSet[]) => void;
 
 class SQLiteDatabase {
   _name: string;
@@ -27,12 +29,21 @@ class SQLiteDatabase {
     this._name = name;
   }
 
-  exec(queries: InternalQuery[], readOnly: boolean, callback: SQLiteCallback): void {
+  exec(queries: Query[], readOnly: boolean, callback: SQLiteCallback): void {
+    this._exec(ExponentSQLite.exec, queries, readOnly, callback);
+  }
+
+  execInTransaction(queries: Query[], readOnly: boolean, callback: SQLiteCallback): void {
+    // Only Android runs a batch in a single native transaction
+    this._exec(ExponentSQLite.execInTransaction || ExponentSQLite.exec, queries, readOnly, callback);
+  }
+
+  _exec(nativeExec, queries: Query[], readOnly: boolean, callback: SQLiteCallback): void {
     if (this._closed) {
       throw new Error(`The SQLite database is closed`);
     }
 
-    ExponentSQLite.exec(this._name, queries.map(_serializeQuery), readOnly).then(
+    nativeExec(this._name, queries.map(_serializeQuery), readOnly).then(
       nativeResultSets => {
         callback(null, nativeResultSets.map(_deserializeResultSet));
       },
@@ -43,13 +54,76 @@ class SQLiteDatabase {
     );
   }
 
+  async openCursorAsync(sql: string, args: unknown[] = []): Promise<SQLiteCursor> {
+    if (this._closed) {
+      throw new Error(`The SQLite database is closed`);
+    }
+    // Only Android can page through the rows of a query
+    if (!ExponentSQLite.openCursor) {
+      throw new UnavailabilityError('SQLite', 'openCursorAsync');
+    }
+
+    const [serializedSql, serializedArgs] = _serializeQuery({ sql, args });
+    const [cursorId, columnNames] = await ExponentSQLite.openCursor(
+      this._name,
+      serializedSql,
+      serializedArgs
+    );
+    return new SQLiteCursor(cursorId, columnNames);
+  }
+
   close() {
     this._closed = true;
     ExponentSQLite.close(this._name);
   }
 }
 
-function _serializeQuery(query: InternalQuery): [string, unknown[]] {
+/**
+ * The rows of a query, read a page at a time so that a large result never has to be held in
+ * memory at once. The native cursor is closed once the last page has been read.
+ */
+export class SQLiteCursor {
+  readonly columnNames: string[];
+  _id: number;
+  _isDone: boolean = false;
+
+  constructor(id: number, columnNames: string[]) {
+    this._id = id;
+    this.columnNames = columnNames;
+  }
+
+  get isDone(): boolean {
+    return this._isDone;
+  }
+
+  async fetchRowsAsync(maxRows: number = 100): Promise<SQLiteRow[]> {
+    if (this._isDone) {
+      return [];
+    }
+
+    let page;
+    try {
+      page = await ExponentSQLite.fetchCursorRows(this._id, maxRows);
+    } catch (error) {
+      // the native cursor is closed when reading fails
+      this._isDone = true;
+      throw error;
+    }
+    const [numRows, isDone, columns] = page;
+    this._isDone = isDone;
+    return _deserializeCursorRows(this.columnNames, numRows, columns);
+  }
+
+  async closeAsync(): Promise<void> {
+    if (this._isDone) {
+      return;
+    }
+    this._isDone = true;
+    await ExponentSQLite.closeCursor(this._id);
+  }
+}
+
+function _serializeQuery(query: Query): [string, unknown[]] {
   return [query.sql, Platform.OS === 'android' ? query.args.map(_escapeBlob) : query.args];
 }
 
@@ -68,6 +142,23 @@ function _deserializeResultSet(nativeResult): InternalResultSet {
   };
 }
 
+function _deserializeCursorRows(
+  columnNames: string[],
+  numRows: number,
+  columns: unknown[][]
+): SQLiteRow[] {
+  // pages are column-major, every column holds numRows values
+  const rows: SQLiteRow[] = new Array(numRows);
+  for (let i = 0; i < numRows; i++) {
+    const row: SQLiteRow = {};
+    for (let j = 0; j < columnNames.length; j++) {
+      row[columnNames[j]] = columns[j][i];
+    }
+    rows[i] = row;
+  }
+  return rows;
+}
+
 function _escapeBlob<T>(data: T): T {
   if (typeof data === 'string') {
     /* eslint-disable no-control-regex */
@@ -93,10 +184,20 @@ export function openDatabase(
   if (name === undefined) {
     throw new TypeError(`The database name must not be undefined`);
   }
-  return _openExpoSQLiteDatabase(name, version, description, size, callback);
+  const db = _openExpoSQLiteDatabase(name, version, description, size, callback);
+  db.execInTransaction = (queries: Query[], readOnly: boolean, callback: SQLiteCallback): void => {
+    db._db.execInTransaction(queries, readOnly, callback);
+  };
+  db.openCursorAsync = (sql: string, args?: unknown[]): Promise<SQLiteCursor> =>
+    db._db.openCursorAsync(sql, args);
+  return db;
 }
 
-type WebSQLDatabase = unknown;
+type WebSQLDatabase = {
+  execInTransaction(queries: Query[], readOnly: boolean, callback: SQLiteCallback): void;
+  openCursorAsync(sql: string, args?: unknown[]): Promise<SQLiteCursor>;
+  [key: string]: any;
+};
 
 export default {
   openDatabase,
@@ -25,4 +25,12 @@ public class BarCodeScannerSettings extends HashMap<BarCodeScannerSettingsKey, O
   public Object getTypes() {
     return get(BarCodeScannerSettingsKey.TYPES);
   }
+
+  public void putScanArea(Object scanArea) {
+    put(BarCodeScannerSettingsKey.SCAN_AREA, scanArea);
+  }
+
+  public Object getScanArea() {
+    return get(BarCodeScannerSettingsKey.SCAN_AREA);
+  }
 }
@@ -1,7 +1,8 @@
 package org.unimodules.interfaces.barcodescanner;
 
 public enum BarCodeScannerSettingsKey {
-  TYPES("barCodeTypes");
+  TYPES("barCodeTypes"),
+  SCAN_AREA("scanArea");
 
   private final String mName;
 